@@ -0,0 +1,101 @@
+package com.mctech.fss.client;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 校验的开销：发送时经过{@link ChecksumEntity}、读取时经过{@link ChecksumInputStream}与不校验的对比。
+ * 发送的内容按8K复制到缓冲区，模拟写入socket
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChecksumBenchmark {
+  @Param({"4096", "1048576", "16777216"})
+  public int size;
+
+  @Param({"false", "true"})
+  public boolean checksum;
+
+  private byte[] content;
+  private String md5;
+  private final byte[] buffer = new byte[8192];
+  private final byte[] socketBuffer = new byte[8192];
+
+  @Setup
+  public void setUp() {
+    this.content = new byte[this.size];
+    new Random(1).nextBytes(this.content);
+    this.md5 = DigestUtils.md5Hex(this.content);
+  }
+
+  @Benchmark
+  public void send(Blackhole blackhole) throws IOException {
+    AbstractHttpEntity entity = new ByteArrayEntity(this.content);
+    if (this.checksum) {
+      ChecksumEntity checksumEntity = new ChecksumEntity(entity);
+      checksumEntity.writeTo(this.socket);
+      blackhole.consume(checksumEntity.getChecksum());
+    } else {
+      entity.writeTo(this.socket);
+    }
+    blackhole.consume(this.socketBuffer);
+  }
+
+  @Benchmark
+  public long receive(Blackhole blackhole) throws IOException {
+    InputStream in = new ByteArrayInputStream(this.content);
+    if (this.checksum) {
+      in = new ChecksumInputStream(in, this.md5, this.size, blackhole::consume);
+    }
+    long total = 0;
+    int read;
+    while ((read = in.read(this.buffer)) >= 0) {
+      total += read;
+    }
+    return total;
+  }
+
+  /**
+   * 丢弃写入的内容，但按8K复制到缓冲区
+   */
+  private final OutputStream socket = new OutputStream() {
+    @Override
+    public void write(int b) {
+      socketBuffer[0] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      while (len > 0) {
+        int n = Math.min(len, socketBuffer.length);
+        System.arraycopy(b, off, socketBuffer, 0, n);
+        off += n;
+        len -= n;
+      }
+    }
+  };
+}
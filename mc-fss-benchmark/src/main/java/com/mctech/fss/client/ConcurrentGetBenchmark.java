@@ -0,0 +1,96 @@
+package com.mctech.fss.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同时发起10000个下载，经本地替身服务完成全部请求的耗时。
+ * platform: 固定数量的普通线程及Apache HttpClient；virtual: 每个请求一个虚拟线程，并启用{@link MCFssClientConfig#setVirtualThreads}，
+ * 需要Java 21及以上版本
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentGetBenchmark {
+  private static final int OPERATIONS = 10_000;
+  private static final int PLATFORM_THREADS = 200;
+
+  @Param({"platform", "virtual"})
+  public String mode;
+
+  @Param({"1024"})
+  public int size;
+
+  private StandInServer server;
+  private MCFssClient client;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    byte[] content = new byte[this.size];
+    new Random(1).nextBytes(content);
+    this.server = new StandInServer(content);
+    MCFssClientConfig config = this.server.config();
+    config.setMaxConnections(PLATFORM_THREADS);
+    config.setMaxConnectionsPerRoute(PLATFORM_THREADS);
+    if ("virtual".equals(this.mode)) {
+      this.executor = VirtualThreads.newExecutor("benchmark-");
+      if (this.executor == null) {
+        this.server.close();
+        throw new IllegalStateException("virtual需要Java 21及以上版本，当前为" + System.getProperty("java.version"));
+      }
+      config.setVirtualThreads(true);
+    } else {
+      this.executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+    this.client = new MCFssClient(config);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    this.executor.shutdownNow();
+    this.client.close();
+    this.server.close();
+  }
+
+  @Benchmark
+  public long getAll() throws InterruptedException, ExecutionException {
+    List<Future<Integer>> futures = new ArrayList<>(OPERATIONS);
+    for (int i = 0; i < OPERATIONS; i++) {
+      futures.add(this.executor.submit(() -> {
+        try (RequestResult result = this.client.get("benchmark.bin")) {
+          return result.readAllBytes().length;
+        }
+      }));
+    }
+    long total = 0;
+    for (Future<Integer> future : futures) {
+      total += future.get();
+    }
+    return total;
+  }
+}
@@ -0,0 +1,86 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.URIBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 改动前的实现，作为性能测试的对照
+ */
+final class Legacy {
+  private Legacy() {
+  }
+
+  /**
+   * 每次签名都重新处理密钥、查找并初始化Mac
+   */
+  @SneakyThrows
+  static SignedResource signatureResource(String accessKeySecret, String resource, SignatureOption option) {
+    Map<String, String> subResource = SignUtility.buildSubResource(option);
+    String canonicalString = SignUtility.buildCanonicalString(resource, option, subResource);
+
+    byte[] key = accessKeySecret.getBytes(StandardCharsets.UTF_8);
+    SecretKeySpec signingKey = new SecretKeySpec(key, "HmacSHA1");
+    Mac mac = Mac.getInstance("HmacSHA1");
+    mac.init(signingKey);
+    byte[] data = canonicalString.getBytes(StandardCharsets.UTF_8);
+    byte[] signedData = mac.doFinal(data);
+    String signature = Base64.encodeBase64String(signedData);
+    SignedResource signedResource = new SignedResource();
+    signedResource.setSignature(signature);
+    signedResource.setSubResource(subResource);
+    signedResource.setExpires(option.getAbsoluteExpires());
+    return signedResource;
+  }
+
+  /**
+   * 每次请求都用new Date()格式化日期、用URIBuilder解析并拼接地址，并按{@link #signatureResource}签名
+   */
+  @SneakyThrows
+  static SignedData generateSignedData(MCFssClientConfig config, URI defaultEndpoint, SignDataOption option) {
+    FssOperation method = option.getMethod();
+    String key = option.getKey();
+    Map<String, String> headers = new HashMap<>();
+    if (option.getMetadata() != null) {
+      for (Map.Entry<String, String> entry : option.getMetadata().entrySet()) {
+        String lowerName = entry.getKey().toLowerCase();
+        headers.put(lowerName, entry.getValue());
+      }
+    }
+
+    SignatureOption opts = new SignatureOption(method, option.getContentType());
+    opts.setDate(new Date());
+    opts.setMetadata(option.getMetadata());
+    String resource = "/" + config.getBucketName() + "/" + key;
+    SignedResource sign = signatureResource(config.getAccessKeySecret(), resource, opts);
+    headers.put(HttpHeaders.AUTHORIZATION,
+        String.format("FSS %s:%s", config.getAccessKeyId(), sign.getSignature()));
+
+    String path = config.getBucketName() + "/" + key;
+    URIBuilder builder = new URIBuilder(defaultEndpoint);
+    String basePath = builder.getPath();
+    builder.setPath(basePath.endsWith("/") ? basePath + path : basePath + "/" + path);
+    for (Map.Entry<String, String> entry : sign.getSubResource().entrySet()) {
+      builder.addParameter(entry.getKey(), entry.getValue());
+    }
+
+    URI targetUrl = builder.build();
+    headers.put(HttpHeaders.ACCEPT, "application/xml,*/*");
+    headers.put(HttpHeaders.DATE, opts.getFormatedDate());
+    SignedData data = new SignedData();
+    data.setTargetUrl(targetUrl);
+    data.setMethod(option.getMethod());
+    data.setHeaders(headers);
+    data.setResource(path);
+    return data;
+  }
+}
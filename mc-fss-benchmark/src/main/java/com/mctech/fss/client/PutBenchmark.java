@@ -0,0 +1,105 @@
+package com.mctech.fss.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经本地替身服务上传的吞吐量：传入InputStream(长度未知时使用chunked)与传入File、Path、ByteBuffer、byte[]的对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PutBenchmark {
+  @Param({"65536", "8388608"})
+  public int size;
+
+  @Param({"inputStream", "inputStreamWithLength", "file", "path", "bytes", "heapBuffer", "directBuffer"})
+  public String source;
+
+  private StandInServer server;
+  private MCFssClient client;
+  private Path file;
+  private byte[] bytes;
+  private ByteBuffer heapBuffer;
+  private ByteBuffer directBuffer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    this.bytes = new byte[this.size];
+    new Random(1).nextBytes(this.bytes);
+    this.file = Files.createTempFile("mc-fss-benchmark", ".bin");
+    Files.write(this.file, this.bytes);
+    this.heapBuffer = ByteBuffer.wrap(this.bytes);
+    this.directBuffer = ByteBuffer.allocateDirect(this.size);
+    this.directBuffer.put(this.bytes).flip();
+
+    this.server = new StandInServer(new byte[0]);
+    this.client = new MCFssClient(this.server.config());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    this.client.close();
+    this.server.close();
+    Files.deleteIfExists(this.file);
+  }
+
+  @Benchmark
+  public int put() throws IOException {
+    RequestResult result;
+    switch (this.source) {
+      case "inputStream":
+        try (InputStream in = new FileInputStream(this.file.toFile())) {
+          result = this.client.put("benchmark.bin", null, in, null, null, null);
+        }
+        break;
+      case "inputStreamWithLength":
+        try (InputStream in = new FileInputStream(this.file.toFile())) {
+          result = this.client.put("benchmark.bin", null, in, null, null, (long) this.size);
+        }
+        break;
+      case "file":
+        result = this.client.put("benchmark.bin", null, this.file.toFile(), null, null);
+        break;
+      case "path":
+        result = this.client.put("benchmark.bin", null, this.file, null, null);
+        break;
+      case "bytes":
+        result = this.client.put("benchmark.bin", null, this.bytes, null, null);
+        break;
+      case "heapBuffer":
+        result = this.client.put("benchmark.bin", null, this.heapBuffer.duplicate(), null, null);
+        break;
+      case "directBuffer":
+        result = this.client.put("benchmark.bin", null, this.directBuffer.duplicate(), null, null);
+        break;
+      default:
+        throw new IllegalArgumentException(this.source);
+    }
+    result.close();
+    return result.getStatusCode();
+  }
+}
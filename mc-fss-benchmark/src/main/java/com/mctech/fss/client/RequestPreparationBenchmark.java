@@ -0,0 +1,104 @@
+package com.mctech.fss.client;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发出请求前的准备开销，不经过网络：生成签名数据、拼接地址并设置到请求上。
+ * legacy为改动前每次解析地址、格式化日期并初始化Mac的实现，current为{@link RequestSigner}的实现
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestPreparationBenchmark {
+  @Param({"get", "put", "head"})
+  public String operation;
+
+  private final String key = "gallery/2023/11/14/图片-0001.jpg";
+  private final Map<String, String> metadata = new HashMap<>();
+  private MCFssClientConfig config;
+  private RequestSigner signer;
+
+  @Setup
+  public void setUp() {
+    this.config = new MCFssClientConfig();
+    this.config.setBucketName("bucket");
+    this.config.setAccessKeyId("benchmark-access-key-id");
+    this.config.setAccessKeySecret("benchmark-access-key-secret");
+    this.config.setPublicEndPoint("https://fss.example.com/");
+    this.signer = new RequestSigner(this.config);
+    this.metadata.put("owner", "benchmark");
+    this.metadata.put("width", "1920");
+  }
+
+  @Benchmark
+  public HttpRequestBase legacy() {
+    SignDataOption option = this.option();
+    SignedData data = Legacy.generateSignedData(this.config, this.signer.getDefaultEndpoint(), option);
+    return this.request(data);
+  }
+
+  @Benchmark
+  public HttpRequestBase current() {
+    SignDataOption option = this.option();
+    SignedData data = this.signer.generateSignedData(option);
+    return this.request(data);
+  }
+
+  private SignDataOption option() {
+    SignDataOption option = new SignDataOption();
+    option.setKey(this.key);
+    switch (this.operation) {
+      case "put":
+        option.setMethod(FssOperation.PUT);
+        option.setContentType("image/jpeg");
+        option.setMetadata(RequestSigner.toFssMetadata(this.metadata));
+        break;
+      case "head":
+        option.setMethod(FssOperation.HEAD);
+        break;
+      default:
+        option.setMethod(FssOperation.GET);
+        break;
+    }
+    return option;
+  }
+
+  private HttpRequestBase request(SignedData data) {
+    HttpRequestBase request;
+    switch (this.operation) {
+      case "put":
+        request = new HttpPut();
+        request.setHeader(HttpConsts.CONTENT_DISPOSITION, RequestSigner.contentDisposition(this.key, null));
+        break;
+      case "head":
+        request = new HttpHead();
+        break;
+      default:
+        request = new HttpGet();
+        break;
+    }
+    RequestSigner.applyTo(data, request);
+    return request;
+  }
+}
@@ -0,0 +1,86 @@
+package com.mctech.fss.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名的开销：改动前每次重新初始化Mac、使用{@link Signer}复用Mac、以及直接写入缓冲区不生成待签名字符串
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignerBenchmark {
+  private static final String SECRET = "benchmark-access-key-secret";
+
+  /**
+   * plain: 普通的GET签名；metadata: 带x-fss-元数据及content-type的PUT签名；url: 带过期时间的下载链接签名
+   */
+  @Param({"plain", "metadata", "url"})
+  public String scenario;
+
+  private final Signer signer = new Signer("benchmark-access-key-id", SECRET);
+  private final String resource = "/bucket/gallery/2023/11/14/图片-0001.jpg";
+  private SignatureOption option;
+
+  @Setup
+  public void setUp() {
+    switch (this.scenario) {
+      case "metadata":
+        this.option = new SignatureOption(FssOperation.PUT, "image/jpeg");
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("x-fss-meta-owner", "benchmark");
+        metadata.put("x-fss-meta-width", "1920");
+        metadata.put("Content-Disposition", "inline");
+        this.option.setMetadata(metadata);
+        this.option.setDate(new Date());
+        break;
+      case "url":
+        this.option = new SignatureOption(FssOperation.GET);
+        this.option.setExpires(3600L);
+        this.option.setProcess("image/resize,w_200");
+        break;
+      default:
+        this.option = new SignatureOption(FssOperation.GET);
+        this.option.setDate(new Date());
+        break;
+    }
+  }
+
+  @Benchmark
+  public SignedResource legacy() {
+    return Legacy.signatureResource(SECRET, this.resource, this.option);
+  }
+
+  @Benchmark
+  public String signer() {
+    return this.signer.sign(SignUtility.buildCanonicalString(this.resource, this.option,
+        SignUtility.buildSubResource(this.option)));
+  }
+
+  @Benchmark
+  public SignedResource signResource() {
+    return this.signer.signResource(this.resource, this.option);
+  }
+
+  @Benchmark
+  public String signCanonical() {
+    return this.signer.signCanonical(this.resource, this.option);
+  }
+}
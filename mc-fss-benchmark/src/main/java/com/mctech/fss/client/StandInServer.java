@@ -0,0 +1,92 @@
+package com.mctech.fss.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地的FSS替身服务，用于需要经过网络栈的性能测试。不校验签名：
+ * 上传的内容读完后丢弃，GET、HEAD返回固定内容，ETag为该内容的MD5
+ */
+final class StandInServer implements Closeable {
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final byte[] content;
+  private final String etag;
+
+  /**
+   * @param content GET返回的内容
+   */
+  StandInServer(byte[] content) throws IOException {
+    this.content = content;
+    this.etag = "\"" + DigestUtils.md5Hex(content) + "\"";
+    AtomicInteger counter = new AtomicInteger();
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "stand-in-server-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  /**
+   * @return 配置好地址的客户端配置，可继续修改其他配置
+   */
+  MCFssClientConfig config() {
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("benchmark-access-key-id");
+    config.setAccessKeySecret("benchmark-access-key-secret");
+    config.setPublicEndPoint("http://127.0.0.1:" + this.server.getAddress().getPort() + "/");
+    return config;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      byte[] buffer = new byte[64 * 1024];
+      try (InputStream in = exchange.getRequestBody()) {
+        while (in.read(buffer) >= 0) {
+          // 丢弃上传的内容
+        }
+      }
+      exchange.getResponseHeaders().add("ETag", this.etag);
+      switch (exchange.getRequestMethod()) {
+        case "GET":
+          exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+          exchange.sendResponseHeaders(200, this.content.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(this.content);
+          }
+          break;
+        case "HEAD":
+          exchange.getResponseHeaders().add("Content-Length", Integer.toString(this.content.length));
+          exchange.sendResponseHeaders(200, -1);
+          break;
+        default:
+          exchange.sendResponseHeaders(200, -1);
+          break;
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+}
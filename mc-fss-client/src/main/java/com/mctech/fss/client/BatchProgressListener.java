@@ -0,0 +1,16 @@
+package com.mctech.fss.client;
+
+/**
+ * 批量操作的进度通知。会在多个线程中被调用，实现需要线程安全
+ */
+public interface BatchProgressListener {
+  /**
+   * 每处理完一个key后调用
+   *
+   * @param result    刚处理完的key的结果
+   * @param completed 已处理完的数量，包括失败的
+   * @param failed    已失败的数量
+   * @param total     总数量
+   */
+  void onProgress(BatchResult<?> result, int completed, int failed, int total);
+}
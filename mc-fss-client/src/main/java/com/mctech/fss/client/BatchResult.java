@@ -0,0 +1,34 @@
+package com.mctech.fss.client;
+
+import lombok.Getter;
+
+/**
+ * 批量操作中单个key的处理结果
+ *
+ * @param <T> 成功时返回的内容类型
+ */
+@Getter
+public class BatchResult<T> {
+  /**
+   * 处理的文件key，复制操作时为目标key
+   */
+  private final String key;
+  /**
+   * 成功时返回的内容，没有返回内容的操作为null
+   */
+  private final T value;
+  /**
+   * 失败时的异常，成功时为null
+   */
+  private final Throwable error;
+
+  BatchResult(String key, T value, Throwable error) {
+    this.key = key;
+    this.value = value;
+    this.error = error;
+  }
+
+  public boolean isSuccess() {
+    return this.error == null;
+  }
+}
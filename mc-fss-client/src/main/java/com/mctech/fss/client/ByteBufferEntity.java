@@ -0,0 +1,73 @@
+package com.mctech.fss.client;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * ByteBuffer中剩余的内容。发送时不改变原缓冲区的位置，可重复发送
+ */
+class ByteBufferEntity extends AbstractHttpEntity {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final ByteBuffer buffer;
+
+  ByteBufferEntity(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.buffer.remaining();
+  }
+
+  @Override
+  public InputStream getContent() {
+    ByteBuffer data = this.buffer.duplicate();
+    return new InputStream() {
+      @Override
+      public int read() {
+        return data.hasRemaining() ? data.get() & 0xff : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        if (!data.hasRemaining()) {
+          return -1;
+        }
+        int count = Math.min(len, data.remaining());
+        data.get(b, off, count);
+        return count;
+      }
+    };
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    ByteBuffer data = this.buffer.duplicate();
+    if (data.hasArray()) {
+      out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      return;
+    }
+    // 直接内存中的内容分块复制后写出
+    byte[] chunk = new byte[Math.min(BUFFER_SIZE, data.remaining())];
+    while (data.hasRemaining()) {
+      int count = Math.min(chunk.length, data.remaining());
+      data.get(chunk, 0, count);
+      out.write(chunk, 0, count);
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+}
@@ -0,0 +1,93 @@
+package com.mctech.fss.client;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 以UTF-8编码直接把待签名字符串写入可重复使用的字节缓冲区，避免生成中间字符串。
+ * 非线程安全，每个线程使用自己的实例
+ */
+final class CanonicalStringWriter {
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  private byte[] buffer = new byte[1024];
+  private int length = 0;
+
+  void reset() {
+    if (this.buffer.length > MAX_RETAINED_CAPACITY) {
+      // 偶尔出现的超长资源不应让线程一直持有大缓冲区
+      this.buffer = new byte[1024];
+    }
+    this.length = 0;
+  }
+
+  int length() {
+    return this.length;
+  }
+
+  CanonicalStringWriter newLine() {
+    return this.append('\n');
+  }
+
+  CanonicalStringWriter append(char c) {
+    this.ensureCapacity(1);
+    this.buffer[this.length++] = (byte) c;
+    return this;
+  }
+
+  /**
+   * 与{@link String#getBytes(java.nio.charset.Charset)}的UTF-8编码结果完全一致，
+   * 包括把不成对的代理字符替换为'?'
+   */
+  CanonicalStringWriter append(String s) {
+    int count = s.length();
+    this.ensureCapacity(count);
+    for (int i = 0; i < count; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        this.buffer[this.length++] = (byte) c;
+      } else {
+        this.ensureCapacity(4 + count - i);
+        if (c < 0x800) {
+          this.buffer[this.length++] = (byte) (0xc0 | (c >> 6));
+          this.buffer[this.length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+          if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(++i));
+            this.buffer[this.length++] = (byte) (0xf0 | (cp >> 18));
+            this.buffer[this.length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            this.buffer[this.length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            this.buffer[this.length++] = (byte) (0x80 | (cp & 0x3f));
+          } else {
+            this.buffer[this.length++] = '?';
+          }
+        } else {
+          this.buffer[this.length++] = (byte) (0xe0 | (c >> 12));
+          this.buffer[this.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          this.buffer[this.length++] = (byte) (0x80 | (c & 0x3f));
+        }
+      }
+    }
+    return this;
+  }
+
+  /**
+   * 把已写入的内容提交给mac
+   */
+  void writeTo(Mac mac) {
+    mac.update(this.buffer, 0, this.length);
+  }
+
+  @Override
+  public String toString() {
+    return new String(this.buffer, 0, this.length, StandardCharsets.UTF_8);
+  }
+
+  private void ensureCapacity(int additional) {
+    int required = this.length + additional;
+    if (required > this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length * 2));
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.zip.Checksum;
+
+/**
+ * 同时计算MD5和CRC32C
+ */
+final class ChecksumCalculator {
+  private final MessageDigest md5;
+  private final Checksum crc32c = Crc32c.create();
+
+  @SneakyThrows
+  ChecksumCalculator() {
+    this.md5 = MessageDigest.getInstance("MD5");
+  }
+
+  void update(byte[] b, int off, int len) {
+    this.md5.update(b, off, len);
+    this.crc32c.update(b, off, len);
+  }
+
+  void reset() {
+    this.md5.reset();
+    this.crc32c.reset();
+  }
+
+  /**
+   * 返回校验值并重置
+   */
+  ContentChecksum finish() {
+    ContentChecksum checksum = new ContentChecksum(this.md5.digest(), this.crc32c.getValue());
+    this.crc32c.reset();
+    return checksum;
+  }
+
+  /**
+   * 计算内存中内容的校验值，用于发送前生成Content-MD5
+   */
+  static ContentChecksum of(HttpEntity entity) throws IOException {
+    ChecksumCalculator calculator = new ChecksumCalculator();
+    entity.writeTo(new OutputStream() {
+      @Override
+      public void write(int b) {
+        calculator.update(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        calculator.update(b, off, len);
+      }
+    });
+    return calculator.finish();
+  }
+}
@@ -0,0 +1,67 @@
+package com.mctech.fss.client;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 发送的同时计算内容的校验值。每次发送都重新计算，重试后得到的是最后一次发送的内容的校验值
+ */
+class ChecksumEntity extends AbstractHttpEntity {
+  private final AbstractHttpEntity entity;
+  private final ChecksumCalculator calculator = new ChecksumCalculator();
+  private volatile ContentChecksum checksum;
+
+  ChecksumEntity(AbstractHttpEntity entity) {
+    this.entity = entity;
+  }
+
+  /**
+   * @return 发送完成后的校验值，未完整发送时为null
+   */
+  ContentChecksum getChecksum() {
+    return this.checksum;
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return this.entity.isRepeatable();
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.entity.getContentLength();
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    return this.entity.getContent();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    this.checksum = null;
+    this.calculator.reset();
+    this.entity.writeTo(new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        calculator.update(b, off, len);
+        this.out.write(b, off, len);
+      }
+    });
+    this.checksum = this.calculator.finish();
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return this.entity.isStreaming();
+  }
+}
@@ -0,0 +1,84 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.ChecksumMismatchException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * 读取的同时计算内容的校验值，读完全部内容时与预期的MD5比较，不一致时抛出{@link ChecksumMismatchException}
+ */
+class ChecksumInputStream extends FilterInputStream {
+  private final ChecksumCalculator calculator = new ChecksumCalculator();
+  private final String expectedMd5;
+  private final long length;
+  private final Consumer<ContentChecksum> completed;
+  private long count;
+  private boolean finished;
+
+  /**
+   * @param expectedMd5 预期的十六进制MD5，为null时只计算不比较
+   * @param length      内容长度，未知时为-1。读到该长度时即完成校验，不需要再读到流末尾
+   * @param completed   读完全部内容后接收校验值
+   */
+  ChecksumInputStream(InputStream in, String expectedMd5, long length, Consumer<ContentChecksum> completed) {
+    super(in);
+    this.expectedMd5 = expectedMd5;
+    this.length = length;
+    this.completed = completed;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int read = this.read(b, 0, 1);
+    return read < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int read = this.in.read(b, off, len);
+    if (read > 0) {
+      this.calculator.update(b, off, read);
+      this.count += read;
+    }
+    if (read < 0 || this.count == this.length) {
+      this.finish();
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    // 跳过的内容也要参与计算
+    byte[] buffer = new byte[(int) Math.min(8192, Math.max(1, n))];
+    long skipped = 0;
+    while (skipped < n) {
+      int read = this.read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+      if (read < 0) {
+        break;
+      }
+      skipped += read;
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  private void finish() throws ChecksumMismatchException {
+    if (this.finished) {
+      return;
+    }
+    this.finished = true;
+    ContentChecksum checksum = this.calculator.finish();
+    this.completed.accept(checksum);
+    if (!checksum.matches(this.expectedMd5)) {
+      throw new ChecksumMismatchException(this.expectedMd5, checksum.getMd5());
+    }
+  }
+}
@@ -0,0 +1,373 @@
+package com.mctech.fss.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.SneakyThrows;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件内容的本地磁盘缓存。每次读取都带上If-None-Match/If-Modified-Since向服务端验证，
+ * 服务端返回304时通过内存映射直接读取本地文件，不再传输文件内容。
+ * 按最近最少使用淘汰，保证缓存文件的总大小不超过上限。重启后继续使用目录中已缓存的文件。线程安全
+ */
+public class ContentCache {
+  private static final Logger LOGGER = Logger.getLogger(ContentCache.class);
+
+  private static final String DATA_SUFFIX = ".data";
+  private static final String META_SUFFIX = ".json";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long maxBytes;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * @param directory 缓存目录，不存在时自动创建
+   * @param maxBytes  缓存文件的总大小上限(字节)
+   */
+  @SneakyThrows
+  public ContentCache(Path directory, long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes必须为大于0的整数");
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    Files.createDirectories(directory);
+    this.load();
+  }
+
+  /**
+   * @param id 由bucket及key组成的唯一标识
+   * @return 缓存的条目，不存在时返回null
+   */
+  Entry get(String id) {
+    synchronized (this.entries) {
+      return this.entries.get(id);
+    }
+  }
+
+  /**
+   * @return 该返回结果是否可以缓存：完整内容、长度已知且不超过上限、有ETag或Last-Modified用于之后的验证
+   */
+  boolean isCacheable(RequestResult result) {
+    if (result.getStatusCode() != HttpStatus.SC_OK) {
+      return false;
+    }
+    if (result.getHeader(HttpHeaders.ETAG) == null && result.getHeader(HttpHeaders.LAST_MODIFIED) == null) {
+      return false;
+    }
+    String length = result.getHeader(HttpHeaders.CONTENT_LENGTH);
+    if (length == null) {
+      return false;
+    }
+    long size;
+    try {
+      size = Long.parseLong(length.trim());
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    // 超过2G的文件无法一次映射到内存
+    return size <= this.maxBytes && size <= Integer.MAX_VALUE;
+  }
+
+  /**
+   * 把返回的内容写入缓存，不关闭result
+   */
+  Entry store(String id, RequestResult result) throws IOException {
+    String name = fileName(id);
+    Path data = this.directory.resolve(name + DATA_SUFFIX);
+    // 不同线程可能同时下载同一个文件，各自写入不同的临时文件后再替换
+    Path temp = Files.createTempFile(this.directory, name, TEMP_SUFFIX);
+    long length;
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        length = RequestResult.transfer(result.openRead(), channel, Long.MAX_VALUE);
+      }
+
+      Map<String, String> headers = new HashMap<>();
+      for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+        if (!isHopByHop(header.getKey())) {
+          headers.put(header.getKey(), header.getValue());
+        }
+      }
+      Entry entry = new Entry(id, name, result.getHeader(HttpHeaders.ETAG),
+          result.getHeader(HttpHeaders.LAST_MODIFIED), length, headers);
+      // 同一个文件的meta及内容必须成对替换
+      synchronized (this) {
+        Files.write(this.directory.resolve(name + META_SUFFIX), entry.toJson().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, data, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.add(entry);
+      }
+      return entry;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * 通过内存映射读取缓存的内容
+   *
+   * @return 缓存文件已不存在时返回null
+   */
+  @SneakyThrows
+  RequestResult open(Entry entry) {
+    Path data = this.directory.resolve(entry.name + DATA_SUFFIX);
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+      if (channel.size() != entry.length) {
+        return null;
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.length);
+    } catch (java.nio.file.NoSuchFileException e) {
+      return null;
+    }
+    // 记录访问时间，重启后按该时间恢复淘汰顺序
+    Files.setLastModifiedTime(data, FileTime.fromMillis(System.currentTimeMillis()));
+
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+    for (Map.Entry<String, String> header : entry.headers.entrySet()) {
+      response.setHeader(header.getKey(), header.getValue());
+    }
+    response.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(entry.length));
+    ByteBufferEntity entity = new ByteBufferEntity(buffer);
+    entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+    response.setEntity(entity);
+    return new RequestResult(response);
+  }
+
+  void recordHit() {
+    this.hitCount.incrementAndGet();
+  }
+
+  void recordMiss() {
+    this.missCount.incrementAndGet();
+  }
+
+  /**
+   * @param id 由bucket及key组成的唯一标识
+   */
+  public void invalidate(String id) {
+    Entry entry;
+    synchronized (this.entries) {
+      entry = this.entries.remove(id);
+      if (entry != null) {
+        this.totalBytes -= entry.length;
+      }
+    }
+    if (entry != null) {
+      this.deleteFiles(entry.name);
+    }
+  }
+
+  public void clear() {
+    List<Entry> removed;
+    synchronized (this.entries) {
+      removed = new ArrayList<>(this.entries.values());
+      this.entries.clear();
+      this.totalBytes = 0;
+    }
+    for (Entry entry : removed) {
+      this.deleteFiles(entry.name);
+    }
+  }
+
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  /**
+   * @return 缓存文件的总大小(字节)
+   */
+  public long getTotalBytes() {
+    synchronized (this.entries) {
+      return this.totalBytes;
+    }
+  }
+
+  /**
+   * @return 服务端返回304、直接使用本地文件的次数
+   */
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  private void add(Entry entry) {
+    List<Entry> evicted = new ArrayList<>();
+    synchronized (this.entries) {
+      Entry previous = this.entries.put(entry.id, entry);
+      if (previous != null) {
+        this.totalBytes -= previous.length;
+      }
+      this.totalBytes += entry.length;
+      Iterator<Entry> it = this.entries.values().iterator();
+      while (this.totalBytes > this.maxBytes && it.hasNext()) {
+        Entry eldest = it.next();
+        if (eldest == entry) {
+          continue;
+        }
+        it.remove();
+        this.totalBytes -= eldest.length;
+        this.evictionCount.incrementAndGet();
+        evicted.add(eldest);
+      }
+    }
+    for (Entry eldest : evicted) {
+      this.deleteFiles(eldest.name);
+    }
+  }
+
+  private void deleteFiles(String name) {
+    try {
+      Files.deleteIfExists(this.directory.resolve(name + META_SUFFIX));
+      Files.deleteIfExists(this.directory.resolve(name + DATA_SUFFIX));
+    } catch (IOException e) {
+      // Windows下仍被映射的文件无法删除，之后被覆盖或重启时清理
+      LOGGER.warn("删除缓存文件失败: " + name, e);
+    }
+  }
+
+  /**
+   * 读取目录中已缓存的文件，按最后访问时间恢复淘汰顺序
+   */
+  private void load() throws IOException {
+    List<Object[]> found = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        if (fileName.endsWith(TEMP_SUFFIX)) {
+          Files.deleteIfExists(path);
+          continue;
+        }
+        if (!fileName.endsWith(META_SUFFIX)) {
+          continue;
+        }
+        Path data = this.directory.resolve(fileName.substring(0, fileName.length() - META_SUFFIX.length()) + DATA_SUFFIX);
+        try {
+          Entry entry = Entry.fromJson(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+          if (Files.size(data) != entry.length) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(data);
+            continue;
+          }
+          found.add(new Object[]{Files.getLastModifiedTime(data), entry});
+        } catch (Exception e) {
+          LOGGER.warn("忽略无法读取的缓存文件: " + path, e);
+          Files.deleteIfExists(path);
+          Files.deleteIfExists(data);
+        }
+      }
+    }
+    found.sort((a, b) -> ((FileTime) a[0]).compareTo((FileTime) b[0]));
+    for (Object[] item : found) {
+      this.add((Entry) item[1]);
+    }
+  }
+
+  @SneakyThrows
+  private static String fileName(String id) {
+    MessageDigest digest = MessageDigest.getInstance("SHA-1");
+    byte[] hash = digest.digest(id.getBytes(StandardCharsets.UTF_8));
+    StringBuilder builder = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return builder.toString();
+  }
+
+  private static boolean isHopByHop(String name) {
+    return name.equalsIgnoreCase(HttpHeaders.CONNECTION)
+        || name.equalsIgnoreCase("Keep-Alive")
+        || name.equalsIgnoreCase(HttpHeaders.TRANSFER_ENCODING)
+        || name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)
+        || name.equalsIgnoreCase(HttpHeaders.DATE);
+  }
+
+  static final class Entry {
+    private final String id;
+    private final String name;
+    private final String etag;
+    private final String lastModified;
+    private final long length;
+    private final Map<String, String> headers;
+
+    private Entry(String id, String name, String etag, String lastModified, long length,
+                  Map<String, String> headers) {
+      this.id = id;
+      this.name = name;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.headers = headers;
+    }
+
+    String getEtag() {
+      return this.etag;
+    }
+
+    String getLastModified() {
+      return this.lastModified;
+    }
+
+    private String toJson() {
+      JSONObject json = new JSONObject();
+      json.put("id", this.id);
+      json.put("name", this.name);
+      json.put("etag", this.etag);
+      json.put("lastModified", this.lastModified);
+      json.put("length", this.length);
+      json.put("headers", this.headers);
+      return json.toJSONString();
+    }
+
+    private static Entry fromJson(String text) {
+      JSONObject json = JSON.parseObject(text);
+      Map<String, String> headers = new HashMap<>();
+      JSONObject headerJson = json.getJSONObject("headers");
+      if (headerJson != null) {
+        for (String name : headerJson.keySet()) {
+          headers.put(name, headerJson.getString(name));
+        }
+      }
+      return new Entry(json.getString("id"), json.getString("name"), json.getString("etag"),
+          json.getString("lastModified"), json.getLongValue("length"), headers);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.mctech.fss.client;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * 传输内容的MD5和CRC32C校验值
+ */
+public class ContentChecksum {
+  /**
+   * 保存文件MD5(十六进制)的meta信息名称
+   */
+  public static final String META_MD5 = "md5";
+
+  private final byte[] md5;
+  private final long crc32c;
+
+  ContentChecksum(byte[] md5, long crc32c) {
+    this.md5 = md5;
+    this.crc32c = crc32c;
+  }
+
+  /**
+   * @return MD5的十六进制小写形式
+   */
+  public String getMd5() {
+    return Hex.encodeHexString(this.md5);
+  }
+
+  /**
+   * @return MD5的Base64编码，即Content-MD5头的值
+   */
+  public String getMd5Base64() {
+    return Base64.encodeBase64String(this.md5);
+  }
+
+  public long getCrc32c() {
+    return this.crc32c;
+  }
+
+  /**
+   * @return 与十六进制的MD5是否一致，expected为null时不比较并返回true
+   */
+  boolean matches(String expected) {
+    return expected == null || expected.equalsIgnoreCase(this.getMd5());
+  }
+
+  /**
+   * 单个请求上传的文件ETag为内容的MD5，分片上传的ETag等其他形式无法用于校验
+   *
+   * @return ETag中的十六进制MD5，不是MD5时返回null
+   */
+  static String md5FromETag(String etag) {
+    if (etag == null) {
+      return null;
+    }
+    String value = etag.startsWith("W/") ? etag.substring(2) : etag;
+    if (value.length() == 34 && value.charAt(0) == '"' && value.charAt(33) == '"') {
+      value = value.substring(1, 33);
+    }
+    if (value.length() != 32) {
+      return null;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.digit(value.charAt(i), 16) < 0) {
+        return null;
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return "md5=" + this.getMd5() + ", crc32c=" + Long.toHexString(this.crc32c);
+  }
+}
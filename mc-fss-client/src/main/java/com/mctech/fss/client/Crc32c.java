@@ -0,0 +1,94 @@
+package com.mctech.fss.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.zip.Checksum;
+
+/**
+ * CRC32C(Castagnoli)校验值。按查表法每次处理8个字节，Java 8中没有内置实现
+ */
+final class Crc32c implements Checksum {
+  private static final int POLYNOMIAL = 0x82F63B78;
+  private static final int[][] TABLES = new int[8][256];
+
+  /**
+   * Java 9及以上版本自带的实现，使用CPU指令计算，为null时使用查表实现
+   */
+  private static final MethodHandle JDK_CONSTRUCTOR = findJdkConstructor();
+
+  static {
+    for (int n = 0; n < 256; n++) {
+      int crc = n;
+      for (int k = 0; k < 8; k++) {
+        crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+      }
+      TABLES[0][n] = crc;
+    }
+    for (int n = 0; n < 256; n++) {
+      int crc = TABLES[0][n];
+      for (int t = 1; t < 8; t++) {
+        crc = TABLES[0][crc & 0xff] ^ (crc >>> 8);
+        TABLES[t][n] = crc;
+      }
+    }
+  }
+
+  private int crc = 0xFFFFFFFF;
+
+  /**
+   * @return 运行环境自带CRC32C时使用自带的实现，否则使用查表实现
+   */
+  static Checksum create() {
+    if (JDK_CONSTRUCTOR != null) {
+      try {
+        return (Checksum) JDK_CONSTRUCTOR.invoke();
+      } catch (Throwable ignored) {
+        // 使用查表实现
+      }
+    }
+    return new Crc32c();
+  }
+
+  private static MethodHandle findJdkConstructor() {
+    try {
+      Class<?> type = Class.forName("java.util.zip.CRC32C");
+      return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void update(int b) {
+    this.crc = (this.crc >>> 8) ^ TABLES[0][(this.crc ^ b) & 0xff];
+  }
+
+  @Override
+  public void update(byte[] b, int off, int len) {
+    int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+    int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+    int c = this.crc;
+    while (len >= 8) {
+      c ^= (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+      c = t7[c & 0xff] ^ t6[(c >>> 8) & 0xff] ^ t5[(c >>> 16) & 0xff] ^ t4[c >>> 24]
+          ^ t3[b[off + 4] & 0xff] ^ t2[b[off + 5] & 0xff] ^ t1[b[off + 6] & 0xff] ^ t0[b[off + 7] & 0xff];
+      off += 8;
+      len -= 8;
+    }
+    while (len-- > 0) {
+      c = (c >>> 8) ^ t0[(c ^ b[off++]) & 0xff];
+    }
+    this.crc = c;
+  }
+
+  @Override
+  public long getValue() {
+    return ~this.crc & 0xFFFFFFFFL;
+  }
+
+  @Override
+  public void reset() {
+    this.crc = 0xFFFFFFFF;
+  }
+}
@@ -0,0 +1,144 @@
+package com.mctech.fss.client;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.mctech.fss.client.exception.AccessDeniedException;
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import com.mctech.fss.client.exception.NoSuchBucketException;
+import com.mctech.fss.client.exception.NoSuchKeyException;
+import com.mctech.fss.client.exception.SignatureDoesNotMatchException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 解析服务端返回的错误信息。支持xml及json格式，其他内容按状态行生成错误信息。
+ * 最多读取{@link #MAX_BODY_SIZE}字节
+ */
+final class ErrorParser {
+  private static final Logger LOGGER = Logger.getLogger(ErrorParser.class);
+
+  static final int MAX_BODY_SIZE = 64 * 1024;
+
+  private static final String PROP_CODE = "Code";
+  private static final String PROP_MESSAGE = "Message";
+
+  private ErrorParser() {
+  }
+
+  static FssClientError parse(HttpResponse response) {
+    Map<String, String> map = new HashMap<>();
+    HttpEntity entity = response.getEntity();
+    if (entity != null) {
+      try {
+        byte[] body = readBody(entity);
+        int start = firstNonWhitespace(body);
+        if (start < body.length && body[start] == '<') {
+          map.putAll(XmlParser.readChildren(new ByteArrayInputStream(body)));
+        } else if (start < body.length && body[start] == '{') {
+          map.putAll(parseJson(body));
+        }
+      } catch (Exception e) {
+        LOGGER.debug("无法解析返回的错误信息: " + response.getStatusLine(), e);
+      }
+    }
+    if (map.get(PROP_MESSAGE) == null) {
+      map.put(PROP_MESSAGE, response.getStatusLine().toString());
+    }
+    return new FssClientError(map);
+  }
+
+  /**
+   * 按错误码生成对应类型的异常
+   */
+  static MCTechFssRequestException toException(FssClientError error, int statusCode) {
+    String code = error.getCode();
+    String message = error.getMessage();
+    if (code == null) {
+      // HEAD请求的错误返回没有内容
+      return statusCode == HttpStatus.SC_NOT_FOUND
+          ? new NoSuchKeyException(message, error, statusCode)
+          : new MCTechFssRequestException(message, error, statusCode);
+    }
+    switch (code) {
+      case "NoSuchKey":
+        return new NoSuchKeyException(message, error, statusCode);
+      case "NoSuchBucket":
+        return new NoSuchBucketException(message, error, statusCode);
+      case "AccessDenied":
+        return new AccessDeniedException(message, error, statusCode);
+      case "SignatureDoesNotMatch":
+        return new SignatureDoesNotMatchException(message, error, statusCode);
+      default:
+        return new MCTechFssRequestException(message, error, statusCode);
+    }
+  }
+
+  private static byte[] readBody(HttpEntity entity) throws IOException {
+    long length = entity.getContentLength();
+    byte[] buffer = new byte[(int) (length >= 0 ? Math.min(length, MAX_BODY_SIZE) : 4096)];
+    int size = 0;
+    try (InputStream in = entity.getContent()) {
+      if (in == null) {
+        return new byte[0];
+      }
+      while (size < MAX_BODY_SIZE) {
+        if (size == buffer.length) {
+          byte[] larger = new byte[Math.min(buffer.length * 2, MAX_BODY_SIZE)];
+          System.arraycopy(buffer, 0, larger, 0, size);
+          buffer = larger;
+        }
+        int read = in.read(buffer, size, buffer.length - size);
+        if (read < 0) {
+          break;
+        }
+        size += read;
+      }
+    }
+    if (size == buffer.length) {
+      return buffer;
+    }
+    byte[] body = new byte[size];
+    System.arraycopy(buffer, 0, body, 0, size);
+    return body;
+  }
+
+  private static int firstNonWhitespace(byte[] body) {
+    int i = 0;
+    // 跳过UTF-8的BOM
+    if (body.length >= 3 && (body[0] & 0xff) == 0xef && (body[1] & 0xff) == 0xbb && (body[2] & 0xff) == 0xbf) {
+      i = 3;
+    }
+    while (i < body.length && Character.isWhitespace(body[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private static Map<String, String> parseJson(byte[] body) {
+    JSONObject json = JSON.parseObject(new String(body, StandardCharsets.UTF_8));
+    Map<String, String> map = new HashMap<>();
+    for (Map.Entry<String, Object> entry : json.entrySet()) {
+      if (entry.getValue() == null) {
+        continue;
+      }
+      String name = entry.getKey();
+      // json中的名称通常为小写开头，统一为与xml相同的名称
+      if (name.equalsIgnoreCase(PROP_CODE)) {
+        name = PROP_CODE;
+      } else if (name.equalsIgnoreCase(PROP_MESSAGE)) {
+        name = PROP_MESSAGE;
+      }
+      map.put(name, entry.getValue().toString());
+    }
+    return map;
+  }
+}
@@ -0,0 +1,66 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避并加入随机抖动的重试策略。网络异常、超时以及服务端返回5xx或429时重试，
+ * 第n次重试前等待[d/2, d)之间的随机时间，d = min(baseDelayMillis * 2^(n-1), maxDelayMillis)
+ */
+@Getter
+@Setter
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  /**
+   * 最多重试次数
+   */
+  private int maxRetries = 3;
+
+  /**
+   * 第一次重试前的等待时间(毫秒)
+   */
+  private long baseDelayMillis = 100;
+
+  /**
+   * 单次等待时间的上限(毫秒)
+   */
+  private long maxDelayMillis = 5000;
+
+  public ExponentialBackoffRetryPolicy() {
+  }
+
+  public ExponentialBackoffRetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+    this.maxRetries = maxRetries;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+  }
+
+  @Override
+  public long retryDelay(FssOperation method, int attempt, Throwable error) {
+    if (attempt > this.maxRetries || !this.isRetryable(error)) {
+      return -1;
+    }
+    long delay = Math.min(this.maxDelayMillis, this.baseDelayMillis << Math.min(attempt - 1, 30));
+    if (delay <= 1) {
+      return Math.max(0, delay);
+    }
+    long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(delay - half);
+  }
+
+  /**
+   * @return 该异常是否为可以通过重试恢复的临时错误
+   */
+  protected boolean isRetryable(Throwable error) {
+    if (error instanceof MCTechFssRequestException) {
+      int statusCode = ((MCTechFssRequestException) error).getStatusCode();
+      return statusCode >= 500 || statusCode == SC_TOO_MANY_REQUESTS;
+    }
+    return error instanceof IOException;
+  }
+}
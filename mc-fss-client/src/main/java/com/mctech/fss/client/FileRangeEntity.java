@@ -0,0 +1,114 @@
+package com.mctech.fss.client;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件中指定范围的内容。长度确定且可重复发送，请求失败后可以直接重试
+ */
+class FileRangeEntity extends AbstractHttpEntity {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final long offset;
+  private final long length;
+
+  FileRangeEntity(Path file, long offset, long length) {
+    this.file = file;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.length;
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ);
+    channel.position(this.offset);
+    return new RangeInputStream(Channels.newInputStream(channel), this.length);
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      long position = this.offset;
+      long remaining = this.length;
+      while (remaining > 0) {
+        // 按Buffer调用，避免在Java 8上运行时找不到ByteBuffer中的协变返回方法
+        ((Buffer) buffer).clear();
+        if (remaining < buffer.capacity()) {
+          ((Buffer) buffer).limit((int) remaining);
+        }
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new IOException("文件长度小于预期: " + this.file);
+        }
+        out.write(buffer.array(), 0, read);
+        position += read;
+        remaining -= read;
+      }
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  private static final class RangeInputStream extends InputStream {
+    private final InputStream in;
+    private long remaining;
+
+    private RangeInputStream(InputStream in, long remaining) {
+      this.in = in;
+      this.remaining = remaining;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (this.remaining <= 0) {
+        return -1;
+      }
+      int b = this.in.read();
+      if (b >= 0) {
+        this.remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (this.remaining <= 0) {
+        return -1;
+      }
+      int read = this.in.read(b, off, (int) Math.min(len, this.remaining));
+      if (read > 0) {
+        this.remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+}
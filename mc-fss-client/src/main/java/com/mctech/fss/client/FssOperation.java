@@ -4,5 +4,6 @@ public enum FssOperation {
   HEAD,
   GET,
   PUT,
+  POST,
   DELETE
 }
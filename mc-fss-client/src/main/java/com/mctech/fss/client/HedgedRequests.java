@@ -0,0 +1,115 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲请求：GET、HEAD请求在一定时间内没有返回时再发出一个相同的请求，使用先成功返回的结果，
+ * 取消另一个请求。用于降低偶发慢请求造成的长尾耗时
+ */
+class HedgedRequests {
+  private static final int WINDOW_SIZE = 256;
+
+  private final MCFssClient client;
+  private final LatencyWindow latencies = new LatencyWindow(WINDOW_SIZE);
+
+  HedgedRequests(MCFssClient client) {
+    this.client = client;
+  }
+
+  static boolean isHedgeable(SignDataOption option) {
+    return option.getMethod() == FssOperation.GET || option.getMethod() == FssOperation.HEAD;
+  }
+
+  @SneakyThrows
+  RequestResult execute(SignDataOption option, HttpRequestBase request) {
+    long delay = this.client.getConfig().getHedgeDelayMillis();
+    if (delay <= 0) {
+      delay = this.latencies.p95();
+    }
+    if (delay <= 0) {
+      // 还没有足够的耗时样本
+      return this.timed(option, request);
+    }
+
+    // 必须在第一个请求发出前复制，发出后请求头会被签名信息修改
+    HttpRequestBase hedge = copyOf(request);
+    ExecutorService executor = this.client.getTransferExecutor();
+    CompletionService<RequestResult> completion = new ExecutorCompletionService<>(executor);
+    List<HttpRequestBase> requests = new ArrayList<>(2);
+    List<Future<RequestResult>> futures = new ArrayList<>(2);
+    requests.add(request);
+    futures.add(completion.submit(() -> this.timed(option, request)));
+
+    Future<RequestResult> done = completion.poll(delay, TimeUnit.MILLISECONDS);
+    if (done == null) {
+      requests.add(hedge);
+      futures.add(completion.submit(() -> this.timed(option, hedge)));
+    }
+
+    Throwable failure = null;
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        Future<RequestResult> future = done != null ? done : completion.take();
+        done = null;
+        try {
+          RequestResult result = future.get();
+          this.cancelOthers(requests, futures, future);
+          return result;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      this.cancelOthers(requests, futures, null);
+      throw e;
+    }
+    throw failure;
+  }
+
+  private RequestResult timed(SignDataOption option, HttpRequestBase request) {
+    long start = System.nanoTime();
+    RequestResult result = this.client.executeWithRetry(option, request);
+    this.latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return result;
+  }
+
+  private void cancelOthers(List<HttpRequestBase> requests, List<Future<RequestResult>> futures,
+                            Future<RequestResult> winner) {
+    for (int i = 0; i < futures.size(); i++) {
+      Future<RequestResult> future = futures.get(i);
+      if (future == winner) {
+        continue;
+      }
+      requests.get(i).abort();
+      // 被取消的请求可能已经返回，需要关闭其结果以释放连接
+      this.client.getTransferExecutor().execute(() -> {
+        try {
+          future.get().close();
+        } catch (Exception ignored) {
+          // 请求已被取消
+        }
+      });
+    }
+  }
+
+  private static HttpRequestBase copyOf(HttpRequestBase request) {
+    HttpRequestBase copy = request instanceof HttpHead ? new HttpHead() : new HttpGet();
+    copy.setHeaders(request.getAllHeaders());
+    copy.setConfig(request.getConfig());
+    return copy;
+  }
+}
@@ -1,7 +1,7 @@
 package com.mctech.fss.client;
 
 public class HttpConsts {
-//  public final static String ContentMd5 = "Content-MD5";
+  public final static String CONTENT_MD5 = "Content-MD5";
 
   public final static String EXPIRES = "Expires";
 
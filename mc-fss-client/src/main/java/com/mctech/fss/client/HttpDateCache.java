@@ -0,0 +1,50 @@
+package com.mctech.fss.client;
+
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+
+/**
+ * 按秒缓存的HTTP日期。Date头精确到秒，同一秒内的请求共用同一个格式化结果
+ */
+final class HttpDateCache {
+  private static volatile Entry current = new Entry(Long.MIN_VALUE, null, null);
+
+  private HttpDateCache() {
+  }
+
+  static Entry now() {
+    long second = System.currentTimeMillis() / 1000;
+    Entry entry = current;
+    if (entry.second != second) {
+      // 多个线程同时进入时各自格式化一次，结果相同，不需要加锁
+      Date date = new Date(second * 1000);
+      entry = new Entry(second, date, DateUtils.formatDate(date));
+      current = entry;
+    }
+    return entry;
+  }
+
+  static final class Entry {
+    private final long second;
+    private final Date date;
+    private final String formatted;
+
+    private Entry(long second, Date date, String formatted) {
+      this.second = second;
+      this.date = date;
+      this.formatted = formatted;
+    }
+
+    /**
+     * 不能修改返回的Date
+     */
+    Date getDate() {
+      return this.date;
+    }
+
+    String getFormatted() {
+      return this.formatted;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.mctech.fss.client;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.io.IOException;
+
+/**
+ * 发送已签名的http请求。默认直接使用Apache HttpClient，设置了传输层或启用虚拟线程时通过{@link TransportExecutor}发送
+ */
+interface HttpExecutor {
+  CloseableHttpResponse execute(HttpRequestBase request) throws IOException;
+
+  default void close() throws IOException {
+  }
+}
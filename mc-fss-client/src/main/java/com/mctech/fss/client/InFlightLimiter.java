@@ -0,0 +1,67 @@
+package com.mctech.fss.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限制同时执行的任务数量，超出限制的任务排队，不阻塞提交任务的线程
+ */
+class InFlightLimiter {
+  private final Semaphore permits;
+  private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+  /**
+   * 正在执行及等待再次执行{@link #drain()}的次数，不为0时其他线程只增加计数，由正在执行的线程继续处理
+   */
+  private final AtomicInteger wip = new AtomicInteger();
+
+  InFlightLimiter(int maxInFlight) {
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight必须为大于0的整数");
+    }
+    this.permits = new Semaphore(maxInFlight);
+  }
+
+  /**
+   * 提交任务。任务不能抛出异常，执行完成后必须调用{@link #release()}
+   */
+  void submit(Runnable task) {
+    this.pending.add(task);
+    this.drain();
+  }
+
+  void release() {
+    this.permits.release();
+    this.drain();
+  }
+
+  /**
+   * @return 排队等待执行的任务数
+   */
+  int getPendingCount() {
+    return this.pending.size();
+  }
+
+  /**
+   * 同一时间只有一个线程执行任务。任务中同步调用{@link #release()}(如请求立即失败)时只记录需要再检查一次，
+   * 由外层循环继续执行，不会递归调用导致栈溢出，也不会让I/O线程陷入层层嵌套的回调
+   */
+  private void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (!this.pending.isEmpty() && this.permits.tryAcquire()) {
+        Runnable task = this.pending.poll();
+        if (task == null) {
+          this.permits.release();
+          continue;
+        }
+        task.run();
+      }
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+}
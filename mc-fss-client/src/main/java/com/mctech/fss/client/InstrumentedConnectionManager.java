@@ -0,0 +1,99 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 记录从连接池获取连接的等待时间及已借出的连接数，用于判断连接池大小是否合适、连接是否泄漏。
+ * 其他操作直接交给被包装的连接池
+ */
+class InstrumentedConnectionManager implements HttpClientConnectionManager {
+  private final HttpClientConnectionManager delegate;
+  /**
+   * 未设置时为null
+   */
+  private final FssMetricsListener listener;
+  private final AtomicInteger leased = new AtomicInteger();
+
+  InstrumentedConnectionManager(HttpClientConnectionManager delegate, FssMetricsListener listener) {
+    this.delegate = delegate;
+    this.listener = listener;
+  }
+
+  /**
+   * @return 已借出尚未归还的连接数
+   */
+  int getLeasedCount() {
+    return this.leased.get();
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    ConnectionRequest request = this.delegate.requestConnection(route, state);
+    return new ConnectionRequest() {
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit tunit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        long start = System.nanoTime();
+        HttpClientConnection connection = request.get(timeout, tunit);
+        leased.incrementAndGet();
+        if (listener != null) {
+          listener.connectionLeased(System.nanoTime() - start);
+        }
+        return connection;
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  @Override
+  public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+    this.leased.decrementAndGet();
+    this.delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+  }
+
+  @Override
+  public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout,
+                      HttpContext context) throws IOException {
+    this.delegate.connect(conn, route, connectTimeout, context);
+  }
+
+  @Override
+  public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+    this.delegate.upgrade(conn, route, context);
+  }
+
+  @Override
+  public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+    this.delegate.routeComplete(conn, route, context);
+  }
+
+  @Override
+  public void closeIdleConnections(long idletime, TimeUnit tunit) {
+    this.delegate.closeIdleConnections(idletime, tunit);
+  }
+
+  @Override
+  public void closeExpiredConnections() {
+    this.delegate.closeExpiredConnections();
+  }
+
+  @Override
+  public void shutdown() {
+    this.delegate.shutdown();
+  }
+}
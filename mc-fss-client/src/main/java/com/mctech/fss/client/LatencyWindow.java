@@ -0,0 +1,47 @@
+package com.mctech.fss.client;
+
+import java.util.Arrays;
+
+/**
+ * 记录最近若干次请求的耗时，用于估算耗时分位数
+ */
+class LatencyWindow {
+  private static final int MIN_SAMPLES = 20;
+  private static final int RECALCULATE_INTERVAL = 16;
+
+  private final long[] samples;
+  private int count;
+  private int next;
+  private long cachedPercentile = -1;
+  private int changes;
+
+  LatencyWindow(int capacity) {
+    this.samples = new long[capacity];
+  }
+
+  synchronized void record(long millis) {
+    this.samples[this.next] = millis;
+    this.next = (this.next + 1) % this.samples.length;
+    if (this.count < this.samples.length) {
+      this.count++;
+    }
+    this.changes++;
+  }
+
+  /**
+   * @return 最近请求耗时的p95(毫秒)，样本不足时返回-1
+   */
+  synchronized long p95() {
+    if (this.count < MIN_SAMPLES) {
+      return -1;
+    }
+    // 每记录一定数量的样本后才重新排序计算
+    if (this.cachedPercentile < 0 || this.changes >= RECALCULATE_INTERVAL) {
+      long[] sorted = Arrays.copyOf(this.samples, this.count);
+      Arrays.sort(sorted);
+      this.cachedPercentile = sorted[(int) Math.ceil(this.count * 0.95) - 1];
+      this.changes = 0;
+    }
+    return this.cachedPercentile;
+  }
+}
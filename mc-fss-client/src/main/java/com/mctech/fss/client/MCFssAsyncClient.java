@@ -0,0 +1,290 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.*;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.entity.NFileEntity;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于NIO的异步客户端。所有方法都不会阻塞调用线程，少量I/O线程即可同时处理大量请求。
+ * 同时发出的请求数受{@link MCFssClientConfig#getMaxInFlightRequests()}限制，超出的请求排队等待
+ */
+@Getter
+public class MCFssAsyncClient implements Closeable {
+  private final MCFssClientConfig config;
+  private final URI defaultEndpoint;
+  private final URI publicEndPoint;
+
+  private final CloseableHttpAsyncClient httpClient;
+
+  @Getter(AccessLevel.NONE)
+  private final RequestSigner requestSigner;
+
+  @Getter(AccessLevel.NONE)
+  private final InFlightLimiter limiter;
+
+  public MCFssAsyncClient(MCFssClientConfig config) {
+    this.config = config;
+    this.requestSigner = new RequestSigner(config);
+    this.publicEndPoint = this.requestSigner.getPublicEndPoint();
+    this.defaultEndpoint = this.requestSigner.getDefaultEndpoint();
+    this.limiter = new InFlightLimiter(config.getMaxInFlightRequests());
+    this.httpClient = createHttpClient(config);
+    this.httpClient.start();
+  }
+
+  /**
+   * 关闭客户端，停止I/O线程并释放所有连接
+   */
+  @Override
+  public void close() throws IOException {
+    this.httpClient.close();
+  }
+
+  @SneakyThrows
+  private static CloseableHttpAsyncClient createHttpClient(MCFssClientConfig config) {
+    IOReactorConfig.Builder reactorConfig = IOReactorConfig.custom()
+        .setIoThreadCount(config.getIoThreadCount())
+        .setConnectTimeout(config.getConnectTimeoutMillis())
+        .setSoTimeout(config.getSocketTimeoutMillis())
+        .setTcpNoDelay(config.isTcpNoDelay())
+        .setSoKeepAlive(true);
+    if (config.getSocketSendBufferSize() > 0) {
+      reactorConfig.setSndBufSize(config.getSocketSendBufferSize());
+    }
+    if (config.getSocketReceiveBufferSize() > 0) {
+      reactorConfig.setRcvBufSize(config.getSocketReceiveBufferSize());
+    }
+
+    PoolingNHttpClientConnectionManager connectionManager =
+        new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig.build()));
+    connectionManager.setMaxTotal(config.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setBufferSize(config.getConnectionBufferSize())
+        .build());
+
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(config.getConnectTimeoutMillis())
+        .setSocketTimeout(config.getSocketTimeoutMillis())
+        .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+        .build();
+
+    return HttpAsyncClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(MCFssClient.keepAliveStrategy(config))
+        .build();
+  }
+
+  /**
+   * 下载文件。返回结果的内容已全部读入内存
+   */
+  public CompletableFuture<RequestResult> get(String key) {
+    SignDataOption option = new SignDataOption();
+    option.setMethod(FssOperation.GET);
+    option.setKey(key);
+    return this.sendRequest(option, new HttpGet());
+  }
+
+  /**
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。可为null
+   * @param content     要上传的文件内容
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public CompletableFuture<RequestResult> put(String key, String fileName, byte[] content,
+                                              Map<String, String> metadata, String contentType) {
+    NByteArrayEntity entity = new NByteArrayEntity(content);
+    entity.setContentType(contentType);
+    return this.put(key, fileName, entity, metadata, contentType);
+  }
+
+  /**
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。为null时使用file的名称
+   * @param file        要上传的文件
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public CompletableFuture<RequestResult> put(String key, String fileName, File file,
+                                              Map<String, String> metadata, String contentType) {
+    NFileEntity entity = new NFileEntity(file,
+        contentType != null ? ContentType.parse(contentType) : null);
+    return this.put(key, fileName != null ? fileName : file.getName(), entity, metadata, contentType);
+  }
+
+  private CompletableFuture<RequestResult> put(String key, String fileName, HttpEntity entity,
+                                               Map<String, String> metadata, String contentType) {
+    SignDataOption option = new SignDataOption();
+    option.setMethod(FssOperation.PUT);
+    option.setKey(key);
+    option.setContentType(contentType);
+    option.setMetadata(RequestSigner.toFssMetadata(metadata));
+
+    HttpPut httpPut = new HttpPut();
+    httpPut.setEntity(entity);
+    httpPut.setHeader(HttpConsts.CONTENT_DISPOSITION,
+        RequestSigner.contentDisposition(key, fileName));
+    return this.sendRequest(option, httpPut);
+  }
+
+  public CompletableFuture<Void> delete(String key) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(key);
+    option.setMethod(FssOperation.DELETE);
+    HttpDelete delete = new HttpDelete();
+    delete.setHeader(HttpHeaders.CONTENT_LENGTH, "0");
+    return this.sendRequest(option, delete).thenAccept(MCFssAsyncClient::closeQuietly);
+  }
+
+  public CompletableFuture<Void> copy(String toKey, String fromKey) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(toKey);
+    option.setMethod(FssOperation.PUT);
+    Map<String, String> meta = new HashMap<>();
+    meta.put(HttpConsts.FSS_COPY_FILE_HEADER, fromKey);
+    option.setMetadata(meta);
+    return this.sendRequest(option, new HttpPut()).thenAccept(MCFssAsyncClient::closeQuietly);
+  }
+
+  /**
+   * @return 当前客户端使用的签名工具，可以在不发出请求的情况下生成签名
+   */
+  public Signer getSigner() {
+    return this.requestSigner.getSigner();
+  }
+
+  /**
+   * @return 签名地址缓存，可用于查看命中情况。未启用时为null
+   */
+  public SignedUrlCache getSignedUrlCache() {
+    return this.requestSigner.getSignedUrlCache();
+  }
+
+  public String generateObjectUrl(String key) {
+    return this.requestSigner.generateObjectUrl(key);
+  }
+
+  public String getSignatureUrl(String key, SignatureOption option) {
+    return this.requestSigner.getSignatureUrl(key, option);
+  }
+
+  /**
+   * 使用相同的签名选项批量生成签名地址，适合一次生成大量缩略图等地址的场景。
+   * 配合{@link SignatureOption#setExpiresWindow(Long)}可以让同一时间窗口内生成的地址完全相同，便于浏览器及CDN缓存
+   *
+   * @param keys   文件key
+   * @param option 签名选项，必须设置expires
+   * @return key与签名地址的对应关系，顺序与keys一致
+   */
+  public Map<String, String> getSignatureUrls(Collection<String> keys, SignatureOption option) {
+    return this.requestSigner.getSignatureUrls(keys, option);
+  }
+
+  public CompletableFuture<ObjectMeta> head(String key) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(key);
+    option.setMethod(FssOperation.HEAD);
+    return this.sendRequest(option, new HttpHead()).thenApply(RequestResult::toObjectMeta);
+  }
+
+  public CompletableFuture<Map<String, String>> getObjectMeta(String key) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(key);
+    option.setMethod(FssOperation.HEAD);
+    return this.sendRequest(option, new HttpHead()).thenApply(RequestResult::getHeaders);
+  }
+
+  /**
+   * @return 排队等待发出的请求数
+   */
+  public int getPendingRequestCount() {
+    return this.limiter.getPendingCount();
+  }
+
+  /**
+   * 请求在真正发出时才签名，避免排队时间过长导致签名中的时间过期
+   */
+  private CompletableFuture<RequestResult> sendRequest(SignDataOption option, HttpRequestBase request) {
+    CompletableFuture<RequestResult> future = new CompletableFuture<>();
+    FssMetricsListener listener = this.config.getMetricsListener();
+    this.limiter.submit(() -> {
+      try {
+        SignedData signedData = this.requestSigner.generateSignedData(option);
+        RequestSigner.applyTo(signedData, request);
+        long start = listener != null ? System.nanoTime() : 0;
+        this.httpClient.execute(request, new FutureCallback<HttpResponse>() {
+          @Override
+          public void completed(HttpResponse response) {
+            limiter.release();
+            Exception error = null;
+            try {
+              future.complete(new RequestResult(response));
+            } catch (Exception e) {
+              error = e;
+              future.completeExceptionally(e);
+            }
+            if (listener != null) {
+              RequestMetrics.requestCompleted(listener, option.getMethod(), request, response, error, start);
+            }
+          }
+
+          @Override
+          public void failed(Exception ex) {
+            limiter.release();
+            if (listener != null) {
+              RequestMetrics.requestCompleted(listener, option.getMethod(), request, null, ex, start);
+            }
+            future.completeExceptionally(ex);
+          }
+
+          @Override
+          public void cancelled() {
+            limiter.release();
+            future.cancel(false);
+          }
+        });
+      } catch (Exception e) {
+        this.limiter.release();
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  private static void closeQuietly(RequestResult result) {
+    try {
+      result.close();
+    } catch (IOException ignored) {
+      // 内容已在内存中，关闭不会失败
+    }
+  }
+}
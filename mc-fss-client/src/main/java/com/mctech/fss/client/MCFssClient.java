@@ -1,55 +1,362 @@
 package com.mctech.fss.client;
 
+import com.mctech.fss.client.exception.ChecksumMismatchException;
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import com.mctech.fss.client.transport.ApacheHttpTransport;
+import com.mctech.fss.client.transport.FssTransport;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.SneakyThrows;
-import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
-import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicHeader;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.log4j.Logger;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.net.URLEncoder;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Getter
-public class MCFssClient {
-  private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+public class MCFssClient implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(MCFssClient.class);
+
+  private static final int LIST_PAGE_SIZE = 1000;
 
   private final MCFssClientConfig config;
   private final URI defaultEndpoint;
   private final URI publicEndPoint;
 
+  /**
+   * 默认的HttpClient。设置了{@link MCFssClientConfig#getTransport()}或启用虚拟线程时为null
+   */
   private final CloseableHttpClient httpClient;
 
-  @SneakyThrows
+  /**
+   * 默认HttpClient使用的连接池，为null的情况同{@link #httpClient}
+   */
+  @Getter(AccessLevel.PACKAGE)
+  private final InstrumentedConnectionManager connectionManager;
+
+  /**
+   * 发送请求的传输层
+   */
+  private final FssTransport transport;
+
+  /**
+   * 实际发送请求的执行器。使用默认的HttpClient时直接调用，不经过传输层的类型转换
+   */
+  @Getter(AccessLevel.NONE)
+  private final HttpExecutor httpExecutor;
+
+  @Getter(AccessLevel.NONE)
+  private final RequestSigner requestSigner;
+
+  /**
+   * 未启用对冲请求时为null
+   */
+  @Getter(AccessLevel.NONE)
+  private final HedgedRequests hedgedRequests;
+
+  /**
+   * 文件meta信息缓存，可用于查看命中情况。未启用时为null
+   */
+  private final ObjectMetaCache objectMetaCache;
+
+  /**
+   * 文件内容的本地缓存，可用于查看命中情况。未启用时为null
+   */
+  private final ContentCache contentCache;
+
+  /**
+   * 按{@link MCFssClientConfig#getMaxRequestsPerSecond()}等配置限流，可用于查看当前并发数等状态。未启用时为null
+   */
+  private final RequestLimiter requestLimiter;
+
+  /**
+   * 未启用泄漏检测时为null
+   */
+  private final ResultLeakDetector leakDetector;
+
+  /**
+   * 分片上传等并行操作使用的线程池，第一次使用时创建
+   */
+  @Getter(AccessLevel.NONE)
+  private ExecutorService transferExecutor;
+
   public MCFssClient(MCFssClientConfig config) {
     this.config = config;
-    this.publicEndPoint = new URI(config.getPublicEndPoint());
-    this.defaultEndpoint = config.isInternal()
-        ? new URI(config.getPrivateEndPoint())
-        : this.publicEndPoint;
-    this.httpClient = HttpClients.createDefault();
+    this.requestSigner = new RequestSigner(config);
+    this.publicEndPoint = this.requestSigner.getPublicEndPoint();
+    this.defaultEndpoint = this.requestSigner.getDefaultEndpoint();
+    FssTransport virtualThreadTransport = config.getTransport() == null && config.isVirtualThreads()
+        ? newVirtualThreadTransport(config) : null;
+    if (config.getTransport() != null) {
+      this.connectionManager = null;
+      this.httpClient = null;
+      this.transport = config.getTransport();
+      this.httpExecutor = new TransportExecutor(this.transport, false);
+    } else if (virtualThreadTransport != null) {
+      this.connectionManager = null;
+      this.httpClient = null;
+      this.transport = virtualThreadTransport;
+      this.httpExecutor = new TransportExecutor(this.transport, true);
+    } else {
+      this.connectionManager = createConnectionManager(config);
+      this.httpClient = createHttpClient(config, this.connectionManager);
+      this.transport = new ApacheHttpTransport(this.httpClient);
+      this.httpExecutor = this.httpClient::execute;
+    }
+    this.hedgedRequests = config.isHedgedRequests() ? new HedgedRequests(this) : null;
+    this.objectMetaCache = config.getObjectMetaCacheSize() > 0
+        ? new ObjectMetaCache(config.getObjectMetaCacheSize(), config.getObjectMetaCacheTtlMillis())
+        : null;
+    this.contentCache = config.getContentCacheDirectory() != null
+        ? new ContentCache(Paths.get(config.getContentCacheDirectory()), config.getContentCacheMaxBytes())
+        : null;
+    this.leakDetector = config.isLeakDetectionEnabled() ? new ResultLeakDetector() : null;
+    this.requestLimiter = RequestLimiter.isEnabled(config) ? new RequestLimiter(config) : null;
+  }
+
+  /**
+   * 关闭客户端并释放连接池中的所有连接。关闭后不能再使用该客户端
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.leakDetector != null) {
+      for (Throwable allocation : this.leakDetector.unreleased()) {
+        LOGGER.warn("客户端关闭时RequestResult仍未关闭", allocation);
+      }
+    }
+    synchronized (this) {
+      if (this.transferExecutor != null) {
+        this.transferExecutor.shutdownNow();
+      }
+    }
+    this.httpExecutor.close();
+    if (this.httpClient != null) {
+      this.httpClient.close();
+    }
   }
 
+  private static FssTransport newVirtualThreadTransport(MCFssClientConfig config) {
+    FssTransport transport = VirtualThreads.newTransport(config);
+    if (transport == null) {
+      LOGGER.warn("当前Java版本不支持虚拟线程，使用Apache HttpClient发送请求");
+    }
+    return transport;
+  }
+
+  synchronized ExecutorService getTransferExecutor() {
+    if (this.transferExecutor == null && this.config.isVirtualThreads()) {
+      this.transferExecutor = VirtualThreads.newExecutor("mc-fss-transfer-");
+      if (this.transferExecutor == null) {
+        LOGGER.warn("当前Java版本不支持虚拟线程，分片上传等并行操作使用普通线程");
+      }
+    }
+    if (this.transferExecutor == null) {
+      AtomicInteger counter = new AtomicInteger();
+      this.transferExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "mc-fss-transfer-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return this.transferExecutor;
+  }
+
+  private static InstrumentedConnectionManager createConnectionManager(MCFssClientConfig config) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(config.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    connectionManager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+
+    SocketConfig.Builder socketConfig = SocketConfig.custom()
+        .setTcpNoDelay(config.isTcpNoDelay())
+        .setSoKeepAlive(true)
+        .setSoTimeout(config.getSocketTimeoutMillis());
+    if (config.getSocketSendBufferSize() > 0) {
+      socketConfig.setSndBufSize(config.getSocketSendBufferSize());
+    }
+    if (config.getSocketReceiveBufferSize() > 0) {
+      socketConfig.setRcvBufSize(config.getSocketReceiveBufferSize());
+    }
+    connectionManager.setDefaultSocketConfig(socketConfig.build());
+    connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setBufferSize(config.getConnectionBufferSize())
+        .build());
+    return new InstrumentedConnectionManager(connectionManager, config.getMetricsListener());
+  }
+
+  private static CloseableHttpClient createHttpClient(MCFssClientConfig config,
+                                                      HttpClientConnectionManager connectionManager) {
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(config.getConnectTimeoutMillis())
+        .setSocketTimeout(config.getSocketTimeoutMillis())
+        .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+        .build();
+
+    HttpClientBuilder builder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(keepAliveStrategy(config));
+    if (config.isEvictExpiredConnections()) {
+      builder.evictExpiredConnections();
+    }
+    if (config.getIdleConnectionTimeoutMillis() > 0) {
+      builder.evictIdleConnections(config.getIdleConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+    return builder.build();
+  }
+
+  static ConnectionKeepAliveStrategy keepAliveStrategy(MCFssClientConfig config) {
+    final long keepAliveMillis = config.getKeepAliveMillis();
+    return (response, context) -> {
+      // 优先使用服务端通过Keep-Alive头返回的时间
+      long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      if (duration > 0) {
+        return duration;
+      }
+      return keepAliveMillis > 0 ? keepAliveMillis : -1;
+    };
+  }
+
+  /**
+   * 下载文件。启用了{@link MCFssClientConfig#getContentCacheDirectory()}时先向服务端验证本地缓存的内容，
+   * 未修改时直接返回本地缓存的内容。启用了{@link MCFssClientConfig#isChecksumEnabled()}时读取内容的同时进行校验
+   */
   public RequestResult get(String key) {
     SignDataOption option = new SignDataOption();
     option.setMethod(FssOperation.GET);
     option.setKey(key);
-    SignedData signedData = this.generateSignedData(option);
-    return this.sendRequest(signedData, new HttpGet());
+    RequestResult result = this.contentCache == null
+        ? this.execute(option, new HttpGet()) : this.cachedGet(option);
+    if (this.config.isChecksumEnabled() && result.getStatusCode() == HttpStatus.SC_OK) {
+      result.verifyChecksum();
+    }
+    return result;
+  }
+
+  @SneakyThrows
+  private RequestResult cachedGet(SignDataOption option) {
+    ContentCache cache = this.contentCache;
+    String id = this.contentCacheId(option.getKey());
+    ContentCache.Entry entry = cache.get(id);
+    HttpGet get = new HttpGet();
+    if (entry != null) {
+      if (entry.getEtag() != null) {
+        get.setHeader(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+      }
+      if (entry.getLastModified() != null) {
+        get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+      }
+    }
+
+    RequestResult result = this.execute(option, get);
+    if (entry != null && result.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+      result.close();
+      RequestResult cached = cache.open(entry);
+      if (cached != null) {
+        cache.recordHit();
+        return cached;
+      }
+      // 缓存文件已被淘汰，重新完整下载
+      cache.invalidate(id);
+      return this.cachedGet(option);
+    }
+
+    cache.recordMiss();
+    if (!cache.isCacheable(result)) {
+      return result;
+    }
+    try (RequestResult ignored = result) {
+      entry = cache.store(id, result);
+    }
+    RequestResult cached = cache.open(entry);
+    return cached != null ? cached : this.execute(option, new HttpGet());
+  }
+
+  private String contentCacheId(String key) {
+    return this.config.getBucketName() + "/" + key;
+  }
+
+  /**
+   * 只下载文件中指定范围的内容
+   *
+   * @param key    文件key
+   * @param offset 起始位置
+   * @param length 下载的长度
+   * @return 成功时状态码为206
+   */
+  public RequestResult get(String key, long offset, long length) {
+    return this.get(key, offset, length, null, null);
+  }
+
+  /**
+   * @param ifMatch 文件的ETag不等于该值时服务端返回412。可为null
+   */
+  RequestResult get(String key, long offset, long length, RetryPolicy retryPolicy, String ifMatch) {
+    if (offset < 0 || length <= 0) {
+      throw new IllegalArgumentException("offset不能小于0，length必须为大于0的整数");
+    }
+    SignDataOption option = new SignDataOption();
+    option.setMethod(FssOperation.GET);
+    option.setKey(key);
+    option.setRetryPolicy(retryPolicy);
+    HttpGet get = new HttpGet();
+    get.setHeader(HttpHeaders.RANGE, "bytes=" + offset + "-" + (offset + length - 1));
+    if (ifMatch != null) {
+      get.setHeader(HttpHeaders.IF_MATCH, ifMatch);
+    }
+    return this.execute(option, get);
+  }
+
+  /**
+   * 把文件下载到本地。按{@link MCFssClientConfig#getDownloadPartSize()}分段后并行下载，
+   * 下载中断后再次下载到同一位置时只下载未完成的分段。下载完成前内容写入target所在目录的临时文件
+   *
+   * @param key    文件key
+   * @param target 保存的本地文件，已存在时覆盖
+   * @return 文件的meta信息
+   */
+  public ObjectMeta download(String key, Path target) {
+    return new RangeDownloader(this).download(key, target);
   }
 
   /**
@@ -61,20 +368,8 @@ public class MCFssClient {
    * @param length      上传的内容长度。可为null
    * @return -
    */
-  @SneakyThrows
   public RequestResult put(String key, String fileName, InputStream is,
                            Map<String, String> metadata, String contentType, Long length) {
-    Map<String, String> fssMetadata = new HashMap<>();
-    if (metadata != null) {
-      for (Map.Entry<String, String> entry : metadata.entrySet()) {
-        String fssKey = HttpConsts.FSS_META_HEADER_PREFIX + entry.getKey();
-        fssMetadata.put(fssKey, entry.getValue());
-      }
-    }
-
-    String rawName = fileName != null ?
-        new File(fileName).getName() : new File(key).getName();
-
     AbstractHttpEntity entity;
     if (length != null) {
       if (length <= 0) {
@@ -84,193 +379,527 @@ public class MCFssClient {
     } else {
       entity = new InputStreamEntity(is);
     }
-    entity.setContentType(contentType);
+    return this.put(key, fileName, entity, metadata, contentType);
+  }
 
+  /**
+   * 上传本地文件。自动设置准确的Content-Length，内容可重复读取，请求失败后可以安全重试
+   *
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。为null时使用file的名称
+   * @param file        要上传的文件
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public RequestResult put(String key, String fileName, File file,
+                           Map<String, String> metadata, String contentType) {
+    return this.put(key, fileName, file.toPath(), metadata, contentType);
+  }
+
+  /**
+   * 上传本地文件。自动设置准确的Content-Length，内容可重复读取，请求失败后可以安全重试
+   *
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。为null时使用file的名称
+   * @param file        要上传的文件
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  @SneakyThrows
+  public RequestResult put(String key, String fileName, Path file,
+                           Map<String, String> metadata, String contentType) {
+    String rawName = fileName != null ? fileName : file.getFileName().toString();
+    FileRangeEntity entity = new FileRangeEntity(file, 0, Files.size(file));
+    return this.put(key, rawName, entity, metadata, contentType);
+  }
+
+  /**
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。可为null
+   * @param content     要上传的文件内容
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public RequestResult put(String key, String fileName, byte[] content,
+                           Map<String, String> metadata, String contentType) {
+    return this.put(key, fileName, new ByteArrayEntity(content), metadata, contentType);
+  }
+
+  /**
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。可为null
+   * @param content     要上传的内容，为content中position到limit之间的部分。上传不改变content的position
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public RequestResult put(String key, String fileName, ByteBuffer content,
+                           Map<String, String> metadata, String contentType) {
+    return this.put(key, fileName, new ByteBufferEntity(content), metadata, contentType);
+  }
+
+  @SneakyThrows
+  private RequestResult put(String key, String fileName, AbstractHttpEntity entity,
+                            Map<String, String> metadata, String contentType) {
     SignDataOption option = new SignDataOption();
     option.setMethod(FssOperation.PUT);
     option.setKey(key);
     option.setContentType(contentType);
-    option.setMetadata(fssMetadata);
+    option.setMetadata(RequestSigner.toFssMetadata(metadata));
+
+    ContentChecksum checksum = null;
+    ChecksumEntity checksumEntity = null;
+    if (this.config.isChecksumEnabled()) {
+      if (entity instanceof ByteArrayEntity || entity instanceof ByteBufferEntity) {
+        // 内存中的内容可以提前计算，由服务端校验Content-MD5
+        checksum = ChecksumCalculator.of(entity);
+        option.setContentMd5(checksum.getMd5Base64());
+      } else {
+        entity = checksumEntity = new ChecksumEntity(entity);
+      }
+    }
+    entity.setContentType(contentType);
 
-    SignedData signedData = this.generateSignedData(option);
     HttpPut httpPut = new HttpPut();
     httpPut.setEntity(entity);
     httpPut.setHeader(HttpConsts.CONTENT_DISPOSITION,
-        "attachment;filename=" + URLEncoder.encode(rawName, "UTF-8"));
-    return this.sendRequest(signedData, httpPut);
+        RequestSigner.contentDisposition(key, fileName));
+    RequestResult result = this.execute(option, httpPut);
+    if (checksumEntity != null) {
+      checksum = checksumEntity.getChecksum();
+      verifyETag(result, checksum);
+    }
+    result.setContentChecksum(checksum);
+    return result;
+  }
+
+  /**
+   * 比较发送内容的MD5与服务端返回的ETag，ETag不是MD5时不比较
+   */
+  static void verifyETag(RequestResult result, ContentChecksum checksum) throws IOException {
+    String expected = ContentChecksum.md5FromETag(result.getResponseHeaders().getETag());
+    if (checksum != null && !checksum.matches(expected)) {
+      result.close();
+      throw new ChecksumMismatchException(expected, checksum.getMd5());
+    }
+  }
+
+  /**
+   * 上传本地文件。文件大小达到{@link MCFssClientConfig#getMultipartThreshold()}时切分为多个分片并行上传，
+   * 单个分片失败时只重试该分片，全部分片上传完成后才合并为完整文件；否则使用单个PUT请求上传
+   *
+   * @param key         文件存到服务器上的key
+   * @param fileName    文件原始名称，下载时使用。为null时使用file的名称
+   * @param file        要上传的文件
+   * @param metadata    文件附加的meta信息。可为null
+   * @param contentType 文件的content-type，下载的时候会用到。可为null
+   * @return -
+   */
+  public RequestResult upload(String key, String fileName, Path file,
+                              Map<String, String> metadata, String contentType) {
+    return this.upload(key, fileName, file, metadata, contentType, UnaryOperator.identity());
+  }
+
+  /**
+   * @param decorator 对每个请求发送的内容进行包装，如限制发送速度
+   */
+  @SneakyThrows
+  RequestResult upload(String key, String fileName, Path file, Map<String, String> metadata,
+                       String contentType, UnaryOperator<AbstractHttpEntity> decorator) {
+    long size = Files.size(file);
+    String rawName = fileName != null ? fileName : file.getFileName().toString();
+    if (size > 0 && size >= this.config.getMultipartThreshold()) {
+      return new MultipartUploader(this, decorator).upload(key, rawName, file, metadata, contentType);
+    }
+    return this.put(key, rawName, decorator.apply(new FileRangeEntity(file, 0, size)), metadata, contentType);
   }
 
   public void delete(String key) {
+    this.executeAndRelease(deleteOption(key), createDelete());
+  }
+
+  public void copy(String toKey, String fromKey) {
+    this.executeAndRelease(copyOption(toKey, fromKey), new HttpPut());
+  }
+
+  public List<BatchResult<Void>> deleteAll(Collection<String> keys) {
+    return this.deleteAll(keys, null);
+  }
+
+  /**
+   * 批量删除文件。按{@link MCFssClientConfig#getBatchParallelism()}并行发出请求，单个文件删除失败不影响其他文件
+   *
+   * @param keys     要删除的文件key
+   * @param listener 进度通知，可为null
+   * @return 每个key的删除结果，顺序与keys一致
+   */
+  public List<BatchResult<Void>> deleteAll(Collection<String> keys, BatchProgressListener listener) {
+    return this.runBatch(new ArrayList<>(keys), key -> {
+      this.executeAndRelease(deleteOption(key), createDelete());
+      return null;
+    }, listener);
+  }
+
+  public List<BatchResult<ObjectMeta>> headAll(Collection<String> keys) {
+    return this.headAll(keys, null);
+  }
+
+  /**
+   * 批量获取文件的meta信息。按{@link MCFssClientConfig#getBatchParallelism()}并行发出请求，单个文件失败不影响其他文件
+   *
+   * @param keys     文件key
+   * @param listener 进度通知，可为null
+   * @return 每个key的meta信息，顺序与keys一致
+   */
+  public List<BatchResult<ObjectMeta>> headAll(Collection<String> keys, BatchProgressListener listener) {
+    return this.runBatch(new ArrayList<>(keys), key -> {
+      return this.headObject(key);
+    }, listener);
+  }
+
+  public List<BatchResult<Void>> copyAll(Map<String, String> keys) {
+    return this.copyAll(keys, null);
+  }
+
+  /**
+   * 批量复制文件。按{@link MCFssClientConfig#getBatchParallelism()}并行发出请求，单个文件复制失败不影响其他文件
+   *
+   * @param keys     目标key与源key的对应关系
+   * @param listener 进度通知，可为null
+   * @return 每个目标key的复制结果，顺序与keys的遍历顺序一致
+   */
+  public List<BatchResult<Void>> copyAll(Map<String, String> keys, BatchProgressListener listener) {
+    return this.runBatch(new ArrayList<>(keys.keySet()), toKey -> {
+      this.executeAndRelease(copyOption(toKey, keys.get(toKey)), new HttpPut());
+      return null;
+    }, listener);
+  }
+
+  /**
+   * 发送不需要返回内容的请求，读完返回内容后立即释放连接
+   */
+  @SneakyThrows
+  private void executeAndRelease(SignDataOption option, HttpRequestBase request) {
+    this.execute(option, request).release();
+  }
+
+  /**
+   * 启用{@link MCFssClientConfig#isLeakDetectionEnabled()}时，返回尚未关闭的{@link RequestResult}的创建位置。
+   * 未启用时返回空列表
+   */
+  public List<Throwable> getUnreleasedResults() {
+    return this.leakDetector != null ? this.leakDetector.unreleased() : Collections.emptyList();
+  }
+
+  /**
+   * @return 未关闭就被回收的{@link RequestResult}数量，未启用泄漏检测时为0
+   */
+  public long getLeakedResultCount() {
+    return this.leakDetector != null ? this.leakDetector.getLeakedCount() : 0;
+  }
+
+  private <T> List<BatchResult<T>> runBatch(List<String> keys, ParallelTasks.KeyTask<T> task,
+                                            BatchProgressListener listener) {
+    return ParallelTasks.runAll(this.getTransferExecutor(), this.config.getBatchParallelism(),
+        keys, task, listener);
+  }
+
+  private static SignDataOption deleteOption(String key) {
     SignDataOption option = new SignDataOption();
     option.setKey(key);
     option.setMethod(FssOperation.DELETE);
-    SignedData signedData = this.generateSignedData(option);
+    return option;
+  }
+
+  private static HttpDelete createDelete() {
     HttpDelete delete = new HttpDelete();
     delete.setHeader(HttpHeaders.CONTENT_LENGTH, "0");
-    this.sendRequest(signedData, delete);
+    return delete;
   }
 
-  public void copy(String toKey, String fromKey) {
+  private static SignDataOption copyOption(String toKey, String fromKey) {
     SignDataOption option = new SignDataOption();
     option.setKey(toKey);
     option.setMethod(FssOperation.PUT);
     Map<String, String> meta = new HashMap<>();
     meta.put(HttpConsts.FSS_COPY_FILE_HEADER, fromKey);
     option.setMetadata(meta);
-    SignedData signedData = this.generateSignedData(option);
-    this.sendRequest(signedData, new HttpPut());
+    return option;
+  }
+
+  private static SignDataOption headOption(String key) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(key);
+    option.setMethod(FssOperation.HEAD);
+    return option;
+  }
+
+  /**
+   * @return 当前客户端使用的签名工具，可以在不发出请求的情况下生成签名
+   */
+  public Signer getSigner() {
+    return this.requestSigner.getSigner();
+  }
+
+  /**
+   * @return 签名地址缓存，可用于查看命中情况。未启用时为null
+   */
+  public SignedUrlCache getSignedUrlCache() {
+    return this.requestSigner.getSignedUrlCache();
   }
 
   public String generateObjectUrl(String key) {
-    String path = this.getResourcePath(key, false);
-    URIBuilder builder = createUriBuilder(path, false);
-    return builder.toString();
-  }
-
-  private URIBuilder createUriBuilder(String resourcePath, boolean usePublic) {
-    URI endPoint = usePublic ? this.publicEndPoint : this.defaultEndpoint;
-    URIBuilder builder = new URIBuilder(endPoint);
-    String basePath = builder.getPath();
-    String absolutePath;
-    if (basePath.endsWith("/")) {
-      absolutePath = basePath + resourcePath;
-    } else {
-      absolutePath = basePath + "/" + resourcePath;
-    }
-    builder.setPath(absolutePath);
-    return builder;
+    return this.requestSigner.generateObjectUrl(key);
   }
 
   public String getSignatureUrl(String key, SignatureOption option) {
-    String resource = this.getResourcePath(key, true);
-    SignedResource sign = this.signatureResource(resource, option);
+    return this.requestSigner.getSignatureUrl(key, option);
+  }
 
-    // 默认为给外部使用，所以指定用外网地址
-    String path = this.getResourcePath(key, false);
-    URIBuilder builder = createUriBuilder(path, true);
-    builder.addParameter(HttpConsts.ACCESS_KEY_ID, this.config.getAccessKeyId());
-    builder.addParameter(HttpConsts.EXPIRES, Long.toString(sign.getExpires()));
-    builder.addParameter(HttpConsts.SIGNATURE, sign.getSignature());
+  /**
+   * 使用相同的签名选项批量生成签名地址，适合一次生成大量缩略图等地址的场景。
+   * 配合{@link SignatureOption#setExpiresWindow(Long)}可以让同一时间窗口内生成的地址完全相同，便于浏览器及CDN缓存
+   *
+   * @param keys   文件key
+   * @param option 签名选项，必须设置expires
+   * @return key与签名地址的对应关系，顺序与keys一致
+   */
+  public Map<String, String> getSignatureUrls(Collection<String> keys, SignatureOption option) {
+    return this.requestSigner.getSignatureUrls(keys, option);
+  }
 
-    for (Map.Entry<String, String> entry : sign.getSubResource().entrySet()) {
-      builder.addParameter(entry.getKey(), entry.getValue());
+  /**
+   * 列举文件，按key的字典序返回
+   *
+   * @param prefix    只列举以此开头的key，可为null
+   * @param delimiter 对key分组的字符，通常为"/"。指定后prefix之后含有delimiter的key归入commonPrefixes，可为null
+   * @param marker    从大于此值的key开始列举，可为null
+   * @param maxKeys   最多返回的数量，为null时使用服务端的默认值
+   * @return 一页结果
+   */
+  @SneakyThrows
+  public ObjectListing listObjects(String prefix, String delimiter, String marker, Integer maxKeys) {
+    SignDataOption option = new SignDataOption();
+    option.setMethod(FssOperation.GET);
+    // 签名的资源为/bucket/
+    option.setKey("");
+    Map<String, String> parameters = new LinkedHashMap<>();
+    putIfNotEmpty(parameters, "prefix", prefix);
+    putIfNotEmpty(parameters, "delimiter", delimiter);
+    putIfNotEmpty(parameters, "marker", marker);
+    if (maxKeys != null) {
+      parameters.put("max-keys", maxKeys.toString());
+    }
+    option.setParameters(parameters);
+    try (RequestResult result = this.execute(option, new HttpGet())) {
+      return ObjectListingParser.parse(result.openRead());
     }
-
-    return builder.toString();
   }
 
-  public ObjectMeta head(String key) {
-    SignDataOption option = new SignDataOption();
-    option.setKey(key);
-    option.setMethod(FssOperation.HEAD);
-    SignedData signedData = this.generateSignedData(option);
-    RequestResult result = this.sendRequest(signedData, new HttpHead());
+  /**
+   * 列举以prefix开头的全部文件。按页获取，消费当前页的同时在后台获取下一页。
+   * 不再使用时需要关闭返回的Stream，以取消后台正在进行的请求
+   *
+   * @param prefix 只列举以此开头的key，可为null
+   */
+  public Stream<ObjectSummary> listAll(String prefix) {
+    ObjectListingIterator iterator = new ObjectListingIterator(this.getTransferExecutor(), null,
+        marker -> this.listObjects(prefix, null, marker, LIST_PAGE_SIZE));
+    Spliterator<ObjectSummary> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+  }
 
-    Map<String, String> meta = new HashMap<>();
-    for (Map.Entry<String, String> entry : result.getHeaders().entrySet()) {
-      if (entry.getKey().startsWith(HttpConsts.FSS_META_HEADER_PREFIX)) {
-        meta.put(entry.getKey().substring(11), entry.getValue());
-      }
+  private static void putIfNotEmpty(Map<String, String> parameters, String name, String value) {
+    if (value != null && !value.isEmpty()) {
+      parameters.put(name, value);
     }
+  }
 
-    ObjectMeta om = new ObjectMeta();
-    om.setMeta(meta);
-    om.setHeaders(result.getHeaders());
-    om.setStatusCode(result.getStatusCode());
-    return om;
+  /**
+   * 获取文件的meta信息。启用了{@link MCFssClientConfig#getObjectMetaCacheSize()}时优先使用缓存的结果
+   */
+  public ObjectMeta head(String key) {
+    return this.headObject(key);
   }
 
   public Map<String, String> getObjectMeta(String key) {
-    SignDataOption option = new SignDataOption();
-    option.setKey(key);
-    option.setMethod(FssOperation.HEAD);
-    SignedData signedData = this.generateSignedData(option);
-    RequestResult result = this.sendRequest(signedData, new HttpHead());
-    return result.getHeaders();
+    return this.headObject(key).getHeaders();
   }
 
   @SneakyThrows
-  private RequestResult sendRequest(SignedData data, HttpRequestBase request) {
-    request.setURI(data.getTargetUrl());
-    request.setHeader(new BasicHeader(HttpHeaders.ACCEPT, "application/json, application/xml"));
-    request.setHeader(new BasicHeader(HttpHeaders.ACCEPT_LANGUAGE, "zh-CN"));
-
+  private ObjectMeta headObject(String key) {
+    ObjectMetaCache cache = this.objectMetaCache;
+    if (cache == null) {
+      RequestResult result = this.execute(headOption(key), new HttpHead());
+      result.release();
+      return result.toObjectMeta();
+    }
 
-    for (Map.Entry<String, String> entry : data.getHeaders().entrySet()) {
-      request.setHeader(entry.getKey(), entry.getValue());
+    ObjectMetaCache.Entry entry = cache.get(key);
+    if (entry != null && entry.isFresh()) {
+      cache.recordHit();
+      return entry.copyMeta();
     }
+    cache.recordMiss();
+
+    long version = cache.currentVersion();
+    HttpHead head = new HttpHead();
+    if (entry != null) {
+      String etag = entry.getHeader(HttpHeaders.ETAG);
+      String lastModified = entry.getHeader(HttpHeaders.LAST_MODIFIED);
+      if (etag != null) {
+        head.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+      }
+      if (lastModified != null) {
+        head.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+      }
+    }
+    try {
+      RequestResult result = this.execute(headOption(key), head);
+      result.release();
+      if (entry != null && result.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+        cache.revalidated(key, entry);
+        return entry.copyMeta();
+      }
+      ObjectMeta meta = result.toObjectMeta();
+      cache.put(key, meta, version);
+      return meta;
+    } catch (Exception e) {
+      cache.invalidate(key);
+      throw e;
+    }
+  }
 
-    CloseableHttpResponse response = this.httpClient.execute(request);
-    return new RequestResult(response);
+  @SneakyThrows
+  private RequestResult sendRequest(FssOperation method, SignedData data, HttpRequestBase request) {
+    RequestSigner.applyTo(data, request);
+    if (this.leakDetector != null) {
+      // 先关闭已被回收的结果占用的连接，连接池耗尽时也能继续获取连接
+      this.leakDetector.poll();
+    }
+    FssMetricsListener listener = this.config.getMetricsListener();
+    RequestLimiter limiter = this.requestLimiter;
+    long bytesSent = 0;
+    if (limiter != null) {
+      bytesSent = RequestMetrics.bytesSent(request);
+      limiter.acquire(method, bytesSent);
+      limiter.throttleRequest(method, request);
+    }
+    // 耗时不包括限流等待的时间
+    long start = listener != null || limiter != null ? System.nanoTime() : 0;
+    CloseableHttpResponse response = null;
+    Throwable error = null;
+    try {
+      response = this.httpExecutor.execute(request);
+      if (limiter != null) {
+        limiter.throttleResponse(method, response);
+      }
+      RequestResult result = new RequestResult(response);
+      if (this.leakDetector != null) {
+        result.track(this.leakDetector);
+      }
+      return result;
+    } catch (Exception e) {
+      error = e;
+      if (response != null) {
+        response.close();
+      }
+      throw e;
+    } finally {
+      // 先归还限流的名额，监听抛出异常时也不能占住并发数
+      try {
+        if (limiter != null) {
+          limiter.release(method, start, response != null ? response.getStatusLine().getStatusCode() : 0,
+              bytesSent, error);
+        }
+      } finally {
+        if (listener != null) {
+          RequestMetrics.requestCompleted(listener, method, request, response, error, start);
+        }
+      }
+    }
   }
 
   /**
-   * 使用header传递签名方式生成签名数据
-   *
-   * @param option -
+   * 签名并发送请求。按配置重试失败的请求，并对GET、HEAD请求使用对冲请求
    */
-  @SneakyThrows
-  private SignedData generateSignedData(SignDataOption option) {
-    FssOperation method = option.getMethod();
-    String key = option.getKey();
-    Map<String, String> headers = new HashMap<>();
-    if (option.getMetadata() != null) {
-      for (Map.Entry<String, String> entry : option.getMetadata().entrySet()) {
-        // 全部转换为小写
-        String lowerName = entry.getKey().toLowerCase();
-        headers.put(lowerName, entry.getValue());
+  RequestResult execute(SignDataOption option, HttpRequestBase request) {
+    if (this.hedgedRequests != null && HedgedRequests.isHedgeable(option)) {
+      return this.hedgedRequests.execute(option, request);
+    }
+    if (option.getMethod() == FssOperation.GET || option.getMethod() == FssOperation.HEAD) {
+      return this.executeWithRetry(option, request);
+    }
+    try {
+      return this.executeWithRetry(option, request);
+    } finally {
+      // 不论成功与否，修改过的文件都不能再使用缓存的内容
+      if (this.objectMetaCache != null) {
+        this.objectMetaCache.invalidate(option.getKey());
+      }
+      if (this.contentCache != null) {
+        this.contentCache.invalidate(this.contentCacheId(option.getKey()));
       }
     }
+  }
 
-    SignatureOption opts = new SignatureOption(method, option.getContentType());
-    opts.setDate(new Date());
-    opts.setMetadata(option.getMetadata());
-    String resource = this.getResourcePath(key, true);
-    SignedResource sign = this.signatureResource(resource, opts);
-    headers.put(HttpHeaders.AUTHORIZATION,
-        String.format("FSS %s:%s", this.config.getAccessKeyId(), sign.getSignature()));
-
-    String path = this.getResourcePath(key, false);
-    URIBuilder builder = createUriBuilder(path, false);
-
-    for (Map.Entry<String, String> entry : sign.getSubResource().entrySet()) {
-      builder.addParameter(entry.getKey(), entry.getValue());
+  @SneakyThrows
+  RequestResult executeWithRetry(SignDataOption option, HttpRequestBase request) {
+    RetryPolicy retryPolicy = option.getRetryPolicy() != null ? option.getRetryPolicy() : this.config.getRetryPolicy();
+    boolean retryable = retryPolicy != null && isIdempotent(option.getMethod(), request);
+    int attempt = 0;
+    while (true) {
+      // 每次发送都重新签名，重试时使用新的Date
+      SignedData signedData = this.generateSignedData(option);
+      try {
+        return this.sendRequest(option.getMethod(), signedData, request);
+      } catch (Exception e) {
+        long delay = retryable ? retryPolicy.retryDelay(option.getMethod(), ++attempt, e) : -1;
+        if (delay < 0 || request.isAborted()) {
+          throw e;
+        }
+        LOGGER.warn(option.getMethod() + " " + option.getKey() + "失败，" + delay + "毫秒后第" + attempt + "次重试", e);
+        Thread.sleep(delay);
+        request.reset();
+      }
     }
+  }
 
-
-    // 拼成服务端需要的地址
-    URI targetUrl = builder.build();
-    headers.put(HttpHeaders.ACCEPT, "application/xml,*/*");
-    headers.put(HttpHeaders.DATE, opts.getFormatedDate());
-    SignedData data = new SignedData();
-    data.setTargetUrl(targetUrl);
-    data.setMethod(option.getMethod());
-    data.setHeaders(headers);
-    data.setResource(path);
-    return data;
+  /**
+   * 分片上传、分段下载中单个分片的重试策略。设置了{@link MCFssClientConfig#getRetryPolicy()}时使用该策略，
+   * 否则按{@link MCFssClientConfig#getPartRetries()}的次数重试。分片的请求本身不再重试，避免重试次数叠加
+   */
+  RetryPolicy partRetryPolicy() {
+    RetryPolicy retryPolicy = this.config.getRetryPolicy();
+    if (retryPolicy != null && retryPolicy != RetryPolicy.NONE) {
+      return retryPolicy;
+    }
+    return new ExponentialBackoffRetryPolicy(this.config.getPartRetries(), 100, 5000);
   }
 
-  private String getResourcePath(String key, boolean addPrefix) {
-    String prefix = addPrefix ? "/" : "";
-    return prefix + this.config.getBucketName() + "/" + key;
+  /**
+   * @return 重复发送该请求是否安全
+   */
+  private static boolean isIdempotent(FssOperation method, HttpRequestBase request) {
+    switch (method) {
+      case GET:
+      case HEAD:
+      case DELETE:
+        return true;
+      case PUT:
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest
+            ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        return entity == null || entity.isRepeatable();
+      default:
+        return false;
+    }
   }
 
-  @SneakyThrows
-  private SignedResource signatureResource(String resource, SignatureOption option) {
-    Map<String, String> subResource = SignUtility.buildSubResource(option);
-    String canonicalString = SignUtility.buildCanonicalString(resource, option, subResource);
-
-    byte[] key = this.config.getAccessKeySecret().getBytes(DEFAULT_CHARSET);
-    SecretKeySpec signingKey = new SecretKeySpec(key, "HmacSHA1");
-    Mac mac = Mac.getInstance("HmacSHA1");
-    mac.init(signingKey);
-    byte[] data = canonicalString.getBytes(DEFAULT_CHARSET);
-    byte[] signedData = mac.doFinal(data);
-    String signature = Base64.encodeBase64String(signedData);
-    SignedResource signedResource = new SignedResource();
-    signedResource.setSignature(signature);
-    signedResource.setSubResource(subResource);
-    signedResource.setExpires(option.getAbsoluteExpires());
-    return signedResource;
+  private SignedData generateSignedData(SignDataOption option) {
+    return this.requestSigner.generateSignedData(option);
   }
 }
@@ -1,5 +1,7 @@
 package com.mctech.fss.client;
 
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import com.mctech.fss.client.transport.FssTransport;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,4 +14,213 @@ public class MCFssClientConfig {
   private String accessKeySecret;
   private String publicEndPoint;
   private String privateEndPoint;
+
+  /**
+   * 连接池中的最大连接数
+   */
+  private int maxConnections = 200;
+
+  /**
+   * 每个路由(目标主机)的最大连接数。访问的FSS服务只有一个地址，通常与maxConnections相同即可
+   */
+  private int maxConnectionsPerRoute = 200;
+
+  /**
+   * 服务端未返回Keep-Alive时，连接保持的时间(毫秒)。小于等于0时表示无限期保持
+   */
+  private long keepAliveMillis = 60 * 1000L;
+
+  /**
+   * 连接空闲超过该时间(毫秒)后由后台线程回收。小于等于0时不回收空闲连接
+   */
+  private long idleConnectionTimeoutMillis = 30 * 1000L;
+
+  /**
+   * 是否由后台线程回收已过期(超过keep-alive时间)的连接
+   */
+  private boolean evictExpiredConnections = true;
+
+  /**
+   * 连接池中的连接在空闲超过该时间(毫秒)后，重新使用前先检查是否可用。小于0时不检查
+   */
+  private int validateAfterInactivityMillis = 2000;
+
+  /**
+   * 建立连接的超时时间(毫秒)。小于0时使用系统默认值
+   */
+  private int connectTimeoutMillis = 10 * 1000;
+
+  /**
+   * 读取数据的超时时间(毫秒)。0表示无限等待
+   */
+  private int socketTimeoutMillis = 60 * 1000;
+
+  /**
+   * 从连接池获取连接的超时时间(毫秒)。小于0时无限等待
+   */
+  private int connectionRequestTimeoutMillis = 10 * 1000;
+
+  private boolean tcpNoDelay = true;
+
+  /**
+   * socket发送缓冲区大小(字节)。小于等于0时使用系统默认值
+   */
+  private int socketSendBufferSize = 0;
+
+  /**
+   * socket接收缓冲区大小(字节)。小于等于0时使用系统默认值
+   */
+  private int socketReceiveBufferSize = 0;
+
+  /**
+   * 每个连接上读写数据使用的缓冲区大小(字节)
+   */
+  private int connectionBufferSize = 64 * 1024;
+
+  /**
+   * 异步客户端使用的I/O线程数
+   */
+  private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * 异步客户端同时发出(尚未返回)的最大请求数，超出的请求排队等待
+   */
+  private int maxInFlightRequests = 1000;
+
+  /**
+   * 签名地址缓存的最大条目数。0表示不使用缓存
+   */
+  private int signedUrlCacheSize = 0;
+
+  /**
+   * 缓存的签名地址剩余有效期低于该值(秒)时重新生成
+   */
+  private long signedUrlCacheMinRemainingSeconds = 60;
+
+  /**
+   * 文件大小达到该值(字节)时使用分片上传，否则使用单个PUT请求上传。
+   * 默认不使用分片上传，确认服务端支持分片上传后再设置
+   */
+  private long multipartThreshold = Long.MAX_VALUE;
+
+  /**
+   * 分片上传时每个分片的大小(字节)
+   */
+  private long multipartPartSize = 8L * 1024 * 1024;
+
+  /**
+   * 分段下载时每段的大小(字节)
+   */
+  private long downloadPartSize = 8L * 1024 * 1024;
+
+  /**
+   * 分片上传、分段下载等操作同时使用的连接数
+   */
+  private int transferParallelism = 4;
+
+  /**
+   * 单个分片上传或分段下载失败后的重试次数，按指数退避并加入随机抖动。
+   * 设置了{@link #getRetryPolicy()}时按该策略重试，不使用此值
+   */
+  private int partRetries = 3;
+
+  /**
+   * 批量删除、复制、获取meta信息时同时发出的请求数
+   */
+  private int batchParallelism = 16;
+
+  /**
+   * 请求失败后的重试策略，默认不重试。需要时设置为{@link ExponentialBackoffRetryPolicy}等，
+   * 只有GET、HEAD、DELETE及内容可重复发送的PUT会重试
+   */
+  private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+  /**
+   * 是否对GET、HEAD请求启用对冲请求：请求在一定时间内没有返回时再发出一个相同的请求，使用先返回的结果
+   */
+  private boolean hedgedRequests = false;
+
+  /**
+   * 发出对冲请求前等待的时间(毫秒)。为0时使用最近GET、HEAD请求耗时的p95
+   */
+  private long hedgeDelayMillis = 0;
+
+  /**
+   * 运行指标监听，为null时不收集
+   */
+  private FssMetricsListener metricsListener;
+
+  /**
+   * 文件meta信息缓存的最大条目数，为0时不缓存
+   */
+  private int objectMetaCacheSize = 0;
+
+  /**
+   * 缓存的meta信息不经服务端验证直接使用的时间(毫秒)，过期后使用条件请求重新验证
+   */
+  private long objectMetaCacheTtlMillis = 5000;
+
+  /**
+   * 文件内容本地缓存的目录，为null时不缓存。多个客户端实例不能同时使用同一个目录
+   */
+  private String contentCacheDirectory;
+
+  /**
+   * 文件内容本地缓存的总大小上限(字节)
+   */
+  private long contentCacheMaxBytes = 1024L * 1024 * 1024;
+
+  /**
+   * 是否在传输的同时计算内容的MD5和CRC32C，并与服务端返回的ETag或meta信息中的MD5比较
+   */
+  private boolean checksumEnabled = false;
+
+  /**
+   * 是否检测未关闭的{@link RequestResult}。启用后记录每个结果的创建位置，未关闭就被回收时输出错误日志，只用于排查连接泄漏
+   */
+  private boolean leakDetectionEnabled = false;
+
+  /**
+   * 是否使用虚拟线程。需要在Java 21及以上版本中运行，启用后使用java.net.http发送请求，
+   * 分片上传等并行操作也使用虚拟线程执行。低版本中启用时记录警告，仍使用Apache HttpClient及普通线程
+   */
+  private boolean virtualThreads = false;
+
+  /**
+   * 发送请求使用的传输层，为null时使用Apache HttpClient，连接池等配置只对默认的HttpClient生效。
+   * 设置后由调用方负责关闭，关闭客户端时不会关闭该传输层
+   */
+  private FssTransport transport;
+
+  /**
+   * 使用java.net.http发送请求时是否使用HTTP/2，服务端不支持时自动使用HTTP/1.1
+   */
+  private boolean http2 = false;
+
+  /**
+   * 每秒最多发出的请求数，重试及对冲请求也计入。小于等于0时不限制
+   */
+  private double maxRequestsPerSecond = 0;
+
+  /**
+   * 每秒最多发送及接收的字节数。长度已知的请求内容在发出请求前按长度一次等待，
+   * 长度未知的请求内容及返回内容在发送、读取时按实际传输的字节等待。小于等于0时不限制
+   */
+  private long maxBytesPerSecond = 0;
+
+  /**
+   * 是否按服务端返回的429、503、请求超时及请求耗时自动调整同时进行的请求数，
+   * 用于批量任务避免压垮服务端。限流状态可通过{@link MCFssClient#getRequestLimiter()}查看
+   */
+  private boolean adaptiveConcurrency = false;
+
+  /**
+   * 自适应并发数的下限
+   */
+  private int minConcurrency = 1;
+
+  /**
+   * 自适应并发数的上限，开始时使用该值的一半
+   */
+  private int maxConcurrency = 64;
 }
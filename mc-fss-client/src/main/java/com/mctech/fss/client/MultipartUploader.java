@@ -0,0 +1,187 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.log4j.Logger;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分片上传：初始化上传后把文件切分为多个分片并行上传，全部完成后再合并，合并前文件对外不可见。
+ * 单个分片失败时只重试该分片，上传失败时取消本次上传
+ */
+class MultipartUploader {
+  private static final Logger LOGGER = Logger.getLogger(MultipartUploader.class);
+
+  private static final String PARAM_UPLOADS = "uploads";
+  private static final String PARAM_UPLOAD_ID = "uploadId";
+  private static final String PARAM_PART_NUMBER = "partNumber";
+  private static final String XML_CONTENT_TYPE = "application/xml";
+
+  private final MCFssClient client;
+  private final MCFssClientConfig config;
+  private final UnaryOperator<AbstractHttpEntity> decorator;
+
+  MultipartUploader(MCFssClient client) {
+    this(client, UnaryOperator.identity());
+  }
+
+  /**
+   * @param decorator 对每个分片发送的内容进行包装，如限制发送速度
+   */
+  MultipartUploader(MCFssClient client, UnaryOperator<AbstractHttpEntity> decorator) {
+    this.client = client;
+    this.config = client.getConfig();
+    this.decorator = decorator;
+  }
+
+  @SneakyThrows
+  RequestResult upload(String key, String fileName, Path file,
+                       Map<String, String> metadata, String contentType) {
+    long size = Files.size(file);
+    String uploadId = this.initiate(key, fileName, metadata, contentType);
+    try {
+      long partSize = Math.max(1, this.config.getMultipartPartSize());
+      List<Part> parts = new ArrayList<>();
+      for (long offset = 0; offset < size; offset += partSize) {
+        parts.add(new Part(parts.size() + 1, offset, Math.min(partSize, size - offset)));
+      }
+
+      ParallelTasks.run(this.client.getTransferExecutor(), this.config.getTransferParallelism(), parts,
+          part -> this.uploadPart(key, uploadId, file, part));
+      return this.complete(key, uploadId, parts);
+    } catch (Throwable e) {
+      this.abort(key, uploadId);
+      throw e;
+    }
+  }
+
+  private String initiate(String key, String fileName,
+                          Map<String, String> metadata, String contentType) throws Exception {
+    SignDataOption option = this.createOption(key, FssOperation.POST, PARAM_UPLOADS, "");
+    option.setContentType(contentType);
+    option.setMetadata(RequestSigner.toFssMetadata(metadata));
+
+    HttpPost post = new HttpPost();
+    if (contentType != null) {
+      post.setHeader(HttpHeaders.CONTENT_TYPE, contentType);
+    }
+    post.setHeader(HttpConsts.CONTENT_DISPOSITION, RequestSigner.contentDisposition(key, fileName));
+    try (RequestResult result = this.client.execute(option, post)) {
+      return readElement(result.openRead(), "UploadId");
+    }
+  }
+
+  private void uploadPart(String key, String uploadId, Path file, Part part) throws Exception {
+    SignDataOption option = this.createOption(key, FssOperation.PUT, PARAM_UPLOAD_ID, uploadId);
+    option.getParameters().put(PARAM_PART_NUMBER, Integer.toString(part.number));
+    // 校验失败时也需要重新上传，在此统一重试
+    option.setRetryPolicy(RetryPolicy.NONE);
+    RetryPolicy retryPolicy = this.client.partRetryPolicy();
+
+    int attempt = 0;
+    while (true) {
+      AbstractHttpEntity entity = this.decorator.apply(new FileRangeEntity(file, part.offset, part.length));
+      ChecksumEntity checksumEntity = this.config.isChecksumEnabled() ? new ChecksumEntity(entity) : null;
+      HttpPut put = new HttpPut();
+      put.setEntity(checksumEntity != null ? checksumEntity : entity);
+      try {
+        RequestResult result = this.client.execute(option, put);
+        result.release();
+        if (checksumEntity != null) {
+          // 分片的ETag为该分片内容的MD5，不一致时重新上传该分片
+          MCFssClient.verifyETag(result, checksumEntity.getChecksum());
+        }
+        part.etag = result.getHeader(HttpHeaders.ETAG);
+        return;
+      } catch (Exception e) {
+        long delay = retryPolicy.retryDelay(FssOperation.PUT, ++attempt, e);
+        if (delay < 0) {
+          throw e;
+        }
+        LOGGER.warn("分片" + part.number + "上传失败，" + delay + "毫秒后第" + attempt + "次重试: " + key, e);
+        Thread.sleep(delay);
+      }
+    }
+  }
+
+  private RequestResult complete(String key, String uploadId, List<Part> parts) {
+    StringBuilder body = new StringBuilder("<CompleteMultipartUpload>");
+    for (Part part : parts) {
+      body.append("<Part><PartNumber>").append(part.number).append("</PartNumber><ETag>")
+          .append(escapeXml(part.etag)).append("</ETag></Part>");
+    }
+    body.append("</CompleteMultipartUpload>");
+
+    SignDataOption option = this.createOption(key, FssOperation.POST, PARAM_UPLOAD_ID, uploadId);
+    option.setContentType(XML_CONTENT_TYPE);
+    HttpPost post = new HttpPost();
+    post.setEntity(new ByteArrayEntity(body.toString().getBytes(StandardCharsets.UTF_8),
+        ContentType.create(XML_CONTENT_TYPE)));
+    return this.client.execute(option, post);
+  }
+
+  private void abort(String key, String uploadId) {
+    SignDataOption option = this.createOption(key, FssOperation.DELETE, PARAM_UPLOAD_ID, uploadId);
+    HttpDelete delete = new HttpDelete();
+    delete.setHeader(HttpHeaders.CONTENT_LENGTH, "0");
+    try {
+      this.client.execute(option, delete).release();
+      LOGGER.info("已取消分片上传: " + key);
+    } catch (Exception e) {
+      LOGGER.warn("取消分片上传失败: " + key, e);
+    }
+  }
+
+  private SignDataOption createOption(String key, FssOperation method, String name, String value) {
+    SignDataOption option = new SignDataOption();
+    option.setKey(key);
+    option.setMethod(method);
+    Map<String, String> parameters = new HashMap<>();
+    parameters.put(name, value);
+    option.setParameters(parameters);
+    return option;
+  }
+
+  private static String readElement(InputStream in, String name) throws Exception {
+    String value = XmlParser.readFirst(in, name);
+    if (value == null) {
+      throw new IllegalStateException("返回结果中缺少" + name);
+    }
+    return value;
+  }
+
+  private static String escapeXml(String value) {
+    if (value == null) {
+      return "";
+    }
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+  }
+
+  private static final class Part {
+    private final int number;
+    private final long offset;
+    private final long length;
+    private volatile String etag;
+
+    private Part(int number, long offset, long length) {
+      this.number = number;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.mctech.fss.client;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列举文件时返回的一页结果
+ */
+@Getter
+@Setter
+public class ObjectListing {
+  private String bucketName;
+  private String prefix;
+  private String marker;
+  private String delimiter;
+  private int maxKeys;
+  /**
+   * 是否还有下一页
+   */
+  private boolean truncated;
+  /**
+   * 获取下一页时使用的marker
+   */
+  private String nextMarker;
+  private List<ObjectSummary> objects = new ArrayList<>();
+  /**
+   * 指定delimiter时，key中prefix之后到第一个delimiter为止的公共部分，相当于子目录
+   */
+  private List<String> commonPrefixes = new ArrayList<>();
+}
@@ -0,0 +1,103 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * 逐页列举文件。取得一页后立即在后台获取下一页，处理当前页的同时下一页已在传输中
+ */
+class ObjectListingIterator implements Iterator<ObjectSummary> {
+  private final ExecutorService executor;
+  private final Function<String, ObjectListing> loader;
+
+  private List<ObjectSummary> current;
+  private int index;
+  private Future<ObjectListing> next;
+
+  /**
+   * @param loader 根据marker获取一页结果，第一页的marker为null
+   */
+  ObjectListingIterator(ExecutorService executor, String marker, Function<String, ObjectListing> loader) {
+    this.executor = executor;
+    this.loader = loader;
+    this.accept(loader.apply(marker));
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (this.index >= this.current.size()) {
+      if (this.next == null) {
+        return false;
+      }
+      this.accept(this.await(this.next));
+    }
+    return true;
+  }
+
+  @Override
+  public ObjectSummary next() {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return this.current.get(this.index++);
+  }
+
+  /**
+   * 不再继续列举时取消正在后台获取的下一页
+   */
+  void close() {
+    if (this.next != null) {
+      this.next.cancel(true);
+      this.next = null;
+    }
+  }
+
+  private void accept(ObjectListing listing) {
+    this.current = listing.getObjects();
+    this.index = 0;
+    String marker = nextMarker(listing);
+    if (listing.isTruncated() && marker != null) {
+      this.next = this.executor.submit(() -> this.loader.apply(marker));
+    } else {
+      this.next = null;
+    }
+  }
+
+  @SneakyThrows
+  private ObjectListing await(Future<ObjectListing> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * 服务端没有返回NextMarker时使用本页最后一个key或公共前缀
+   */
+  private static String nextMarker(ObjectListing listing) {
+    if (listing.getNextMarker() != null && !listing.getNextMarker().isEmpty()) {
+      return listing.getNextMarker();
+    }
+    String marker = null;
+    List<ObjectSummary> objects = listing.getObjects();
+    if (!objects.isEmpty()) {
+      marker = objects.get(objects.size() - 1).getKey();
+    }
+    List<String> prefixes = listing.getCommonPrefixes();
+    if (!prefixes.isEmpty()) {
+      String prefix = prefixes.get(prefixes.size() - 1);
+      if (marker == null || prefix.compareTo(marker) > 0) {
+        marker = prefix;
+      }
+    }
+    return marker;
+  }
+}
@@ -0,0 +1,140 @@
+package com.mctech.fss.client;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * 流式解析列举文件返回的ListBucketResult，边读取边生成结果，不在内存中保留完整的xml
+ */
+final class ObjectListingParser {
+  private ObjectListingParser() {
+  }
+
+  static ObjectListing parse(InputStream in) throws XMLStreamException {
+    ObjectListing listing = new ObjectListing();
+    XMLStreamReader reader = XmlParser.createReader(in);
+    try {
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+          continue;
+        }
+        if (event != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        depth++;
+        if (depth != 2) {
+          continue;
+        }
+        String name = reader.getLocalName();
+        switch (name) {
+          case "Contents":
+            listing.getObjects().add(readSummary(reader));
+            break;
+          case "CommonPrefixes":
+            String prefix = readPrefix(reader);
+            if (prefix != null) {
+              listing.getCommonPrefixes().add(prefix);
+            }
+            break;
+          default:
+            setProperty(listing, name, XmlParser.readText(reader));
+            break;
+        }
+        // 子元素已读取到结束位置
+        depth--;
+      }
+      return listing;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void setProperty(ObjectListing listing, String name, String value) {
+    switch (name) {
+      case "Name":
+        listing.setBucketName(value);
+        break;
+      case "Prefix":
+        listing.setPrefix(value);
+        break;
+      case "Marker":
+        listing.setMarker(value);
+        break;
+      case "Delimiter":
+        listing.setDelimiter(value);
+        break;
+      case "MaxKeys":
+        listing.setMaxKeys(Integer.parseInt(value.trim()));
+        break;
+      case "IsTruncated":
+        listing.setTruncated(Boolean.parseBoolean(value.trim()));
+        break;
+      case "NextMarker":
+        listing.setNextMarker(value);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static ObjectSummary readSummary(XMLStreamReader reader) throws XMLStreamException {
+    ObjectSummary summary = new ObjectSummary();
+    while (reader.next() != XMLStreamConstants.END_ELEMENT || !reader.getLocalName().equals("Contents")) {
+      if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+        continue;
+      }
+      String name = reader.getLocalName();
+      String value = XmlParser.readText(reader);
+      switch (name) {
+        case "Key":
+          summary.setKey(value);
+          break;
+        case "ETag":
+          summary.setETag(value);
+          break;
+        case "Size":
+          summary.setSize(Long.parseLong(value.trim()));
+          break;
+        case "LastModified":
+          summary.setLastModified(parseDate(value));
+          break;
+        case "StorageClass":
+          summary.setStorageClass(value);
+          break;
+        default:
+          break;
+      }
+    }
+    return summary;
+  }
+
+  private static String readPrefix(XMLStreamReader reader) throws XMLStreamException {
+    String prefix = null;
+    while (reader.next() != XMLStreamConstants.END_ELEMENT || !reader.getLocalName().equals("CommonPrefixes")) {
+      if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+        String name = reader.getLocalName();
+        String value = XmlParser.readText(reader);
+        if (name.equals("Prefix")) {
+          prefix = value;
+        }
+      }
+    }
+    return prefix;
+  }
+
+  private static Date parseDate(String value) {
+    try {
+      return Date.from(Instant.parse(value.trim()));
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
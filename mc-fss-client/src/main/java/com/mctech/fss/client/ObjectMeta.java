@@ -1,9 +1,12 @@
 package com.mctech.fss.client;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 @Getter
 @Setter
@@ -11,4 +14,73 @@ public class ObjectMeta {
   private Map<String, String> meta;
   private Map<String, String> headers;
   private int statusCode;
+
+  /**
+   * 返回头的只读视图。由{@link #setMeta(Map)}、{@link #setHeaders(Map)}直接设置内容时为null
+   */
+  @Setter(AccessLevel.NONE)
+  private ResponseHeaders responseHeaders;
+
+  public ObjectMeta() {
+  }
+
+  ObjectMeta(ResponseHeaders responseHeaders, int statusCode) {
+    this.responseHeaders = responseHeaders;
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * @return 文件附加的meta信息，名称为去掉x-fss-meta-前缀后的部分。第一次调用时生成
+   */
+  public Map<String, String> getMeta() {
+    if (this.meta == null && this.responseHeaders != null) {
+      this.meta = new HashMap<>(this.responseHeaders.getMeta());
+    }
+    return this.meta;
+  }
+
+  /**
+   * @return 全部返回头，名称不区分大小写。第一次调用时生成
+   */
+  public Map<String, String> getHeaders() {
+    if (this.headers == null && this.responseHeaders != null) {
+      this.headers = this.responseHeaders.toMap();
+    }
+    return this.headers;
+  }
+
+  /**
+   * @param name 名称，不区分大小写
+   * @return 指定名称的返回头的值，不存在时返回null
+   */
+  public String getHeader(String name) {
+    if (this.headers == null && this.responseHeaders != null) {
+      return this.responseHeaders.get(name);
+    }
+    Map<String, String> map = this.getHeaders();
+    if (map == null) {
+      return null;
+    }
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      if (entry.getKey().equalsIgnoreCase(name)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return 复制一份，修改复制的结果不影响原来的对象
+   */
+  ObjectMeta copy() {
+    ObjectMeta copy = new ObjectMeta(this.responseHeaders, this.statusCode);
+    if (this.meta != null) {
+      copy.meta = new HashMap<>(this.meta);
+    }
+    if (this.headers != null) {
+      copy.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      copy.headers.putAll(this.headers);
+    }
+    return copy;
+  }
 }
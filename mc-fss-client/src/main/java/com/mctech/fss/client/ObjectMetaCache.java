@@ -0,0 +1,186 @@
+package com.mctech.fss.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件meta信息缓存。有效期内直接返回缓存的结果；过期后带上If-None-Match/If-Modified-Since重新验证，
+ * 服务端返回304时继续使用缓存的结果。通过当前客户端修改、删除文件时自动失效。
+ * 按最近最少使用淘汰超出容量的条目，失效标记也占用容量。线程安全
+ */
+public class ObjectMetaCache {
+  private final int maxSize;
+  private final long ttlMillis;
+  private final LinkedHashMap<String, Entry> entries;
+
+  /**
+   * 每次失效时增加。失效的文件留下带有新版本号的标记，发出请求时的版本号小于该文件标记的结果不保存，
+   * 其他文件的请求不受影响
+   */
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * 被淘汰的条目中最大的版本号。条目被淘汰后无法再判断对应文件是否失效过，版本号小于该值的结果都不保存
+   */
+  private long evictedVersion;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong revalidatedCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * @param maxSize   最多缓存的文件数
+   * @param ttlMillis 缓存结果不经验证直接使用的时间(毫秒)
+   */
+  public ObjectMetaCache(int maxSize, long ttlMillis) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize必须为大于0的整数");
+    }
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        if (size() > ObjectMetaCache.this.maxSize) {
+          evictedVersion = Math.max(evictedVersion, eldest.getValue().version);
+          if (eldest.getValue().meta != null) {
+            evictionCount.incrementAndGet();
+          }
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * @return 缓存的条目，不存在时返回null
+   */
+  Entry get(String key) {
+    synchronized (this.entries) {
+      Entry entry = this.entries.get(key);
+      return entry != null && entry.meta != null ? entry : null;
+    }
+  }
+
+  long currentVersion() {
+    return this.version.get();
+  }
+
+  /**
+   * 保存请求返回的结果。请求发出后该文件被修改过，或已保存了更晚发出的请求的结果时不保存
+   *
+   * @param version 发出请求前的{@link #currentVersion()}
+   */
+  void put(String key, ObjectMeta meta, long version) {
+    Entry entry = new Entry(meta.copy(), System.currentTimeMillis() + this.ttlMillis, version);
+    synchronized (this.entries) {
+      Entry current = this.entries.get(key);
+      if (version >= this.evictedVersion && (current == null || current.version <= version)) {
+        this.entries.put(key, entry);
+      }
+    }
+  }
+
+  /**
+   * 服务端确认缓存的结果仍然有效，延长有效期
+   */
+  void revalidated(String key, Entry entry) {
+    this.revalidatedCount.incrementAndGet();
+    synchronized (this.entries) {
+      if (this.entries.get(key) == entry) {
+        this.entries.put(key, new Entry(entry.meta, System.currentTimeMillis() + this.ttlMillis, entry.version));
+      }
+    }
+  }
+
+  void recordHit() {
+    this.hitCount.incrementAndGet();
+  }
+
+  void recordMiss() {
+    this.missCount.incrementAndGet();
+  }
+
+  public void invalidate(String key) {
+    synchronized (this.entries) {
+      this.entries.put(key, new Entry(null, 0, this.version.incrementAndGet()));
+    }
+  }
+
+  public void clear() {
+    synchronized (this.entries) {
+      this.evictedVersion = this.version.incrementAndGet();
+      this.entries.clear();
+    }
+  }
+
+  /**
+   * @return 缓存的文件数，不包括失效标记
+   */
+  public int size() {
+    synchronized (this.entries) {
+      int size = 0;
+      for (Entry entry : this.entries.values()) {
+        if (entry.meta != null) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+
+  /**
+   * @return 有效期内直接返回缓存结果的次数
+   */
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  /**
+   * @return 需要发出请求的次数，包括重新验证
+   */
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  /**
+   * @return 重新验证时服务端返回304的次数
+   */
+  public long getRevalidatedCount() {
+    return this.revalidatedCount.get();
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  static final class Entry {
+    /**
+     * 为null时表示文件已失效的标记
+     */
+    private final ObjectMeta meta;
+    private final long expiresAt;
+    private final long version;
+
+    private Entry(ObjectMeta meta, long expiresAt, long version) {
+      this.meta = meta;
+      this.expiresAt = expiresAt;
+      this.version = version;
+    }
+
+    boolean isFresh() {
+      return System.currentTimeMillis() < this.expiresAt;
+    }
+
+    String getHeader(String name) {
+      return this.meta.getHeader(name);
+    }
+
+    ObjectMeta copyMeta() {
+      return this.meta.copy();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.mctech.fss.client;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * 列举文件时返回的单个文件信息
+ */
+@Getter
+@Setter
+public class ObjectSummary {
+  private String key;
+  private String eTag;
+  private long size;
+  private Date lastModified;
+  private String storageClass;
+}
@@ -0,0 +1,106 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 用固定数量的工作任务并行处理一组数据
+ */
+final class ParallelTasks {
+  private ParallelTasks() {
+  }
+
+  interface ItemTask<T> {
+    void run(T item) throws Exception;
+  }
+
+  interface KeyTask<T> {
+    T run(String key) throws Exception;
+  }
+
+  /**
+   * 阻塞直到全部处理完成。任意一项失败后停止处理剩余的数据，并抛出第一个异常
+   */
+  @SneakyThrows
+  static <T> void run(ExecutorService executor, int parallelism, List<T> items, ItemTask<T> task) {
+    if (items.isEmpty()) {
+      return;
+    }
+    AtomicInteger next = new AtomicInteger();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Runnable worker = () -> {
+      int index;
+      while (failure.get() == null && (index = next.getAndIncrement()) < items.size()) {
+        try {
+          task.run(items.get(index));
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      }
+    };
+
+    int workers = Math.max(1, Math.min(parallelism, items.size()));
+    List<Future<?>> futures = new ArrayList<>(workers);
+    for (int i = 1; i < workers; i++) {
+      futures.add(executor.submit(worker));
+    }
+    // 调用线程也参与处理
+    worker.run();
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failure.compareAndSet(null, e.getCause());
+      }
+    }
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+  }
+
+  /**
+   * 阻塞直到全部处理完成。单项失败不影响其他项，每一项的结果都记录在返回值中
+   *
+   * @return 每个key的处理结果，顺序与keys一致
+   */
+  static <T> List<BatchResult<T>> runAll(ExecutorService executor, int parallelism, List<String> keys,
+                                         KeyTask<T> task, BatchProgressListener listener) {
+    BatchResult<T>[] results = newResults(keys.size());
+    List<Integer> indexes = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      indexes.add(i);
+    }
+    AtomicInteger completed = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    run(executor, parallelism, indexes, index -> {
+      String key = keys.get(index);
+      BatchResult<T> result;
+      try {
+        result = new BatchResult<>(key, task.run(key), null);
+      } catch (Exception e) {
+        failed.incrementAndGet();
+        result = new BatchResult<>(key, null, e);
+      }
+      results[index] = result;
+      int count = completed.incrementAndGet();
+      if (listener != null) {
+        listener.onProgress(result, count, failed.get(), keys.size());
+      }
+    });
+    return Arrays.asList(results);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> BatchResult<T>[] newResults(int size) {
+    return (BatchResult<T>[]) new BatchResult[size];
+  }
+}
@@ -0,0 +1,192 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import lombok.SneakyThrows;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 分段并行下载：先用HEAD获取文件长度，再并行下载各段内容并直接写入文件的对应位置。
+ * 已完成的分段记录在日志文件中，下载中断后再次下载同一文件时只下载未完成的分段。
+ * 各段请求带If-Match，文件在下载过程中被修改时从头重新下载
+ */
+class RangeDownloader {
+  private static final Logger LOGGER = Logger.getLogger(RangeDownloader.class);
+
+  private static final String TEMP_SUFFIX = ".fssdownload";
+  private static final String JOURNAL_SUFFIX = ".fssjournal";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * 文件在下载过程中被修改时最多重新下载的次数
+   */
+  private static final int MAX_RESTARTS = 3;
+
+  private final MCFssClient client;
+  private final MCFssClientConfig config;
+
+  RangeDownloader(MCFssClient client) {
+    this.client = client;
+    this.config = client.getConfig();
+  }
+
+  @SneakyThrows
+  ObjectMeta download(String key, Path target) {
+    Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    Path journal = target.resolveSibling(target.getFileName() + JOURNAL_SUFFIX);
+    for (int restart = 0; ; restart++) {
+      try {
+        return this.download(key, target, temp, journal);
+      } catch (MCTechFssRequestException e) {
+        if (e.getStatusCode() != HttpStatus.SC_PRECONDITION_FAILED || restart >= MAX_RESTARTS) {
+          throw e;
+        }
+        // 文件在下载过程中被修改，已下载的内容属于旧版本
+        LOGGER.warn("文件在下载过程中被修改，重新下载: " + key);
+        Files.deleteIfExists(journal);
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  private ObjectMeta download(String key, Path target, Path temp, Path journal) throws Exception {
+    ObjectMeta meta;
+    SignDataOption headOption = new SignDataOption();
+    headOption.setKey(key);
+    headOption.setMethod(FssOperation.HEAD);
+    try (RequestResult result = this.client.execute(headOption, new HttpHead())) {
+      meta = result.toObjectMeta();
+    }
+    long size = meta.getResponseHeaders().getContentLength();
+    if (size < 0) {
+      throw new IOException("无法获取文件长度: " + key);
+    }
+    String etag = meta.getResponseHeaders().getETag();
+    long rangeSize = Math.max(1, this.config.getDownloadPartSize());
+    // 文件在两次下载之间被修改过，或分段大小改变后，日志中的分段序号不再对应之前下载的内容
+    String version = size + " " + rangeSize + " " + Objects.toString(etag, "");
+
+    List<long[]> ranges = new ArrayList<>();
+    for (long offset = 0; offset < size; offset += rangeSize) {
+      ranges.add(new long[]{ranges.size(), offset, Math.min(rangeSize, size - offset)});
+    }
+
+    Set<Long> completed = readJournal(journal, version, temp);
+    if (completed.isEmpty()) {
+      Files.write(journal, (version + "\n").getBytes(StandardCharsets.UTF_8));
+    } else {
+      LOGGER.info("继续下载" + key + "，已完成" + completed.size() + "/" + ranges.size() + "段");
+    }
+    List<long[]> pending = new ArrayList<>();
+    for (long[] range : ranges) {
+      if (!completed.contains(range[0])) {
+        pending.add(range);
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(temp,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+      ParallelTasks.run(this.client.getTransferExecutor(), this.config.getTransferParallelism(), pending,
+          range -> {
+            this.downloadRange(key, etag, channel, range[1], range[2]);
+            // 先确保数据写入磁盘再记录，避免中断后误认为该段已完成
+            channel.force(false);
+            appendJournal(journal, range[0]);
+          });
+      channel.truncate(size);
+    }
+
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    Files.deleteIfExists(journal);
+    return meta;
+  }
+
+  /**
+   * @param etag HEAD返回的ETag，作为If-Match发送，文件已被修改时服务端返回412
+   */
+  private void downloadRange(String key, String etag, FileChannel channel, long offset, long length) throws Exception {
+    RetryPolicy retryPolicy = this.client.partRetryPolicy();
+    int attempt = 0;
+    while (true) {
+      // 读取内容时失败也需要重新下载，在此统一重试
+      try (RequestResult result = this.client.get(key, offset, length, RetryPolicy.NONE, etag)) {
+        if (result.getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT
+            && !(offset == 0 && result.getStatusCode() == HttpStatus.SC_OK)) {
+          throw new IOException("服务端不支持分段下载，返回状态码: " + result.getStatusCode());
+        }
+        writeAt(result.openRead(), channel, offset, length);
+        return;
+      } catch (Exception e) {
+        if (isPreconditionFailed(e)) {
+          throw e;
+        }
+        long delay = retryPolicy.retryDelay(FssOperation.GET, ++attempt, e);
+        if (delay < 0) {
+          throw e;
+        }
+        LOGGER.warn("分段" + offset + "-" + (offset + length - 1) + "下载失败，" + delay + "毫秒后第" + attempt + "次重试: " + key, e);
+        Thread.sleep(delay);
+      }
+    }
+  }
+
+  private static boolean isPreconditionFailed(Exception e) {
+    return e instanceof MCTechFssRequestException
+        && ((MCTechFssRequestException) e).getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED;
+  }
+
+  private static void writeAt(InputStream in, FileChannel channel, long offset, long length) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long position = offset;
+    long remaining = length;
+    while (remaining > 0) {
+      int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+      if (read < 0) {
+        throw new IOException("返回内容长度小于预期");
+      }
+      ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+      while (data.hasRemaining()) {
+        position += channel.write(data, position);
+      }
+      remaining -= read;
+    }
+  }
+
+  private static Set<Long> readJournal(Path journal, String version, Path temp) throws IOException {
+    Set<Long> completed = new HashSet<>();
+    if (!Files.exists(journal) || !Files.exists(temp)) {
+      return completed;
+    }
+    String content = new String(Files.readAllBytes(journal), StandardCharsets.UTF_8);
+    // 中断时可能只写入了半行，只使用以换行结尾的完整记录，对应分段会重新下载
+    String[] lines = content.substring(0, content.lastIndexOf('\n') + 1).split("\n");
+    if (lines.length == 0 || !lines[0].equals(version)) {
+      return completed;
+    }
+    for (int i = 1; i < lines.length; i++) {
+      completed.add(Long.parseLong(lines[i]));
+    }
+    return completed;
+  }
+
+  private static synchronized void appendJournal(Path journal, long index) throws IOException {
+    Files.write(journal, (index + "\n").getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+  }
+}
@@ -0,0 +1,290 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 客户端限流，发出请求前按配置限制每秒请求数及同时进行的请求数，发送和读取内容时限制每秒传输字节数。
+ * 启用自适应并发时按AIMD调整并发数：服务端返回429、503，请求超时或耗时明显高于基准时按比例减小，
+ * 请求正常完成时逐渐增加。并发数按发出请求到收到返回头计算，不包括读取返回内容的时间。线程安全
+ */
+public class RequestLimiter {
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  /**
+   * 减小并发数时乘以的比例
+   */
+  private static final double BACKOFF_RATIO = 0.7;
+
+  /**
+   * 近期平均耗时超过基准的倍数时视为服务端已过载
+   */
+  private static final double LATENCY_TOLERANCE = 2.0;
+
+  /**
+   * 发送内容超过该长度时耗时主要取决于内容长度，不用于判断是否过载
+   */
+  private static final long LATENCY_SAMPLE_MAX_BYTES = 64 * 1024;
+
+  private final TokenBucket requestBucket;
+  private final TokenBucket byteBucket;
+  private final boolean adaptive;
+  private final int minConcurrency;
+  private final int maxConcurrency;
+  private final FssMetricsListener listener;
+
+  /**
+   * 不使用synchronized，在虚拟线程中等待时不会占住载体线程
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = this.lock.newCondition();
+  private double limit;
+  private int inFlight;
+  private long baselineNanos;
+  private long smoothedNanos;
+  /**
+   * 上次减小并发数的时间。在此之前发出的请求返回过载时不再减小，避免同一批请求连续减小多次
+   */
+  private long lastDecrease;
+
+  private final AtomicLong throttledCount = new AtomicLong();
+  private final AtomicLong overloadCount = new AtomicLong();
+
+  RequestLimiter(MCFssClientConfig config) {
+    this.requestBucket = config.getMaxRequestsPerSecond() > 0
+        ? new TokenBucket(config.getMaxRequestsPerSecond(), config.getMaxRequestsPerSecond()) : null;
+    this.byteBucket = config.getMaxBytesPerSecond() > 0
+        ? new TokenBucket(config.getMaxBytesPerSecond(), config.getMaxBytesPerSecond()) : null;
+    this.adaptive = config.isAdaptiveConcurrency();
+    this.minConcurrency = Math.max(1, config.getMinConcurrency());
+    this.maxConcurrency = Math.max(this.minConcurrency, config.getMaxConcurrency());
+    this.limit = Math.max(this.minConcurrency, this.maxConcurrency / 2);
+    this.lastDecrease = System.nanoTime();
+    this.listener = config.getMetricsListener();
+    if (this.adaptive && this.listener != null) {
+      this.listener.concurrencyLimitChanged((int) this.limit);
+    }
+  }
+
+  /**
+   * @return 是否需要限流
+   */
+  static boolean isEnabled(MCFssClientConfig config) {
+    return config.getMaxRequestsPerSecond() > 0 || config.getMaxBytesPerSecond() > 0
+        || config.isAdaptiveConcurrency();
+  }
+
+  /**
+   * 发出请求前调用，超出限制时阻塞等待。返回后不论请求成功与否都必须调用{@link #release}
+   *
+   * @param bytesSent 发送的内容长度，未知时为0
+   */
+  void acquire(FssOperation operation, long bytesSent) throws InterruptedException {
+    long waitNanos = 0;
+    if (this.requestBucket != null) {
+      waitNanos += this.requestBucket.acquire(1);
+    }
+    if (this.byteBucket != null && bytesSent > 0) {
+      waitNanos += this.byteBucket.acquire(bytesSent);
+    }
+    if (this.adaptive) {
+      long start = 0;
+      this.lock.lockInterruptibly();
+      try {
+        while (this.inFlight >= (int) this.limit) {
+          if (start == 0) {
+            start = System.nanoTime();
+          }
+          this.available.await();
+        }
+        this.inFlight++;
+      } finally {
+        this.lock.unlock();
+      }
+      if (start != 0) {
+        waitNanos += System.nanoTime() - start;
+      }
+    }
+    this.recordThrottled(operation, waitNanos);
+  }
+
+  /**
+   * 按每秒字节数限流时，包装长度未知的请求内容，发送时按读出的字节取用令牌。长度已知的内容在{@link #acquire}中一次取用
+   */
+  void throttleRequest(FssOperation operation, HttpRequest request) {
+    if (this.byteBucket == null || !(request instanceof HttpEntityEnclosingRequest)) {
+      return;
+    }
+    HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+    HttpEntity entity = enclosing.getEntity();
+    if (entity != null && entity.getContentLength() < 0 && !ThrottledEntity.isThrottledBy(entity, this.byteBucket)) {
+      enclosing.setEntity(this.throttle(operation, entity));
+    }
+  }
+
+  /**
+   * 按每秒字节数限流时，包装返回内容，调用方读取时按读到的字节取用令牌
+   */
+  void throttleResponse(FssOperation operation, HttpResponse response) {
+    if (this.byteBucket != null && response.getEntity() != null) {
+      response.setEntity(this.throttle(operation, response.getEntity()));
+    }
+  }
+
+  private ThrottledEntity throttle(FssOperation operation, HttpEntity entity) {
+    return new ThrottledEntity(entity, this.byteBucket, waitNanos -> this.recordThrottled(operation, waitNanos));
+  }
+
+  /**
+   * 收到返回头或请求失败后调用
+   *
+   * @param startNanos 发出请求的时间
+   * @param statusCode 返回的状态码，没有收到返回时为0
+   * @param bytesSent  发送的内容长度，未知时为0
+   * @param error      请求失败时的异常
+   */
+  void release(FssOperation operation, long startNanos, int statusCode, long bytesSent, Throwable error) {
+    if (this.adaptive) {
+      int changed = -1;
+      this.lock.lock();
+      try {
+        this.inFlight--;
+        int before = (int) this.limit;
+        this.update(startNanos, statusCode, bytesSent, error);
+        if ((int) this.limit != before) {
+          changed = (int) this.limit;
+        }
+        this.available.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+      if (changed >= 0 && this.listener != null) {
+        this.listener.concurrencyLimitChanged(changed);
+      }
+    }
+  }
+
+  private void update(long startNanos, int statusCode, long bytesSent, Throwable error) {
+    long now = System.nanoTime();
+    boolean overloaded = statusCode == SC_TOO_MANY_REQUESTS || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+        || error instanceof SocketTimeoutException || error instanceof ConnectTimeoutException;
+    // 其他5xx及网络异常不能说明服务端是否过载，不调整并发数
+    boolean completed = statusCode > 0 && statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR && !overloaded;
+    if (completed && bytesSent <= LATENCY_SAMPLE_MAX_BYTES) {
+      long latency = now - startNanos;
+      // 单次耗时波动较大，使用近期的平均耗时判断
+      this.smoothedNanos = this.smoothedNanos == 0 ? latency : this.smoothedNanos + (latency - this.smoothedNanos) / 10;
+      // 基准耗时遇到更小的值时立即更新，否则缓慢增加，以适应服务端正常的耗时变化
+      if (this.baselineNanos == 0 || this.smoothedNanos < this.baselineNanos) {
+        this.baselineNanos = this.smoothedNanos;
+      } else {
+        this.baselineNanos += (this.smoothedNanos - this.baselineNanos) / 100;
+      }
+      overloaded = this.smoothedNanos > this.baselineNanos * LATENCY_TOLERANCE;
+    }
+
+    if (overloaded) {
+      this.overloadCount.incrementAndGet();
+      if (startNanos - this.lastDecrease > 0) {
+        this.limit = Math.max(this.minConcurrency, this.limit * BACKOFF_RATIO);
+        this.lastDecrease = now;
+      }
+    } else if (completed && this.inFlight + 1 >= (int) this.limit / 2) {
+      // 每完成约limit个请求增加1；并发远未用满时增加没有意义
+      this.limit = Math.min(this.maxConcurrency, this.limit + 1 / this.limit);
+    }
+  }
+
+  private void recordThrottled(FssOperation operation, long waitNanos) {
+    if (waitNanos <= 0) {
+      return;
+    }
+    this.throttledCount.incrementAndGet();
+    if (this.listener != null) {
+      this.listener.throttled(operation, waitNanos);
+    }
+  }
+
+  /**
+   * @return 当前允许同时进行的请求数，未启用自适应并发时为-1
+   */
+  public int getConcurrencyLimit() {
+    if (!this.adaptive) {
+      return -1;
+    }
+    this.lock.lock();
+    try {
+      return (int) this.limit;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return 正在进行的请求数，未启用自适应并发时为0
+   */
+  public int getInFlight() {
+    this.lock.lock();
+    try {
+      return this.inFlight;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return 基准耗时(微秒)，没有样本时为0
+   */
+  public long getBaselineLatencyMicros() {
+    this.lock.lock();
+    try {
+      return TimeUnit.NANOSECONDS.toMicros(this.baselineNanos);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return 近期平均耗时(微秒)，没有样本时为0
+   */
+  public long getLatencyMicros() {
+    this.lock.lock();
+    try {
+      return TimeUnit.NANOSECONDS.toMicros(this.smoothedNanos);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return 因限流等待过的次数
+   */
+  public long getThrottledCount() {
+    return this.throttledCount.get();
+  }
+
+  /**
+   * @return 判断为服务端过载的请求数
+   */
+  public long getOverloadCount() {
+    return this.overloadCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return "concurrency limit " + this.getConcurrencyLimit() + ", in flight " + this.getInFlight()
+        + ", latency " + this.getLatencyMicros() + "us, baseline " + this.getBaselineLatencyMicros()
+        + "us, throttled " + this.getThrottledCount() + ", overload " + this.getOverloadCount();
+  }
+}
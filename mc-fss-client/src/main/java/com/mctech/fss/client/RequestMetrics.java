@@ -0,0 +1,55 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import com.mctech.fss.client.metrics.RequestEvent;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+
+/**
+ * 把请求结果转换为{@link RequestEvent}通知给监听
+ */
+final class RequestMetrics {
+  private RequestMetrics() {
+  }
+
+  static void requestCompleted(FssMetricsListener listener, FssOperation operation, HttpRequest request,
+                               HttpResponse response, Throwable error, long startNanos) {
+    long duration = System.nanoTime() - startNanos;
+    int statusCode = response != null ? response.getStatusLine().getStatusCode() : 0;
+    String errorCode = null;
+    if (error instanceof MCTechFssRequestException) {
+      FssClientError fssError = ((MCTechFssRequestException) error).getError();
+      errorCode = fssError != null ? fssError.getCode() : null;
+      if (errorCode == null) {
+        errorCode = String.valueOf(statusCode);
+      }
+    } else if (error != null) {
+      errorCode = error.getClass().getSimpleName();
+    }
+    long sent = bytesSent(request);
+    long received = bytesReceived(response);
+    listener.requestCompleted(new RequestEvent(operation, statusCode, errorCode, duration, sent, received, error));
+  }
+
+  /**
+   * @return 请求内容的长度，未知时为0
+   */
+  static long bytesSent(HttpRequest request) {
+    return request instanceof HttpEntityEnclosingRequest
+        ? lengthOf(((HttpEntityEnclosingRequest) request).getEntity()) : 0;
+  }
+
+  /**
+   * @return 返回头中的内容长度，未知时为0
+   */
+  static long bytesReceived(HttpResponse response) {
+    return response != null ? lengthOf(response.getEntity()) : 0;
+  }
+
+  private static long lengthOf(HttpEntity entity) {
+    return entity != null ? Math.max(0, entity.getContentLength()) : 0;
+  }
+}
@@ -3,28 +3,40 @@ package com.mctech.fss.client;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.mctech.fss.client.exception.MCTechFssRequestException;
-import lombok.SneakyThrows;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.util.EntityUtils;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class RequestResult implements Closeable {
-  private final CloseableHttpResponse response;
-  private final Map<String, String> headers;
+  private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+
+  private final HttpResponse response;
 
   private final int statusCode;
 
+  private ResponseHeaders responseHeaders;
+  private Map<String, String> headers;
+  /**
+   * 校验返回内容的包装通过该对象设置结果，不直接引用RequestResult，未关闭的结果仍可被回收并检测到泄漏
+   */
+  private final AtomicReference<ContentChecksum> contentChecksum = new AtomicReference<>();
+  private volatile ResultLeakDetector.Tracker tracker;
+
   /**
    * @return 返回结果状态码
    */
@@ -33,25 +45,138 @@ public class RequestResult implements Closeable {
   }
 
   /**
-   * 返回结果状态码
+   * 返回头，名称不区分大小写，同名的多个值用逗号连接。第一次调用时生成
    */
   public Map<String, String> getHeaders() {
+    if (this.headers == null) {
+      this.headers = this.getResponseHeaders().toMap();
+    }
     return headers;
   }
 
   /**
-   * @return 以字符串方式获取返回的文本内容
+   * @return 返回头的只读视图，只读取个别返回头时比{@link #getHeaders()}开销更小
+   */
+  public ResponseHeaders getResponseHeaders() {
+    if (this.responseHeaders == null) {
+      this.responseHeaders = new ResponseHeaders(this.response.getAllHeaders());
+    }
+    return this.responseHeaders;
+  }
+
+  /**
+   * @param name 名称，不区分大小写
+   * @return 指定名称的第一个返回头的值，不存在时返回null
+   */
+  public String getHeader(String name) {
+    Header header = this.response.getFirstHeader(name);
+    return header != null ? header.getValue() : null;
+  }
+
+  /**
+   * @return 以字符串方式获取返回的文本内容，按返回的字符集解码，未声明时按UTF-8解码。读取后释放连接
    */
   public String getContent() throws IOException {
-    HttpEntity entity = this.response.getEntity();
-    StringBuilder builder = new StringBuilder();
-    try (BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent()))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        builder.append(line);
+    try {
+      HttpEntity entity = this.response.getEntity();
+      if (entity == null) {
+        return "";
+      }
+      return EntityUtils.toString(entity, StandardCharsets.UTF_8);
+    } finally {
+      this.close();
+    }
+  }
+
+  /**
+   * @return 读取返回的全部内容。返回头中有Content-Length时按该长度一次分配缓冲区。读取后释放连接
+   */
+  public byte[] readAllBytes() throws IOException {
+    try {
+      HttpEntity entity = this.response.getEntity();
+      if (entity == null) {
+        return new byte[0];
+      }
+      long length = entity.getContentLength();
+      if (length > Integer.MAX_VALUE - 8) {
+        throw new IOException("返回内容过大，无法读入内存: " + length);
+      }
+      try (InputStream in = entity.getContent()) {
+        if (in == null) {
+          return new byte[0];
+        }
+        if (length < 0) {
+          return EntityUtils.toByteArray(entity);
+        }
+        byte[] data = new byte[(int) length];
+        int offset = 0;
+        while (offset < data.length) {
+          int read = in.read(data, offset, data.length - offset);
+          if (read < 0) {
+            throw new IOException("返回内容长度小于预期");
+          }
+          offset += read;
+        }
+        return data;
+      }
+    } finally {
+      this.close();
+    }
+  }
+
+  /**
+   * 把返回的内容写入文件，文件已存在时覆盖。写入后释放连接
+   *
+   * @return 写入的字节数
+   */
+  public long writeTo(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      return this.transferTo(channel);
+    } finally {
+      this.close();
+    }
+  }
+
+  /**
+   * 把返回的内容写入通道，不关闭通道。写入后释放连接
+   *
+   * @return 写入的字节数
+   */
+  public long transferTo(WritableByteChannel channel) throws IOException {
+    try {
+      HttpEntity entity = this.response.getEntity();
+      if (entity == null) {
+        return 0;
+      }
+      try (InputStream in = entity.getContent()) {
+        return in == null ? 0 : transfer(in, channel, Long.MAX_VALUE);
+      }
+    } finally {
+      this.close();
+    }
+  }
+
+  /**
+   * 从流中读取最多length个字节写入通道
+   *
+   * @return 实际写入的字节数
+   */
+  static long transfer(InputStream in, WritableByteChannel channel, long length) throws IOException {
+    byte[] buffer = new byte[(int) Math.min(TRANSFER_BUFFER_SIZE, Math.max(1, length))];
+    long total = 0;
+    while (total < length) {
+      int read = in.read(buffer, 0, (int) Math.min(buffer.length, length - total));
+      if (read < 0) {
+        break;
       }
+      ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+      while (data.hasRemaining()) {
+        channel.write(data);
+      }
+      total += read;
     }
-    return builder.toString();
+    return total;
   }
 
   public JSON getJsonObject() throws IOException {
@@ -90,7 +215,7 @@ public class RequestResult implements Closeable {
     return this.contentType;
   }
 
-  RequestResult(CloseableHttpResponse response) throws MCTechFssRequestException {
+  RequestResult(HttpResponse response) throws MCTechFssRequestException, IOException {
     this.response = response;
     HttpEntity entity = response.getEntity();
     if(entity != null) {
@@ -100,39 +225,113 @@ public class RequestResult implements Closeable {
       }
     }
 
-    this.headers = new HashMap<>();
-    for (Header header : response.getAllHeaders()) {
-      this.headers.put(header.getName(), header.getValue());
-    }
-
     this.statusCode = response.getStatusLine().getStatusCode();
 
     if (this.statusCode >= HttpStatus.SC_BAD_REQUEST) {
-      FssClientError error = createError(response);
-      String message = error.getMessage();
-      throw new MCTechFssRequestException(message, error);
+      FssClientError error;
+      try {
+        error = ErrorParser.parse(response);
+      } finally {
+        // 错误信息已读取，立即释放连接
+        this.close();
+      }
+      throw ErrorParser.toException(error, this.statusCode);
+    }
+  }
+
+  /**
+   * 启用{@link MCFssClientConfig#isChecksumEnabled()}时，上传请求为发送内容的校验值；
+   * 下载请求为返回内容的校验值，读完全部内容后才有值
+   *
+   * @return 内容的MD5和CRC32C，未计算时为null
+   */
+  public ContentChecksum getContentChecksum() {
+    return this.contentChecksum.get();
+  }
+
+  void setContentChecksum(ContentChecksum contentChecksum) {
+    this.contentChecksum.set(contentChecksum);
+  }
+
+  /**
+   * 读取返回内容的同时计算校验值，读完后与meta信息中的MD5或ETag比较，不一致时读取操作抛出
+   * {@link com.mctech.fss.client.exception.ChecksumMismatchException}
+   */
+  void verifyChecksum() {
+    HttpEntity entity = this.response.getEntity();
+    if (entity == null) {
+      return;
     }
+    ResponseHeaders headers = this.getResponseHeaders();
+    String md5 = headers.getMeta().get(ContentChecksum.META_MD5);
+    String expected = md5 != null ? md5 : ContentChecksum.md5FromETag(headers.getETag());
+    this.response.setEntity(new VerifyingEntity(entity, expected, this.contentChecksum::set));
+  }
+
+  /**
+   * @return 根据head请求的结果生成文件的meta信息
+   */
+  ObjectMeta toObjectMeta() {
+    return new ObjectMeta(this.getResponseHeaders(), this.statusCode);
+  }
+
+  /**
+   * 读完并丢弃剩余的返回内容后关闭，连接可以放回连接池继续使用。只用于返回内容很少的请求
+   */
+  void release() throws IOException {
+    try {
+      EntityUtils.consume(this.response.getEntity());
+    } finally {
+      this.close();
+    }
+  }
+
+  void track(ResultLeakDetector detector) {
+    this.tracker = detector.track(this, this.response instanceof Closeable ? (Closeable) this.response : null);
   }
 
   public void close() throws IOException {
-    this.response.close();
+    ResultLeakDetector.Tracker tracker = this.tracker;
+    if (tracker != null) {
+      this.tracker = null;
+      tracker.release();
+    }
+    if (this.response instanceof Closeable) {
+      ((Closeable) this.response).close();
+    } else {
+      // 异步客户端返回的结果已全部读入内存，没有需要释放的连接
+      EntityUtils.consume(this.response.getEntity());
+    }
   }
 
-  @SneakyThrows
-  private static FssClientError createError(CloseableHttpResponse response) {
-    DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-    DocumentBuilder db = dbf.newDocumentBuilder();
-    Document document = db.parse(response.getEntity().getContent());
-    NodeList items = document.getDocumentElement().getChildNodes();
+  /**
+   * 读取的同时计算校验值的返回内容。使用静态类，不引用RequestResult
+   */
+  private static final class VerifyingEntity extends HttpEntityWrapper {
+    private final String expectedMd5;
+    private final Consumer<ContentChecksum> completed;
 
-    Map<String, String> map = new HashMap<>();
-    for (int i = 0; i < items.getLength(); i++) {
-      Node item = items.item(i);
-      String name = item.getNodeName();
-      String value = item.getTextContent();
-      map.put(name, value);
+    VerifyingEntity(HttpEntity entity, String expectedMd5, Consumer<ContentChecksum> completed) {
+      super(entity);
+      this.expectedMd5 = expectedMd5;
+      this.completed = completed;
     }
 
-    return new FssClientError(map);
+    @Override
+    public InputStream getContent() throws IOException {
+      InputStream in = super.getContent();
+      return in == null ? null : new ChecksumInputStream(in, this.expectedMd5, this.getContentLength(), this.completed);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      try (InputStream in = this.getContent()) {
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          out.write(buffer, 0, read);
+        }
+      }
+    }
   }
 }
@@ -0,0 +1,328 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.apache.commons.lang.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.message.BasicHeader;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 同步与异步客户端共用的签名及地址生成逻辑
+ */
+@Getter
+class RequestSigner {
+  /**
+   * 批量生成签名地址时，超过该数量后使用多个线程并行签名
+   */
+  private static final int PARALLEL_THRESHOLD = 1024;
+
+  private final MCFssClientConfig config;
+  private final URI defaultEndpoint;
+  private final URI publicEndPoint;
+  private final Signer signer;
+
+  /**
+   * 已编码的外网地址前缀，以/结尾。外网地址包含查询参数或片段时为null
+   */
+  @Getter(AccessLevel.NONE)
+  private final String publicUrlPrefix;
+
+  /**
+   * 已编码的请求地址前缀，以/结尾。地址包含查询参数或片段时为null
+   */
+  @Getter(AccessLevel.NONE)
+  private final String defaultUrlPrefix;
+
+  /**
+   * 签名资源路径的前缀，格式为 /{bucketName}/
+   */
+  @Getter(AccessLevel.NONE)
+  private final String resourcePrefix;
+
+  /**
+   * 请求地址中资源路径的前缀，格式为 {bucketName}/
+   */
+  @Getter(AccessLevel.NONE)
+  private final String pathPrefix;
+
+  /**
+   * 未启用签名地址缓存时为null
+   */
+  private final SignedUrlCache signedUrlCache;
+
+  @SneakyThrows
+  RequestSigner(MCFssClientConfig config) {
+    this.config = config;
+    this.signer = new Signer(config);
+    this.publicEndPoint = new URI(config.getPublicEndPoint());
+    this.defaultEndpoint = config.isInternal()
+        ? new URI(config.getPrivateEndPoint())
+        : this.publicEndPoint;
+    this.publicUrlPrefix = urlPrefix(this.publicEndPoint, true);
+    this.defaultUrlPrefix = urlPrefix(this.defaultEndpoint, false);
+    this.pathPrefix = config.getBucketName() + "/";
+    this.resourcePrefix = "/" + this.pathPrefix;
+    this.signedUrlCache = config.getSignedUrlCacheSize() > 0
+        ? new SignedUrlCache(config.getSignedUrlCacheSize(), config.getSignedUrlCacheMinRemainingSeconds())
+        : null;
+  }
+
+  private String urlPrefix(URI endPoint, boolean usePublic) {
+    return endPoint.getRawQuery() == null && endPoint.getRawFragment() == null
+        ? createUriBuilder("", usePublic).toString()
+        : null;
+  }
+
+  String generateObjectUrl(String key) {
+    String path = this.getResourcePath(key, false);
+    if (this.defaultUrlPrefix != null) {
+      return UriEncoder.appendPath(new StringBuilder(this.defaultUrlPrefix), path).toString();
+    }
+    URIBuilder builder = createUriBuilder(path, false);
+    return builder.toString();
+  }
+
+  private URIBuilder createUriBuilder(String resourcePath, boolean usePublic) {
+    URI endPoint = usePublic ? this.publicEndPoint : this.defaultEndpoint;
+    URIBuilder builder = new URIBuilder(endPoint);
+    String basePath = builder.getPath();
+    String absolutePath;
+    if (basePath.endsWith("/")) {
+      absolutePath = basePath + resourcePath;
+    } else {
+      absolutePath = basePath + "/" + resourcePath;
+    }
+    builder.setPath(absolutePath);
+    return builder;
+  }
+
+  String getSignatureUrl(String key, SignatureOption option) {
+    if (this.signedUrlCache != null) {
+      return this.signedUrlCache.get(key, option, () -> this.createSignatureUrl(key, option));
+    }
+    return this.createSignatureUrl(key, option);
+  }
+
+  private String createSignatureUrl(String key, SignatureOption option) {
+    String resource = this.getResourcePath(key, true);
+    SignedResource sign = this.signatureResource(resource, option);
+
+    // 默认为给外部使用，所以指定用外网地址
+    String path = this.getResourcePath(key, false);
+    URIBuilder builder = createUriBuilder(path, true);
+    builder.addParameter(HttpConsts.ACCESS_KEY_ID, this.config.getAccessKeyId());
+    builder.addParameter(HttpConsts.EXPIRES, Long.toString(sign.getExpires()));
+    builder.addParameter(HttpConsts.SIGNATURE, sign.getSignature());
+
+    for (Map.Entry<String, String> entry : sign.getSubResource().entrySet()) {
+      builder.addParameter(entry.getKey(), entry.getValue());
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * 使用相同的签名选项批量生成签名地址。地址前缀与查询参数只生成一次，数量较多时并行签名
+   *
+   * @return key与签名地址的对应关系，顺序与keys一致
+   */
+  Map<String, String> getSignatureUrls(Collection<String> keys, SignatureOption option) {
+    String[] keyArray = keys.toArray(new String[0]);
+    String[] urls = new String[keyArray.length];
+    IntConsumer action;
+    if (this.publicUrlPrefix == null || StringUtils.isEmpty(this.config.getBucketName())) {
+      action = i -> urls[i] = this.getSignatureUrl(keyArray[i], option);
+    } else {
+      if (option.getAbsoluteExpires() == null) {
+        throw new IllegalArgumentException("生成签名地址必须设置expires");
+      }
+      StringBuilder query = new StringBuilder("?");
+      appendParameter(query, HttpConsts.ACCESS_KEY_ID, this.config.getAccessKeyId()).append('&');
+      appendParameter(query, HttpConsts.EXPIRES, option.getAbsoluteExpires().toString()).append('&');
+      UriEncoder.appendQueryComponent(query, HttpConsts.SIGNATURE).append('=');
+      String queryPrefix = query.toString();
+
+      StringBuilder suffix = new StringBuilder();
+      for (Map.Entry<String, String> entry : SignUtility.buildSubResource(option).entrySet()) {
+        appendParameter(suffix.append('&'), entry.getKey(), entry.getValue());
+      }
+      String querySuffix = suffix.toString();
+
+      IntConsumer create = i -> {
+        String key = keyArray[i];
+        String signature = this.signer.signCanonical(this.getResourcePath(key, true), option);
+        StringBuilder url = new StringBuilder(this.publicUrlPrefix.length() + key.length() + 128);
+        url.append(this.publicUrlPrefix);
+        UriEncoder.appendPath(url, this.getResourcePath(key, false));
+        url.append(queryPrefix);
+        UriEncoder.appendQueryComponent(url, signature);
+        url.append(querySuffix);
+        urls[i] = url.toString();
+      };
+      if (this.signedUrlCache == null) {
+        action = create;
+      } else {
+        action = i -> urls[i] = this.signedUrlCache.get(keyArray[i], option, () -> {
+          create.accept(i);
+          return urls[i];
+        });
+      }
+    }
+
+    if (keyArray.length >= PARALLEL_THRESHOLD) {
+      IntStream.range(0, keyArray.length).parallel().forEach(action);
+    } else {
+      for (int i = 0; i < keyArray.length; i++) {
+        action.accept(i);
+      }
+    }
+
+    Map<String, String> result = new LinkedHashMap<>(keyArray.length * 4 / 3 + 1);
+    for (int i = 0; i < keyArray.length; i++) {
+      result.put(keyArray[i], urls[i]);
+    }
+    return result;
+  }
+
+  private static StringBuilder appendParameter(StringBuilder builder, String name, String value) {
+    UriEncoder.appendQueryComponent(builder, name).append('=');
+    return UriEncoder.appendQueryComponent(builder, value);
+  }
+
+  /**
+   * 把签名数据设置到要发送的请求上
+   */
+  static void applyTo(SignedData data, HttpRequestBase request) {
+    request.setURI(data.getTargetUrl());
+    request.setHeader(new BasicHeader(HttpHeaders.ACCEPT, "application/json, application/xml"));
+    request.setHeader(new BasicHeader(HttpHeaders.ACCEPT_LANGUAGE, "zh-CN"));
+
+
+    for (Map.Entry<String, String> entry : data.getHeaders().entrySet()) {
+      request.setHeader(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * 使用header传递签名方式生成签名数据
+   *
+   * @param option -
+   */
+  SignedData generateSignedData(SignDataOption option) {
+    FssMetricsListener listener = this.config.getMetricsListener();
+    if (listener == null) {
+      return this.createSignedData(option);
+    }
+    long start = System.nanoTime();
+    SignedData data = this.createSignedData(option);
+    listener.signed(option.getMethod(), System.nanoTime() - start);
+    return data;
+  }
+
+  @SneakyThrows
+  private SignedData createSignedData(SignDataOption option) {
+    FssOperation method = option.getMethod();
+    String key = option.getKey();
+    Map<String, String> metadata = option.getMetadata();
+    Map<String, String> headers = new HashMap<>(metadata != null ? metadata.size() * 2 + 8 : 8);
+    if (metadata != null) {
+      for (Map.Entry<String, String> entry : metadata.entrySet()) {
+        // 全部转换为小写
+        String lowerName = entry.getKey().toLowerCase();
+        headers.put(lowerName, entry.getValue());
+      }
+    }
+
+    HttpDateCache.Entry now = HttpDateCache.now();
+    SignatureOption opts = new SignatureOption(method, option.getContentType(), option.getContentMd5());
+    opts.setDate(now.getDate(), now.getFormatted());
+    opts.setMetadata(metadata);
+    // 请求签名不使用process、response等子资源，直接计算签名
+    String signature = this.signer.signCanonical(this.resourcePrefix + key, opts);
+    headers.put(HttpHeaders.AUTHORIZATION, "FSS " + this.signer.getAccessKeyId() + ":" + signature);
+
+    String path = this.getResourcePath(key, false);
+    URI targetUrl;
+    if (this.defaultUrlPrefix != null) {
+      // 拼成服务端需要的地址，编码结果与URIBuilder一致
+      StringBuilder url = new StringBuilder(this.defaultUrlPrefix.length() + path.length() + 64);
+      UriEncoder.appendPath(url.append(this.defaultUrlPrefix), path);
+      if (option.getParameters() != null) {
+        char separator = '?';
+        for (Map.Entry<String, String> entry : option.getParameters().entrySet()) {
+          appendParameter(url.append(separator), entry.getKey(), entry.getValue());
+          separator = '&';
+        }
+      }
+      targetUrl = new URI(url.toString());
+    } else {
+      URIBuilder builder = createUriBuilder(path, false);
+      if (option.getParameters() != null) {
+        for (Map.Entry<String, String> entry : option.getParameters().entrySet()) {
+          builder.addParameter(entry.getKey(), entry.getValue());
+        }
+      }
+      targetUrl = builder.build();
+    }
+    headers.put(HttpHeaders.ACCEPT, "application/xml,*/*");
+    headers.put(HttpHeaders.DATE, now.getFormatted());
+    if (option.getContentMd5() != null) {
+      headers.put(HttpConsts.CONTENT_MD5, option.getContentMd5());
+    }
+    SignedData data = new SignedData();
+    data.setTargetUrl(targetUrl);
+    data.setMethod(option.getMethod());
+    data.setHeaders(headers);
+    data.setResource(path);
+    return data;
+  }
+
+  private String getResourcePath(String key, boolean addPrefix) {
+    if (addPrefix) {
+      return this.resourcePrefix + key;
+    }
+    return this.pathPrefix + key;
+  }
+
+  private SignedResource signatureResource(String resource, SignatureOption option) {
+    return this.signer.signResource(resource, option);
+  }
+
+  /**
+   * 把用户传入的meta信息转换为服务端需要的x-fss-meta-前缀格式
+   */
+  static Map<String, String> toFssMetadata(Map<String, String> metadata) {
+    Map<String, String> fssMetadata = new HashMap<>();
+    if (metadata != null) {
+      for (Map.Entry<String, String> entry : metadata.entrySet()) {
+        String fssKey = HttpConsts.FSS_META_HEADER_PREFIX + entry.getKey();
+        fssMetadata.put(fssKey, entry.getValue());
+      }
+    }
+    return fssMetadata;
+  }
+
+  /**
+   * @return 上传时使用的content-disposition头
+   */
+  @SneakyThrows
+  static String contentDisposition(String key, String fileName) {
+    String rawName = fileName != null ?
+        new File(fileName).getName() : new File(key).getName();
+    return "attachment;filename=" + URLEncoder.encode(rawName, "UTF-8");
+  }
+}
@@ -0,0 +1,126 @@
+package com.mctech.fss.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 返回头的只读视图。名称不区分大小写，同名的多个返回头都会保留。
+ * 只在第一次使用时才生成Map形式的结果，HEAD等只读取个别返回头的场景不产生额外的对象
+ */
+public class ResponseHeaders {
+  private static final int META_PREFIX_LENGTH = HttpConsts.FSS_META_HEADER_PREFIX.length();
+
+  private final Header[] headers;
+
+  private volatile Map<String, String> meta;
+
+  ResponseHeaders(Header[] headers) {
+    this.headers = headers;
+  }
+
+  /**
+   * @param name 名称，不区分大小写
+   * @return 指定名称的第一个返回头的值，不存在时返回null
+   */
+  public String get(String name) {
+    for (Header header : this.headers) {
+      if (header.getName().equalsIgnoreCase(name)) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param name 名称，不区分大小写
+   * @return 指定名称的所有返回头的值，按返回的顺序排列
+   */
+  public List<String> getAll(String name) {
+    List<String> values = new ArrayList<>(1);
+    for (Header header : this.headers) {
+      if (header.getName().equalsIgnoreCase(name)) {
+        values.add(header.getValue());
+      }
+    }
+    return values;
+  }
+
+  public boolean contains(String name) {
+    return this.get(name) != null;
+  }
+
+  /**
+   * @return Content-Length的值，不存在或无法解析时返回-1
+   */
+  public long getContentLength() {
+    String value = this.get(HttpHeaders.CONTENT_LENGTH);
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  public String getETag() {
+    return this.get(HttpHeaders.ETAG);
+  }
+
+  /**
+   * @return Last-Modified的值，不存在或无法解析时返回null
+   */
+  public Date getLastModified() {
+    String value = this.get(HttpHeaders.LAST_MODIFIED);
+    return value != null ? DateUtils.parseDate(value) : null;
+  }
+
+  public String getContentType() {
+    return this.get(HttpHeaders.CONTENT_TYPE);
+  }
+
+  /**
+   * @return 文件附加的meta信息，即去掉x-fss-meta-前缀后的返回头。名称不区分大小写，结果只读
+   */
+  public Map<String, String> getMeta() {
+    Map<String, String> result = this.meta;
+    if (result == null) {
+      Map<String, String> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (Header header : this.headers) {
+        String name = header.getName();
+        if (name.regionMatches(true, 0, HttpConsts.FSS_META_HEADER_PREFIX, 0, META_PREFIX_LENGTH)) {
+          map.merge(name.substring(META_PREFIX_LENGTH), header.getValue(), ResponseHeaders::join);
+        }
+      }
+      result = Collections.unmodifiableMap(map);
+      this.meta = result;
+    }
+    return result;
+  }
+
+  /**
+   * 生成Map形式的返回头。名称不区分大小写，同名的多个值用逗号连接
+   *
+   * @return 每次调用都返回新的可修改的Map
+   */
+  public Map<String, String> toMap() {
+    Map<String, String> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Header header : this.headers) {
+      map.merge(header.getName(), header.getValue(), ResponseHeaders::join);
+    }
+    return map;
+  }
+
+  private static String join(String first, String second) {
+    return first + ", " + second;
+  }
+}
@@ -0,0 +1,103 @@
+package com.mctech.fss.client;
+
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 检测未关闭的RequestResult。记录每个结果的创建位置，结果未关闭就被回收时输出其创建位置，
+ * 并关闭其占用的返回结果，使连接回到连接池。记录调用栈的开销较大，只用于排查连接泄漏
+ */
+class ResultLeakDetector {
+  private static final Logger LOGGER = Logger.getLogger(ResultLeakDetector.class);
+
+  private final ReferenceQueue<RequestResult> queue = new ReferenceQueue<>();
+  private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong leaked = new AtomicLong();
+
+  /**
+   * @param resource 结果未关闭就被回收时关闭的资源，可为null。不能引用result，否则result不会被回收
+   */
+  Tracker track(RequestResult result, Closeable resource) {
+    this.poll();
+    Tracker tracker = new Tracker(result, resource, new Throwable("RequestResult创建位置"));
+    this.trackers.add(tracker);
+    return tracker;
+  }
+
+  /**
+   * 检查已被回收的结果，未关闭的按泄漏处理
+   */
+  void poll() {
+    Reference<? extends RequestResult> reference;
+    while ((reference = this.queue.poll()) != null) {
+      Tracker tracker = (Tracker) reference;
+      if (this.trackers.remove(tracker)) {
+        this.leaked.incrementAndGet();
+        LOGGER.error("RequestResult未关闭就被回收，已关闭其占用的连接", tracker.allocation);
+        tracker.closeResource();
+      }
+    }
+  }
+
+  /**
+   * @return 已发现的泄漏数量
+   */
+  long getLeakedCount() {
+    this.poll();
+    return this.leaked.get();
+  }
+
+  /**
+   * @return 尚未关闭的结果的创建位置
+   */
+  List<Throwable> unreleased() {
+    this.poll();
+    List<Throwable> allocations = new ArrayList<>();
+    for (Tracker tracker : this.trackers) {
+      allocations.add(tracker.allocation);
+    }
+    return allocations;
+  }
+
+  final class Tracker extends PhantomReference<RequestResult> {
+    private final Throwable allocation;
+    private volatile Closeable resource;
+
+    private Tracker(RequestResult result, Closeable resource, Throwable allocation) {
+      super(result, queue);
+      this.resource = resource;
+      this.allocation = allocation;
+    }
+
+    /**
+     * 结果已关闭，不再跟踪
+     */
+    void release() {
+      trackers.remove(this);
+      this.resource = null;
+      this.clear();
+    }
+
+    private void closeResource() {
+      Closeable resource = this.resource;
+      this.resource = null;
+      if (resource != null) {
+        try {
+          resource.close();
+        } catch (IOException | RuntimeException e) {
+          LOGGER.warn("关闭泄漏的返回结果失败", e);
+        }
+      }
+    }
+  }
+}
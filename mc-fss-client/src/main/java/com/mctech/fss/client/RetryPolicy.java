@@ -0,0 +1,20 @@
+package com.mctech.fss.client;
+
+/**
+ * 请求失败后的重试策略。只有幂等的请求(GET、HEAD、DELETE及内容可重复发送的PUT)才会询问是否重试，
+ * 每次重试都会重新签名
+ */
+public interface RetryPolicy {
+  /**
+   * 不重试
+   */
+  RetryPolicy NONE = (method, attempt, error) -> -1;
+
+  /**
+   * @param method  请求方法
+   * @param attempt 已失败的次数，从1开始
+   * @param error   本次失败的异常
+   * @return 重试前等待的时间(毫秒)，小于0时不再重试
+   */
+  long retryDelay(FssOperation method, int attempt, Throwable error);
+}
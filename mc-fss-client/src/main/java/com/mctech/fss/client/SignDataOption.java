@@ -1,5 +1,6 @@
 package com.mctech.fss.client;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,5 +12,23 @@ public class SignDataOption {
   private FssOperation method;
   private String key;
   private String contentType;
+
+  /**
+   * 请求内容MD5的Base64编码，设置后参与签名并作为Content-MD5头发送。可为null
+   */
+  private String contentMd5;
   private Map<String, String> metadata;
+
+  /**
+   * 附加到请求地址上的查询参数，不参与签名。可为null
+   */
+  private Map<String, String> parameters;
+
+  /**
+   * 本次请求使用的重试策略，为null时使用{@link MCFssClientConfig#getRetryPolicy()}。
+   * 分片上传等自行重试的请求设置为{@link RetryPolicy#NONE}，避免重试次数叠加
+   */
+  @Getter(AccessLevel.PACKAGE)
+  @Setter(AccessLevel.PACKAGE)
+  private RetryPolicy retryPolicy;
 }
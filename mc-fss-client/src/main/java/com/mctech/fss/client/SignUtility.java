@@ -9,6 +9,26 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class SignUtility {
+  /**
+   * java.net.URI允许在路径中直接出现的ASCII字符(不含用于转义的'%')
+   */
+  private static final BitSet PLAIN_PATH_CHARS = new BitSet(128);
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      PLAIN_PATH_CHARS.set(c);
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      PLAIN_PATH_CHARS.set(c);
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      PLAIN_PATH_CHARS.set(c);
+    }
+    for (char c : "-_.!~*'()/;:@&=+$,".toCharArray()) {
+      PLAIN_PATH_CHARS.set(c);
+    }
+  }
+
   public static Map<String, String> buildSubResource(SignatureOption option) {
     Map<String, String> subResource = new HashMap<>();
     if (StringUtils.isNotBlank(option.getProcess())) {
@@ -27,7 +47,7 @@ public class SignUtility {
       String resource, SignatureOption option, Map<String, String> subResource) {
     List<String> itemsToSign = new ArrayList<>();
     itemsToSign.add(option.getMethod().name());
-    itemsToSign.add(""); // MD5
+    itemsToSign.add(option.getContentMd5());
     itemsToSign.add(option.getContentType());
 
     if (option.getAbsoluteExpires() != null) {
@@ -54,6 +74,79 @@ public class SignUtility {
     return StringUtils.join(itemsToSign, "\n");
   }
 
+  /**
+   * 把待签名字符串以UTF-8编码直接写入缓冲区，不生成中间对象。
+   * 写入的字节与{@link #buildCanonicalString}的结果按UTF-8编码后完全一致
+   */
+  static void writeCanonicalString(CanonicalStringWriter writer, String resource, SignatureOption option) {
+    writer.append(option.getMethod().name()).newLine();
+    writer.append(option.getContentMd5()).newLine();
+    writer.append(option.getContentType()).newLine();
+
+    if (option.getAbsoluteExpires() != null) {
+      writer.append(option.getAbsoluteExpires().toString());
+    } else {
+      writer.append(option.getFormatedDate());
+    }
+
+    Map<String, String> headers = option.getMetadata();
+    if (headers != null && !headers.isEmpty()) {
+      String[] keys = new String[headers.size()];
+      int count = 0;
+      for (String key : headers.keySet()) {
+        if (startsWithFssPrefix(key)) {
+          keys[count++] = key;
+        }
+      }
+      Arrays.sort(keys, 0, count);
+      for (int i = 0; i < count; i++) {
+        writer.newLine().append(keys[i]).append(':').append(String.valueOf(headers.get(keys[i])));
+      }
+    }
+
+    // Add canonical resource
+    writer.newLine();
+    if (isPlainResource(resource)) {
+      writer.append(resource);
+    } else {
+      writer.append(buildCanonicalizedResource(resource, null));
+    }
+  }
+
+  private static boolean startsWithFssPrefix(String key) {
+    String prefix = HttpConsts.FSS_PREFIX;
+    if (key.length() < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (Character.toLowerCase(key.charAt(i)) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 不含查询参数、片段以及需要转义的字符时，URIBuilder解析后再输出的结果与原始资源路径相同，不需要再解析一次
+   */
+  private static boolean isPlainResource(String resource) {
+    int count = resource.length();
+    if (count == 0 || (count > 1 && resource.charAt(0) == '/' && resource.charAt(1) == '/')) {
+      return false;
+    }
+    for (int i = 0; i < count; i++) {
+      char c = resource.charAt(i);
+      if (c < 0x80) {
+        if (!PLAIN_PATH_CHARS.get(c)) {
+          return false;
+        }
+      } else if (Character.isISOControl(c) || Character.isSpaceChar(c) || Character.isSurrogate(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @SneakyThrows
   private static String buildCanonicalizedResource(String canonicalizedResource, Map<String, String> subResource) {
     URIBuilder urlBuilder = new URIBuilder(canonicalizedResource);
@@ -1,5 +1,6 @@
 package com.mctech.fss.client;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.SneakyThrows;
 import org.apache.commons.lang.StringUtils;
@@ -16,19 +17,30 @@ public class SignatureOption {
   private final FssOperation method;
   private final String contentType;
 
-  //public String ContentMd5 { get; private set; }
+  /**
+   * 请求内容MD5的Base64编码，对应Content-MD5头
+   */
+  private final String contentMd5;
 
   /**
    * 发出请求的客户端时间
    */
   private Date date = null;
 
+  @Getter(AccessLevel.NONE)
+  private String formattedDate = null;
+
   /**
    * 发出请求的客户端时间
    */
   private Long expires = null;
   private Long absoluteExpires = null;
 
+  /**
+   * 过期时间的对齐窗口(秒)。设置后过期时间向上取整到窗口的整数倍，同一窗口内生成的签名地址完全相同
+   */
+  private Long expiresWindow = null;
+
   private String process;
 
   private Map<String, String> response;
@@ -39,20 +51,51 @@ public class SignatureOption {
     this(method, null);
   }
 
-  @SneakyThrows
   public SignatureOption(FssOperation method, String contentType) {
+    this(method, contentType, null);
+  }
+
+  @SneakyThrows
+  public SignatureOption(FssOperation method, String contentType, String contentMd5) {
     this.method = method;
     this.contentType = contentType;
-    //this.contentMd5 = "";
+    this.contentMd5 = contentMd5;
   }
 
   public void setDate(Date date) {
     this.date = date;
+    this.formattedDate = null;
+  }
+
+  /**
+   * @param formattedDate date按HTTP日期格式化后的结果，避免重复格式化
+   */
+  void setDate(Date date, String formattedDate) {
+    this.date = date;
+    this.formattedDate = formattedDate;
   }
 
   public void setExpires(Long expires) {
     this.expires = expires;
-    this.absoluteExpires = new Date().getTime() / 1000 + expires;
+    this.absoluteExpires = this.alignExpires(new Date().getTime() / 1000 + expires);
+  }
+
+  /**
+   * 设置过期时间的对齐窗口(秒)。过期时间只会向后延长，不会缩短
+   */
+  public void setExpiresWindow(Long expiresWindow) {
+    this.expiresWindow = expiresWindow;
+    if (this.absoluteExpires != null) {
+      this.absoluteExpires = this.alignExpires(this.absoluteExpires);
+    }
+  }
+
+  private long alignExpires(long absoluteExpires) {
+    if (this.expiresWindow == null || this.expiresWindow <= 0) {
+      return absoluteExpires;
+    }
+    long window = this.expiresWindow;
+    return (absoluteExpires + window - 1) / window * window;
   }
 
   /**
@@ -67,11 +110,21 @@ public class SignatureOption {
     return contentType;
   }
 
+  public String getContentMd5() {
+    if (StringUtils.isBlank(contentMd5)) {
+      return "";
+    }
+    return contentMd5;
+  }
+
   Long getAbsoluteExpires() {
     return this.absoluteExpires;
   }
 
   public String getFormatedDate() {
+    if (this.formattedDate != null) {
+      return this.formattedDate;
+    }
     return DateUtils.formatDate(this.date);
   }
 
@@ -0,0 +1,187 @@
+package com.mctech.fss.client;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 签名地址缓存。相同key及签名选项的请求在地址剩余有效期足够时直接返回之前生成的地址，
+ * 既节省签名计算，也让浏览器及CDN可以缓存同一个地址。
+ * 按最近最少使用淘汰超出容量的条目，剩余有效期不足的条目在访问时淘汰。线程安全
+ */
+public class SignedUrlCache {
+  private final int maxSize;
+  private final long minRemainingSeconds;
+  private final LinkedHashMap<CacheKey, Entry> entries;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /**
+   * @param maxSize             最多缓存的地址数
+   * @param minRemainingSeconds 缓存的地址剩余有效期低于该值(秒)时不再使用
+   */
+  public SignedUrlCache(int maxSize, long minRemainingSeconds) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize必须为大于0的整数");
+    }
+    this.maxSize = maxSize;
+    this.minRemainingSeconds = minRemainingSeconds;
+    this.entries = new LinkedHashMap<CacheKey, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+        if (size() > SignedUrlCache.this.maxSize) {
+          evictionCount.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  String get(String key, SignatureOption option, Supplier<String> loader) {
+    Long absoluteExpires = option.getAbsoluteExpires();
+    if (absoluteExpires == null) {
+      // 没有过期时间的地址每次都不同，不缓存
+      return loader.get();
+    }
+
+    CacheKey cacheKey = new CacheKey(key, option);
+    long now = System.currentTimeMillis() / 1000;
+    synchronized (this.entries) {
+      Entry entry = this.entries.get(cacheKey);
+      if (entry != null) {
+        if (entry.expires - now >= this.minRemainingSeconds) {
+          this.hitCount.incrementAndGet();
+          return entry.url;
+        }
+        this.entries.remove(cacheKey);
+        this.evictionCount.incrementAndGet();
+      }
+    }
+
+    this.missCount.incrementAndGet();
+    String url = loader.get();
+    if (absoluteExpires - now >= this.minRemainingSeconds) {
+      synchronized (this.entries) {
+        this.entries.put(cacheKey, new Entry(url, absoluteExpires));
+      }
+    }
+    return url;
+  }
+
+  /**
+   * 清除所有已经不满足剩余有效期要求的条目
+   */
+  public void evictExpired() {
+    long now = System.currentTimeMillis() / 1000;
+    synchronized (this.entries) {
+      Iterator<Entry> it = this.entries.values().iterator();
+      while (it.hasNext()) {
+        if (it.next().expires - now < this.minRemainingSeconds) {
+          it.remove();
+          this.evictionCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (this.entries) {
+      this.entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  private static final class Entry {
+    private final String url;
+    private final long expires;
+
+    private Entry(String url, long expires) {
+      this.url = url;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * 由key及所有影响签名地址的选项组成
+   */
+  private static final class CacheKey {
+    private final String key;
+    private final FssOperation method;
+    private final String contentType;
+    private final String contentMd5;
+    private final Long expires;
+    private final Long expiresWindow;
+    private final String process;
+    private final Map<String, String> response;
+    private final Map<String, String> metadata;
+    private final int hash;
+
+    private CacheKey(String key, SignatureOption option) {
+      this.key = key;
+      this.method = option.getMethod();
+      this.contentType = option.getContentType();
+      this.contentMd5 = option.getContentMd5();
+      this.expires = option.getExpires();
+      this.expiresWindow = option.getExpiresWindow();
+      this.process = option.getProcess();
+      // 复制一份，避免调用方之后修改选项影响已缓存的条目
+      this.response = copyOf(option.getResponse());
+      this.metadata = copyOf(option.getMetadata());
+      this.hash = Objects.hash(key, method, contentType, contentMd5, expires, expiresWindow, process, response, metadata);
+    }
+
+    private static Map<String, String> copyOf(Map<String, String> map) {
+      return map == null || map.isEmpty() ? null : new HashMap<>(map);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) o;
+      return this.hash == other.hash
+          && this.key.equals(other.key)
+          && this.method == other.method
+          && Objects.equals(this.contentType, other.contentType)
+          && Objects.equals(this.contentMd5, other.contentMd5)
+          && Objects.equals(this.expires, other.expires)
+          && Objects.equals(this.expiresWindow, other.expiresWindow)
+          && Objects.equals(this.process, other.process)
+          && Objects.equals(this.response, other.response)
+          && Objects.equals(this.metadata, other.metadata);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+}
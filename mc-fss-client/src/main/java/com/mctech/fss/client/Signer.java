@@ -0,0 +1,92 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.commons.codec.binary.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * FSS签名工具。密钥只在创建时处理一次，每个线程复用自己已初始化的Mac实例，
+ * 可以在不发出http请求的情况下单独用来生成签名。线程安全
+ */
+public class Signer {
+  private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+  private static final String ALGORITHM = "HmacSHA1";
+
+  private final String accessKeyId;
+  private final SecretKeySpec signingKey;
+  private final ThreadLocal<SigningContext> contexts;
+
+  public Signer(MCFssClientConfig config) {
+    this(config.getAccessKeyId(), config.getAccessKeySecret());
+  }
+
+  public Signer(String accessKeyId, String accessKeySecret) {
+    this.accessKeyId = accessKeyId;
+    this.signingKey = new SecretKeySpec(accessKeySecret.getBytes(DEFAULT_CHARSET), ALGORITHM);
+    this.contexts = ThreadLocal.withInitial(() -> new SigningContext(this.createMac()));
+  }
+
+  public String getAccessKeyId() {
+    return this.accessKeyId;
+  }
+
+  /**
+   * @param stringToSign 待签名的字符串
+   * @return base64格式的签名
+   */
+  public String sign(String stringToSign) {
+    Mac mac = this.contexts.get().mac;
+    byte[] signedData = mac.doFinal(stringToSign.getBytes(DEFAULT_CHARSET));
+    return Base64.encodeBase64String(signedData);
+  }
+
+  /**
+   * 对资源签名
+   *
+   * @param resource 以/开头的资源路径，格式为 /{bucketName}/{key}
+   * @param option   签名选项
+   * @return -
+   */
+  public SignedResource signResource(String resource, SignatureOption option) {
+    Map<String, String> subResource = SignUtility.buildSubResource(option);
+
+    SignedResource signedResource = new SignedResource();
+    signedResource.setSignature(this.signCanonical(resource, option));
+    signedResource.setSubResource(subResource);
+    signedResource.setExpires(option.getAbsoluteExpires());
+    return signedResource;
+  }
+
+  /**
+   * 待签名字符串直接写入线程内复用的缓冲区后提交给mac，不生成中间字符串
+   */
+  String signCanonical(String resource, SignatureOption option) {
+    SigningContext context = this.contexts.get();
+    CanonicalStringWriter writer = context.writer;
+    writer.reset();
+    SignUtility.writeCanonicalString(writer, resource, option);
+    writer.writeTo(context.mac);
+    return Base64.encodeBase64String(context.mac.doFinal());
+  }
+
+  @SneakyThrows
+  private Mac createMac() {
+    Mac mac = Mac.getInstance(ALGORITHM);
+    mac.init(this.signingKey);
+    return mac;
+  }
+
+  private static final class SigningContext {
+    private final Mac mac;
+    private final CanonicalStringWriter writer = new CanonicalStringWriter();
+
+    private SigningContext(Mac mac) {
+      this.mac = mac;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.mctech.fss.client;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * 按令牌桶限制传输速度的内容，发送或读取一个字节取用一个令牌。是否可重复发送与被包装的内容一致
+ */
+class ThrottledEntity extends AbstractHttpEntity {
+  private final HttpEntity entity;
+  private final TokenBucket bucket;
+  /**
+   * 每次因令牌不足等待后调用，参数为等待的纳秒数。可为null
+   */
+  private final LongConsumer onThrottled;
+
+  ThrottledEntity(HttpEntity entity, TokenBucket bucket) {
+    this(entity, bucket, null);
+  }
+
+  ThrottledEntity(HttpEntity entity, TokenBucket bucket, LongConsumer onThrottled) {
+    this.entity = entity;
+    this.bucket = bucket;
+    this.onThrottled = onThrottled;
+    this.setContentType(entity.getContentType());
+    this.setContentEncoding(entity.getContentEncoding());
+    this.setChunked(entity.isChunked());
+  }
+
+  /**
+   * @return entity是否已按bucket限速，重试时避免重复包装
+   */
+  static boolean isThrottledBy(HttpEntity entity, TokenBucket bucket) {
+    return entity instanceof ThrottledEntity && ((ThrottledEntity) entity).bucket == bucket;
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return this.entity.isRepeatable();
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.entity.getContentLength();
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    InputStream in = this.entity.getContent();
+    return in == null ? null : new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = this.in.read();
+        if (b >= 0) {
+          acquire(1);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int read = this.in.read(b, off, len);
+        if (read > 0) {
+          acquire(read);
+        }
+        return read;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        long skipped = this.in.skip(n);
+        if (skipped > 0) {
+          acquire(skipped);
+        }
+        return skipped;
+      }
+    };
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    this.entity.writeTo(new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        acquire(1);
+        this.out.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        acquire(len);
+        this.out.write(b, off, len);
+      }
+    });
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return this.entity.isStreaming();
+  }
+
+  private void acquire(long bytes) throws InterruptedIOException {
+    long waitNanos;
+    try {
+      waitNanos = this.bucket.acquire(bytes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("限速等待被中断");
+    }
+    if (waitNanos > 0 && this.onThrottled != null) {
+      this.onThrottled.accept(waitNanos);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.mctech.fss.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限速。令牌按固定速度生成，最多积累burst个；取用的令牌超过现有数量时先记为欠账，
+ * 调用线程等待到欠账还清为止，多个线程共用时按取用顺序排队
+ */
+class TokenBucket {
+  private final double ratePerNano;
+  private final double burst;
+
+  private double available;
+  private long lastRefill;
+
+  /**
+   * @param ratePerSecond 每秒生成的令牌数
+   * @param burst         最多积累的令牌数
+   */
+  TokenBucket(double ratePerSecond, double burst) {
+    if (ratePerSecond <= 0) {
+      throw new IllegalArgumentException("ratePerSecond必须大于0");
+    }
+    this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.burst = Math.max(1, burst);
+    this.available = this.burst;
+    this.lastRefill = System.nanoTime();
+  }
+
+  /**
+   * 取用令牌，令牌不足时阻塞等待
+   *
+   * @return 等待的时间(纳秒)，不需要等待时为0
+   */
+  long acquire(long permits) throws InterruptedException {
+    long waitNanos;
+    synchronized (this) {
+      this.refill();
+      this.available -= permits;
+      waitNanos = this.available >= 0 ? 0 : (long) (-this.available / this.ratePerNano);
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+    return waitNanos;
+  }
+
+  /**
+   * 令牌足够时取用并返回true，否则不取用并返回false
+   */
+  synchronized boolean tryAcquire(long permits) {
+    this.refill();
+    if (this.available < permits) {
+      return false;
+    }
+    this.available -= permits;
+    return true;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    this.available = Math.min(this.burst, this.available + (now - this.lastRefill) * this.ratePerNano);
+    this.lastRefill = now;
+  }
+}
@@ -0,0 +1,367 @@
+package com.mctech.fss.client;
+
+import lombok.SneakyThrows;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 本地目录与服务端指定前缀下文件的同步。按大小、修改时间和MD5判断文件是否修改过，只传输修改过的文件。
+ * 本地文件的修改时间和MD5保存在文件的meta信息中
+ */
+public class TransferManager implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(TransferManager.class);
+
+  static final String META_MTIME = "mtime";
+
+  private static final String TEMP_SUFFIX = ".fssdownload";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final MCFssClient client;
+  private final TransferOptions options;
+  private final ForkJoinPool pool;
+  private final TokenBucket bucket;
+
+  public TransferManager(MCFssClient client) {
+    this(client, new TransferOptions());
+  }
+
+  public TransferManager(MCFssClient client, TransferOptions options) {
+    this.client = client;
+    this.options = options;
+    this.pool = new ForkJoinPool(Math.max(1, options.getParallelism()));
+    long rate = options.getMaxBytesPerSecond();
+    this.bucket = rate > 0 ? new TokenBucket(rate, Math.max(rate / 4, BUFFER_SIZE)) : null;
+  }
+
+  /**
+   * 把本地目录中的文件上传到remotePrefix下，key为remotePrefix加上文件的相对路径
+   *
+   * @param localDir     本地目录
+   * @param remotePrefix 服务端的key前缀，可为null
+   * @return 同步结果，单个文件失败不影响其他文件
+   */
+  @SneakyThrows
+  public TransferProgress upload(Path localDir, String remotePrefix) {
+    String prefix = normalizePrefix(remotePrefix);
+    Map<String, ObjectSummary> remote;
+    try (Stream<ObjectSummary> stream = this.client.listAll(prefix)) {
+      remote = stream.collect(Collectors.toMap(ObjectSummary::getKey, s -> s, (a, b) -> b));
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(localDir)) {
+      files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+
+    TransferProgress progress = new TransferProgress();
+    try (Journal journal = Journal.open(this.options.getJournalFile())) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(files.size());
+      for (Path file : files) {
+        String key = prefix + toKeyPath(localDir.relativize(file));
+        tasks.add(this.pool.submit(() -> this.run(key, progress,
+            () -> this.uploadFile(file, key, remote.get(key), journal))));
+      }
+      this.finish(tasks, progress, journal);
+    }
+    return progress;
+  }
+
+  /**
+   * 把remotePrefix下的文件下载到本地目录中，文件的相对路径为key去掉remotePrefix的部分
+   *
+   * @param remotePrefix 服务端的key前缀，可为null
+   * @param localDir     本地目录
+   * @return 同步结果，单个文件失败不影响其他文件
+   */
+  @SneakyThrows
+  public TransferProgress download(String remotePrefix, Path localDir) {
+    String prefix = normalizePrefix(remotePrefix);
+    Path root = localDir.toAbsolutePath().normalize();
+
+    TransferProgress progress = new TransferProgress();
+    try (Journal journal = Journal.open(this.options.getJournalFile());
+         Stream<ObjectSummary> stream = this.client.listAll(prefix)) {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      stream.forEach(summary -> {
+        String key = summary.getKey();
+        // 以/结尾的是目录占位，不需要下载
+        if (key.endsWith("/")) {
+          return;
+        }
+        tasks.add(this.pool.submit(() -> this.run(key, progress,
+            () -> this.downloadFile(summary, root.resolve(key.substring(prefix.length())).normalize(),
+                root, journal))));
+      });
+      this.finish(tasks, progress, journal);
+    }
+    return progress;
+  }
+
+  @Override
+  public void close() {
+    this.pool.shutdownNow();
+  }
+
+  private interface FileTask {
+    /**
+     * @return 传输的字节数，跳过时为-1
+     */
+    long run() throws Exception;
+  }
+
+  private void run(String key, TransferProgress progress, FileTask task) {
+    Throwable error = null;
+    try {
+      long bytes = task.run();
+      if (bytes < 0) {
+        progress.skipped();
+        return;
+      }
+      progress.transferred(bytes);
+    } catch (Throwable e) {
+      LOGGER.warn("同步文件失败: " + key, e);
+      progress.failed(key, e);
+      error = e;
+    }
+    TransferProgressListener listener = this.options.getListener();
+    if (listener != null) {
+      listener.onProgress(key, error, progress);
+    }
+  }
+
+  private void finish(List<ForkJoinTask<?>> tasks, TransferProgress progress, Journal journal) throws IOException {
+    for (ForkJoinTask<?> task : tasks) {
+      task.join();
+    }
+    progress.finish();
+    if (progress.isSuccess()) {
+      journal.delete();
+    }
+  }
+
+  private long uploadFile(Path file, String key, ObjectSummary summary, Journal journal) throws Exception {
+    long size = Files.size(file);
+    long mtime = Files.getLastModifiedTime(file).toMillis();
+    if (journal.contains(key, size, mtime)) {
+      return -1;
+    }
+    String md5 = null;
+    if (summary != null && summary.getSize() == size) {
+      Map<String, String> meta = this.client.head(key).getResponseHeaders().getMeta();
+      if (Long.toString(mtime).equals(meta.get(META_MTIME))) {
+        journal.add(key, size, mtime);
+        return -1;
+      }
+      if (this.options.isChecksum() && meta.get(ContentChecksum.META_MD5) != null) {
+        md5 = md5(file);
+        if (md5.equalsIgnoreCase(meta.get(ContentChecksum.META_MD5))) {
+          journal.add(key, size, mtime);
+          return -1;
+        }
+      }
+    }
+
+    Map<String, String> metadata = new HashMap<>();
+    metadata.put(META_MTIME, Long.toString(mtime));
+    if (this.options.isChecksum()) {
+      metadata.put(ContentChecksum.META_MD5, md5 != null ? md5 : md5(file));
+    }
+    UnaryOperator<AbstractHttpEntity> decorator = this.bucket == null
+        ? UnaryOperator.identity() : entity -> new ThrottledEntity(entity, this.bucket);
+    this.client.upload(key, null, file, metadata, null, decorator).release();
+    journal.add(key, size, mtime);
+    return size;
+  }
+
+  private long downloadFile(ObjectSummary summary, Path target, Path root, Journal journal) throws Exception {
+    String key = summary.getKey();
+    if (!target.startsWith(root) || target.equals(root)) {
+      throw new IllegalArgumentException("key对应的路径不在目标目录中: " + key);
+    }
+    if (Files.isRegularFile(target)) {
+      long size = Files.size(target);
+      long mtime = Files.getLastModifiedTime(target).toMillis();
+      if (journal.contains(key, size, mtime)) {
+        return -1;
+      }
+      if (size == summary.getSize() && this.isUnchanged(summary, target, mtime)) {
+        journal.add(key, size, mtime);
+        return -1;
+      }
+    }
+
+    Files.createDirectories(target.getParent());
+    Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+    long bytes = 0;
+    String remoteMtime;
+    try (RequestResult result = this.client.get(key)) {
+      remoteMtime = result.getResponseHeaders().getMeta().get(META_MTIME);
+      try (InputStream in = result.openRead();
+           OutputStream out = Files.newOutputStream(temp)) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          this.throttle(read);
+          out.write(buffer, 0, read);
+          bytes += read;
+        }
+      }
+    } catch (Throwable e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+
+    // 使用上传时记录的修改时间，再次同步时可以直接判断为未修改
+    long mtime = remoteMtime != null ? Long.parseLong(remoteMtime)
+        : summary.getLastModified() != null ? summary.getLastModified().getTime() : -1;
+    if (mtime >= 0) {
+      Files.setLastModifiedTime(target, FileTime.fromMillis(mtime));
+    }
+    journal.add(key, bytes, Files.getLastModifiedTime(target).toMillis());
+    return bytes;
+  }
+
+  private boolean isUnchanged(ObjectSummary summary, Path target, long mtime) throws Exception {
+    Map<String, String> meta = this.client.head(summary.getKey()).getResponseHeaders().getMeta();
+    String remoteMtime = meta.get(META_MTIME);
+    if (Long.toString(mtime).equals(remoteMtime)) {
+      return true;
+    }
+    if (this.options.isChecksum() && meta.get(ContentChecksum.META_MD5) != null) {
+      return md5(target).equalsIgnoreCase(meta.get(ContentChecksum.META_MD5));
+    }
+    // 不是通过同步上传的文件没有记录修改时间，本地文件不早于服务端时认为未修改
+    return remoteMtime == null && summary.getLastModified() != null
+        && mtime >= summary.getLastModified().getTime();
+  }
+
+  private void throttle(int bytes) throws InterruptedIOException {
+    if (this.bucket == null) {
+      return;
+    }
+    try {
+      this.bucket.acquire(bytes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("限速等待被中断");
+    }
+  }
+
+  private static String normalizePrefix(String prefix) {
+    if (prefix == null || prefix.isEmpty() || prefix.endsWith("/")) {
+      return Objects.toString(prefix, "");
+    }
+    return prefix + "/";
+  }
+
+  private static String toKeyPath(Path relative) {
+    StringBuilder builder = new StringBuilder();
+    for (Path name : relative) {
+      if (builder.length() > 0) {
+        builder.append('/');
+      }
+      builder.append(name);
+    }
+    return builder.toString();
+  }
+
+  private static String md5(Path file) throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("MD5");
+    try (InputStream in = Files.newInputStream(file)) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  /**
+   * 已完成文件的记录，每行为key、大小和本地修改时间，以制表符分隔
+   */
+  private static final class Journal implements Closeable {
+    private final Path file;
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private OutputStream out;
+
+    private Journal(Path file) {
+      this.file = file;
+    }
+
+    static Journal open(Path file) throws IOException {
+      Journal journal = new Journal(file);
+      if (file == null) {
+        return journal;
+      }
+      if (Files.exists(file)) {
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        // 中断时可能只写入了半行，只使用以换行结尾的完整记录
+        for (String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n")) {
+          int index = line.indexOf('\t');
+          if (index > 0) {
+            journal.entries.put(line.substring(0, index), line.substring(index + 1));
+          }
+        }
+      }
+      journal.out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      return journal;
+    }
+
+    boolean contains(String key, long size, long mtime) {
+      return (size + "\t" + mtime).equals(this.entries.get(key));
+    }
+
+    synchronized void add(String key, long size, long mtime) throws IOException {
+      if (this.out == null) {
+        return;
+      }
+      String value = size + "\t" + mtime;
+      this.entries.put(key, value);
+      this.out.write((key + "\t" + value + "\n").getBytes(StandardCharsets.UTF_8));
+      this.out.flush();
+    }
+
+    synchronized void delete() throws IOException {
+      if (this.out == null) {
+        return;
+      }
+      this.out.close();
+      this.out = null;
+      Files.deleteIfExists(this.file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (this.out != null) {
+        this.out.close();
+        this.out = null;
+      }
+    }
+  }
+}
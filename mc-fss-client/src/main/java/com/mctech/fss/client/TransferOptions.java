@@ -0,0 +1,38 @@
+package com.mctech.fss.client;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+
+/**
+ * 目录同步的参数
+ */
+@Getter
+@Setter
+public class TransferOptions {
+  /**
+   * 同时传输的文件数
+   */
+  private int parallelism = 8;
+
+  /**
+   * 所有文件合计的最大传输速度(字节/秒)，不大于0时不限制
+   */
+  private long maxBytesPerSecond = 0;
+
+  /**
+   * 记录已完成文件的日志文件，同步中断后再次同步时跳过其中记录的文件。为null时不记录，全部成功后自动删除
+   */
+  private Path journalFile;
+
+  /**
+   * 大小相同但修改时间不同时，是否再比较文件内容的MD5。启用后上传时会计算MD5并保存在meta信息中
+   */
+  private boolean checksum = false;
+
+  /**
+   * 每个文件传输完成或失败后的通知，可为null
+   */
+  private TransferProgressListener listener;
+}
@@ -0,0 +1,97 @@
+package com.mctech.fss.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 目录同步的整体进度，同步过程中会不断更新
+ */
+public class TransferProgress {
+  private final long startNanos = System.nanoTime();
+  private volatile long endNanos;
+
+  private final AtomicInteger transferredFiles = new AtomicInteger();
+  private final AtomicInteger skippedFiles = new AtomicInteger();
+  private final AtomicLong transferredBytes = new AtomicLong();
+  private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+  /**
+   * 已传输完成的文件数
+   */
+  public int getTransferredFiles() {
+    return this.transferredFiles.get();
+  }
+
+  /**
+   * 未修改而跳过的文件数
+   */
+  public int getSkippedFiles() {
+    return this.skippedFiles.get();
+  }
+
+  public int getFailedFiles() {
+    return this.failures.size();
+  }
+
+  /**
+   * 已传输完成的文件的总大小
+   */
+  public long getTransferredBytes() {
+    return this.transferredBytes.get();
+  }
+
+  /**
+   * 同步已用的时间，同步结束后为总用时
+   */
+  public long getElapsedMillis() {
+    long end = this.endNanos != 0 ? this.endNanos : System.nanoTime();
+    return TimeUnit.NANOSECONDS.toMillis(end - this.startNanos);
+  }
+
+  /**
+   * 平均传输速度(字节/秒)
+   */
+  public double getBytesPerSecond() {
+    long elapsed = this.getElapsedMillis();
+    return elapsed > 0 ? this.getTransferredBytes() * 1000.0 / elapsed : 0;
+  }
+
+  /**
+   * 失败的文件key及对应的异常
+   */
+  public Map<String, Throwable> getFailures() {
+    return Collections.unmodifiableMap(this.failures);
+  }
+
+  public boolean isSuccess() {
+    return this.failures.isEmpty();
+  }
+
+  void transferred(long bytes) {
+    this.transferredBytes.addAndGet(bytes);
+    this.transferredFiles.incrementAndGet();
+  }
+
+  void skipped() {
+    this.skippedFiles.incrementAndGet();
+  }
+
+  void failed(String key, Throwable error) {
+    this.failures.put(key, error);
+  }
+
+  void finish() {
+    this.endNanos = System.nanoTime();
+  }
+
+  @Override
+  public String toString() {
+    return "transferred=" + this.getTransferredFiles() + ", skipped=" + this.getSkippedFiles()
+        + ", failed=" + this.getFailedFiles() + ", bytes=" + this.getTransferredBytes()
+        + ", elapsed=" + this.getElapsedMillis() + "ms, bytes/s=" + (long) this.getBytesPerSecond();
+  }
+}
@@ -0,0 +1,15 @@
+package com.mctech.fss.client;
+
+/**
+ * 目录同步的进度通知。会在多个线程中被调用，实现需要线程安全
+ */
+public interface TransferProgressListener {
+  /**
+   * 每个文件传输完成或失败后调用，跳过的文件不调用
+   *
+   * @param key      传输的文件key
+   * @param error    失败时的异常，成功时为null
+   * @param progress 当前的整体进度
+   */
+  void onProgress(String key, Throwable error, TransferProgress progress);
+}
@@ -0,0 +1,141 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.TransportBody;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 通过{@link FssTransport}发送请求，在HttpClient的请求、返回结果与传输层的类型之间转换
+ */
+final class TransportExecutor implements HttpExecutor {
+  private final FssTransport transport;
+  /**
+   * 是否由客户端负责关闭传输层，用户设置的传输层由用户关闭
+   */
+  private final boolean owned;
+
+  TransportExecutor(FssTransport transport, boolean owned) {
+    this.transport = transport;
+    this.owned = owned;
+  }
+
+  @Override
+  public CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (Header header : request.getAllHeaders()) {
+      headers.put(header.getName(), header.getValue());
+    }
+    HttpEntity entity = request instanceof HttpEntityEnclosingRequest
+        ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+    if (entity != null && entity.getContentType() != null && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+      headers.put(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+    }
+    TransportRequest transportRequest = new TransportRequest(request.getMethod(), request.getURI(), headers,
+        entity != null ? new EntityBody(entity) : null);
+    // 对冲请求等调用abort时取消正在进行的请求
+    request.setCancellable(() -> {
+      transportRequest.cancel();
+      return true;
+    });
+    return toResponse(request, this.transport.execute(transportRequest));
+  }
+
+  private static CloseableHttpResponse toResponse(HttpRequestBase request, TransportResponse response) {
+    TransportHttpResponse result = new TransportHttpResponse(response);
+    for (Map.Entry<String, List<String>> entry : response.getHeaders().entrySet()) {
+      // 跳过HTTP/2的伪头
+      if (entry.getKey().startsWith(":")) {
+        continue;
+      }
+      for (String value : entry.getValue()) {
+        result.addHeader(entry.getKey(), value);
+      }
+    }
+
+    int status = response.getStatusCode();
+    if (response.getBody() == null || request instanceof HttpHead
+        || status == HttpStatus.SC_NO_CONTENT || status == HttpStatus.SC_NOT_MODIFIED) {
+      return result;
+    }
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent(response.getBody());
+    entity.setContentLength(response.getContentLength());
+    entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+    entity.setContentEncoding(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    result.setEntity(entity);
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.owned) {
+      this.transport.close();
+    }
+  }
+
+  /**
+   * 限速、校验等包装只在writeTo中生效，传输层通过writeTo读取内容
+   */
+  private static final class EntityBody implements TransportBody {
+    private final HttpEntity entity;
+
+    private EntityBody(HttpEntity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public long getContentLength() {
+      return this.entity.getContentLength();
+    }
+
+    @Override
+    public String getContentType() {
+      return this.entity.getContentType() != null ? this.entity.getContentType().getValue() : null;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return this.entity.isRepeatable();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      this.entity.writeTo(out);
+    }
+  }
+
+  /**
+   * 关闭时关闭传输层的返回结果
+   */
+  private static final class TransportHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+    private final TransportResponse response;
+
+    private TransportHttpResponse(TransportResponse response) {
+      super(HttpVersion.HTTP_1_1, response.getStatusCode(), "");
+      this.response = response;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.response.close();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.mctech.fss.client;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * 与URIBuilder输出结果一致的路径及查询参数编码，直接写入StringBuilder，不需要重新解析整个地址
+ */
+final class UriEncoder {
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  private static final BitSet QUERY_SAFE = new BitSet(128);
+  private static final BitSet PATH_SAFE = new BitSet(128);
+
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      QUERY_SAFE.set(c);
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      QUERY_SAFE.set(c);
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      QUERY_SAFE.set(c);
+    }
+    for (char c : "_-.*".toCharArray()) {
+      QUERY_SAFE.set(c);
+    }
+
+    PATH_SAFE.or(QUERY_SAFE);
+    for (char c : "!~'()/;:@&=+$,".toCharArray()) {
+      PATH_SAFE.set(c);
+    }
+  }
+
+  private UriEncoder() {
+  }
+
+  static StringBuilder appendPath(StringBuilder builder, String path) {
+    return append(builder, path, PATH_SAFE, false);
+  }
+
+  /**
+   * 按application/x-www-form-urlencoded格式编码查询参数的名称或值
+   */
+  static StringBuilder appendQueryComponent(StringBuilder builder, String value) {
+    return append(builder, value, QUERY_SAFE, true);
+  }
+
+  private static StringBuilder append(StringBuilder builder, String value, BitSet safe, boolean blankAsPlus) {
+    int count = value.length();
+    for (int i = 0; i < count; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        if (safe.get(c)) {
+          builder.append(c);
+        } else if (blankAsPlus && c == ' ') {
+          builder.append('+');
+        } else {
+          appendEscaped(builder, c);
+        }
+      } else {
+        // 非ASCII字符较少出现，按UTF-8编码后逐字节转义
+        int end = i + 1;
+        while (end < count && value.charAt(end) >= 0x80) {
+          end++;
+        }
+        for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+          appendEscaped(builder, b & 0xff);
+        }
+        i = end - 1;
+      }
+    }
+    return builder;
+  }
+
+  private static void appendEscaped(StringBuilder builder, int b) {
+    builder.append('%').append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+  }
+}
@@ -0,0 +1,29 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程支持。在Java 21及以上版本中运行时使用META-INF/versions/21下的实现，此处为不支持时的实现，
+ * 各方法返回null，由调用方改用普通线程
+ */
+final class VirtualThreads {
+  private VirtualThreads() {
+  }
+
+  /**
+   * @param prefix 线程名称前缀
+   * @return 每个任务使用一个新虚拟线程的线程池，不支持虚拟线程时为null
+   */
+  static ExecutorService newExecutor(String prefix) {
+    return null;
+  }
+
+  /**
+   * @return 使用虚拟线程和java.net.http发送请求的传输层，不支持虚拟线程时为null
+   */
+  static FssTransport newTransport(MCFssClientConfig config) {
+    return null;
+  }
+}
@@ -0,0 +1,102 @@
+package com.mctech.fss.client;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 使用StAX流式读取服务端返回的xml。共用一个配置好的工厂，禁用DTD及外部实体
+ */
+final class XmlParser {
+  private static final XMLInputFactory FACTORY = createFactory();
+
+  private XmlParser() {
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+    return FACTORY.createXMLStreamReader(in);
+  }
+
+  /**
+   * @return 根元素下各个直接子元素的名称及文本内容
+   */
+  static Map<String, String> readChildren(InputStream in) throws XMLStreamException {
+    XMLStreamReader reader = createReader(in);
+    try {
+      Map<String, String> map = new HashMap<>();
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (depth == 2) {
+            String name = reader.getLocalName();
+            map.put(name, readText(reader));
+            depth--;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+      return map;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * @return 第一个指定名称的元素的文本内容，不存在时返回null
+   */
+  static String readFirst(InputStream in, String name) throws XMLStreamException {
+    XMLStreamReader reader = createReader(in);
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(name)) {
+          return readText(reader);
+        }
+      }
+      return null;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * 读取当前元素内的全部文本，包括子元素中的文本。返回时reader位于该元素的结束位置
+   */
+  static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder builder = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          builder.append(reader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,12 @@
+package com.mctech.fss.client.exception;
+
+import com.mctech.fss.client.FssClientError;
+
+/**
+ * 没有访问权限
+ */
+public class AccessDeniedException extends MCTechFssRequestException {
+  public AccessDeniedException(String message, FssClientError error, int statusCode) {
+    super(message, error, statusCode);
+  }
+}
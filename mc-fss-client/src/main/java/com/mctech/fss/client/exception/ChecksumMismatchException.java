@@ -0,0 +1,20 @@
+package com.mctech.fss.client.exception;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * 传输内容的MD5与服务端记录的不一致
+ */
+@Getter
+public class ChecksumMismatchException extends IOException {
+  private final String expected;
+  private final String actual;
+
+  public ChecksumMismatchException(String expected, String actual) {
+    super("内容校验失败，预期MD5为" + expected + "，实际为" + actual);
+    this.expected = expected;
+    this.actual = actual;
+  }
+}
@@ -8,9 +8,19 @@ public class MCTechFssRequestException extends MCTechException {
 
   private final FssClientError error;
 
+  /**
+   * 服务端返回的状态码，未知时为0
+   */
+  private final int statusCode;
+
   public MCTechFssRequestException(String message, FssClientError error) {
+    this(message, error, 0);
+  }
+
+  public MCTechFssRequestException(String message, FssClientError error, int statusCode) {
     super(message);
 
     this.error = error;
+    this.statusCode = statusCode;
   }
 }
@@ -0,0 +1,12 @@
+package com.mctech.fss.client.exception;
+
+import com.mctech.fss.client.FssClientError;
+
+/**
+ * bucket不存在
+ */
+public class NoSuchBucketException extends MCTechFssRequestException {
+  public NoSuchBucketException(String message, FssClientError error, int statusCode) {
+    super(message, error, statusCode);
+  }
+}
@@ -0,0 +1,12 @@
+package com.mctech.fss.client.exception;
+
+import com.mctech.fss.client.FssClientError;
+
+/**
+ * 文件不存在
+ */
+public class NoSuchKeyException extends MCTechFssRequestException {
+  public NoSuchKeyException(String message, FssClientError error, int statusCode) {
+    super(message, error, statusCode);
+  }
+}
@@ -0,0 +1,12 @@
+package com.mctech.fss.client.exception;
+
+import com.mctech.fss.client.FssClientError;
+
+/**
+ * 签名不正确，通常是AccessKeySecret错误或签名时间与服务端相差过大
+ */
+public class SignatureDoesNotMatchException extends MCTechFssRequestException {
+  public SignatureDoesNotMatchException(String message, FssClientError error, int statusCode) {
+    super(message, error, statusCode);
+  }
+}
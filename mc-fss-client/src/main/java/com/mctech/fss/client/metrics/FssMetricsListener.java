@@ -0,0 +1,48 @@
+package com.mctech.fss.client.metrics;
+
+import com.mctech.fss.client.FssOperation;
+
+/**
+ * 客户端运行指标的监听接口，通过{@link com.mctech.fss.client.MCFssClientConfig#setMetricsListener(FssMetricsListener)}设置。
+ * 方法在发出请求的线程中同步调用，实现需要线程安全且尽量轻量
+ */
+public interface FssMetricsListener {
+  /**
+   * 生成一次请求签名后调用
+   *
+   * @param operation     请求方法
+   * @param durationNanos 签名耗时(纳秒)
+   */
+  default void signed(FssOperation operation, long durationNanos) {
+  }
+
+  /**
+   * 每次请求结束后调用，重试时每次发送都会调用
+   */
+  default void requestCompleted(RequestEvent event) {
+  }
+
+  /**
+   * 从连接池中获取到连接后调用
+   *
+   * @param waitNanos 等待连接的时间(纳秒)
+   */
+  default void connectionLeased(long waitNanos) {
+  }
+
+  /**
+   * 因客户端限流等待后调用，不需要等待时不调用
+   *
+   * @param waitNanos 等待的时间(纳秒)
+   */
+  default void throttled(FssOperation operation, long waitNanos) {
+  }
+
+  /**
+   * 自适应并发数调整后调用
+   *
+   * @param limit 调整后允许同时进行的请求数
+   */
+  default void concurrencyLimitChanged(int limit) {
+  }
+}
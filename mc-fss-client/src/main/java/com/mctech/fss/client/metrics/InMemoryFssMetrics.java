@@ -0,0 +1,91 @@
+package com.mctech.fss.client.metrics;
+
+import com.mctech.fss.client.FssOperation;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在内存中按请求方法汇总的运行指标，可定期输出到日志或用于排查问题
+ */
+public class InMemoryFssMetrics implements FssMetricsListener {
+  private final Map<FssOperation, OperationStats> operations = new EnumMap<>(FssOperation.class);
+  private final LogHistogram connectionLeaseMicros = new LogHistogram();
+  private final LogHistogram throttleMicros = new LogHistogram();
+  private volatile int concurrencyLimit = -1;
+
+  public InMemoryFssMetrics() {
+    for (FssOperation operation : FssOperation.values()) {
+      this.operations.put(operation, new OperationStats(operation));
+    }
+  }
+
+  @Override
+  public void signed(FssOperation operation, long durationNanos) {
+    this.operations.get(operation).getSignMicros().record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+  }
+
+  @Override
+  public void requestCompleted(RequestEvent event) {
+    this.operations.get(event.getOperation()).record(event);
+  }
+
+  @Override
+  public void connectionLeased(long waitNanos) {
+    this.connectionLeaseMicros.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+  }
+
+  @Override
+  public void throttled(FssOperation operation, long waitNanos) {
+    this.throttleMicros.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+  }
+
+  @Override
+  public void concurrencyLimitChanged(int limit) {
+    this.concurrencyLimit = limit;
+  }
+
+  public OperationStats getOperation(FssOperation operation) {
+    return this.operations.get(operation);
+  }
+
+  /**
+   * @return 从连接池获取连接的等待时间(微秒)
+   */
+  public LogHistogram getConnectionLeaseMicros() {
+    return this.connectionLeaseMicros;
+  }
+
+  /**
+   * @return 因客户端限流等待的时间(微秒)
+   */
+  public LogHistogram getThrottleMicros() {
+    return this.throttleMicros;
+  }
+
+  /**
+   * @return 最近一次调整后的自适应并发数，未调整过时为-1
+   */
+  public int getConcurrencyLimit() {
+    return this.concurrencyLimit;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (OperationStats stats : this.operations.values()) {
+      if (stats.getLatencyMicros().getCount() > 0) {
+        builder.append(stats).append('\n');
+      }
+    }
+    builder.append("connection lease(us): ").append(this.connectionLeaseMicros);
+    if (this.throttleMicros.getCount() > 0) {
+      builder.append('\n').append("throttle(us): ").append(this.throttleMicros);
+    }
+    if (this.concurrencyLimit >= 0) {
+      builder.append('\n').append("concurrency limit: ").append(this.concurrencyLimit);
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,102 @@
+package com.mctech.fss.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按对数分桶的直方图，记录非负整数值。每个2的幂区间再均分为32个桶，分位数的相对误差不超过约3%。
+ * 记录时无锁，占用固定内存
+ */
+public class LogHistogram {
+  private static final int SUB_BITS = 5;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long value) {
+    long v = Math.max(0, value);
+    this.buckets.incrementAndGet(bucketOf(v));
+    this.count.increment();
+    this.sum.add(v);
+    if (v > this.max.get()) {
+      this.max.accumulateAndGet(v, Math::max);
+    }
+  }
+
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  public long getMax() {
+    return this.max.get();
+  }
+
+  public double getMean() {
+    long n = this.count.sum();
+    return n == 0 ? 0 : (double) this.sum.sum() / n;
+  }
+
+  /**
+   * @param percentile 百分位，取值0到100
+   * @return 该百分位对应的值，没有记录时返回0
+   */
+  public long getValueAtPercentile(double percentile) {
+    long total = 0;
+    long[] counts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = this.buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBound(i), this.max.get());
+      }
+    }
+    return this.max.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      this.buckets.set(i, 0);
+    }
+    this.count.reset();
+    this.sum.reset();
+    this.max.set(0);
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BITS;
+    return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+  }
+
+  static long upperBound(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    int shift = bucket / SUB_COUNT - 1;
+    long lower = (long) (SUB_COUNT | (bucket % SUB_COUNT)) << shift;
+    return lower + (1L << shift) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + this.getCount() + ", mean=" + Math.round(this.getMean())
+        + ", p50=" + this.getValueAtPercentile(50) + ", p95=" + this.getValueAtPercentile(95)
+        + ", p99=" + this.getValueAtPercentile(99) + ", max=" + this.getMax();
+  }
+}
@@ -0,0 +1,56 @@
+package com.mctech.fss.client.metrics;
+
+import com.mctech.fss.client.FssOperation;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一种请求方法的统计数据，耗时单位为微秒
+ */
+@Getter
+public class OperationStats {
+  private final FssOperation operation;
+  private final LogHistogram latencyMicros = new LogHistogram();
+  private final LogHistogram signMicros = new LogHistogram();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final ConcurrentMap<String, LongAdder> errorCodes = new ConcurrentHashMap<>();
+
+  OperationStats(FssOperation operation) {
+    this.operation = operation;
+  }
+
+  void record(RequestEvent event) {
+    this.latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(event.getDurationNanos()));
+    this.bytesSent.add(event.getBytesSent());
+    this.bytesReceived.add(event.getBytesReceived());
+    if (!event.isSuccess()) {
+      this.errors.increment();
+      String code = event.getErrorCode() != null ? event.getErrorCode() : String.valueOf(event.getStatusCode());
+      this.errorCodes.computeIfAbsent(code, k -> new LongAdder()).increment();
+    }
+  }
+
+  /**
+   * @return 各错误码出现的次数
+   */
+  public Map<String, Long> getErrorCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    this.errorCodes.forEach((code, count) -> counts.put(code, count.sum()));
+    return counts;
+  }
+
+  @Override
+  public String toString() {
+    return this.operation + " {latency(us): " + this.latencyMicros + "; sign(us): " + this.signMicros
+        + "; errors=" + this.getErrorCounts() + ", sent=" + this.bytesSent.sum()
+        + ", received=" + this.bytesReceived.sum() + "}";
+  }
+}
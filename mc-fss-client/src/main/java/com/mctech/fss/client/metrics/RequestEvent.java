@@ -0,0 +1,51 @@
+package com.mctech.fss.client.metrics;
+
+import com.mctech.fss.client.FssOperation;
+import lombok.Getter;
+
+/**
+ * 一次请求的结果
+ */
+@Getter
+public class RequestEvent {
+  private final FssOperation operation;
+  /**
+   * 返回的状态码，没有收到返回时为0
+   */
+  private final int statusCode;
+  /**
+   * 服务端返回的错误码，没有收到返回时为异常的类名，成功时为null
+   */
+  private final String errorCode;
+  /**
+   * 从发出请求到收到返回头的时间(纳秒)，不包括读取返回内容的时间
+   */
+  private final long durationNanos;
+  /**
+   * 发送的内容长度，未知时为0
+   */
+  private final long bytesSent;
+  /**
+   * 返回头中的内容长度，未知时为0
+   */
+  private final long bytesReceived;
+  /**
+   * 请求失败时的异常
+   */
+  private final Throwable error;
+
+  public RequestEvent(FssOperation operation, int statusCode, String errorCode, long durationNanos,
+                      long bytesSent, long bytesReceived, Throwable error) {
+    this.operation = operation;
+    this.statusCode = statusCode;
+    this.errorCode = errorCode;
+    this.durationNanos = durationNanos;
+    this.bytesSent = bytesSent;
+    this.bytesReceived = bytesReceived;
+    this.error = error;
+  }
+
+  public boolean isSuccess() {
+    return this.error == null;
+  }
+}
@@ -0,0 +1,121 @@
+package com.mctech.fss.client.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 使用Apache HttpClient 4.x发送请求。未设置传输层时客户端直接使用自己创建的HttpClient，不经过该类
+ */
+public class ApacheHttpTransport implements FssTransport {
+  private final CloseableHttpClient httpClient;
+
+  public ApacheHttpTransport(CloseableHttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
+  public CloseableHttpClient getHttpClient() {
+    return this.httpClient;
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    RequestBuilder builder = RequestBuilder.create(request.getMethod()).setUri(request.getUri());
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      // 有内容时由HttpClient根据内容生成长度
+      if (request.getBody() != null && (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())
+          || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(header.getKey()))) {
+        continue;
+      }
+      builder.setHeader(header.getKey(), header.getValue());
+    }
+    if (request.getBody() != null) {
+      builder.setEntity(new BodyEntity(request.getBody()));
+    }
+    HttpUriRequest httpRequest = builder.build();
+    request.onCancel(httpRequest::abort);
+
+    CloseableHttpResponse response = this.httpClient.execute(httpRequest);
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Header header : response.getAllHeaders()) {
+      headers.computeIfAbsent(header.getName(), name -> new ArrayList<>(1)).add(header.getValue());
+    }
+    HttpEntity entity = response.getEntity();
+    InputStream body = entity != null ? new ResponseStream(entity.getContent(), response) : null;
+    if (body == null) {
+      response.close();
+    }
+    return new TransportResponse(response.getStatusLine().getStatusCode(), headers, body);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.httpClient.close();
+  }
+
+  private static final class BodyEntity extends AbstractHttpEntity {
+    private final TransportBody body;
+
+    private BodyEntity(TransportBody body) {
+      this.body = body;
+      this.setContentType(body.getContentType());
+      this.setChunked(body.getContentLength() < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return this.body.isRepeatable();
+    }
+
+    @Override
+    public long getContentLength() {
+      return this.body.getContentLength();
+    }
+
+    @Override
+    public InputStream getContent() {
+      throw new UnsupportedOperationException("只能通过writeTo读取请求内容");
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+      this.body.writeTo(out);
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+  }
+
+  /**
+   * 读完时HttpClient自动归还连接，未读完就关闭时直接断开连接，不再读取剩余内容
+   */
+  private static final class ResponseStream extends FilterInputStream {
+    private final CloseableHttpResponse response;
+
+    private ResponseStream(InputStream in, CloseableHttpResponse response) {
+      super(in);
+      this.response = response;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.response.close();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.mctech.fss.client.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 发送已签名请求的传输层，通过{@link com.mctech.fss.client.MCFssClientConfig#setTransport(FssTransport)}设置。
+ * 签名、重试、校验等都在客户端中完成，传输层只负责把请求原样发出并返回结果。实现需要线程安全
+ */
+public interface FssTransport extends Closeable {
+  /**
+   * 发送请求。状态码为4xx、5xx时同样正常返回，只在无法得到返回结果时抛出异常
+   *
+   * @return 返回结果，调用方负责关闭
+   */
+  TransportResponse execute(TransportRequest request) throws IOException;
+}
@@ -0,0 +1,53 @@
+package com.mctech.fss.client.transport;
+
+import com.mctech.fss.client.MCFssClientConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 创建内置的传输层
+ */
+public final class FssTransports {
+  private FssTransports() {
+  }
+
+  /**
+   * @return 当前Java版本是否支持{@link #jdkHttp(MCFssClientConfig)}
+   */
+  public static boolean isJdkHttpSupported() {
+    return JdkHttpSupport.isSupported();
+  }
+
+  /**
+   * 使用java.net.http发送请求，需要Java 11及以上版本。
+   * 按{@link MCFssClientConfig#isHttp2()}选择HTTP/2或HTTP/1.1，使用config中的连接及读取超时
+   *
+   * @throws UnsupportedOperationException 当前Java版本不支持java.net.http，可先用{@link #isJdkHttpSupported()}判断
+   */
+  public static FssTransport jdkHttp(MCFssClientConfig config) {
+    checkJdkHttpSupported();
+    AtomicInteger counter = new AtomicInteger();
+    return jdkHttp(config, Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "mc-fss-http-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }));
+  }
+
+  /**
+   * @param executor 处理返回结果及写出请求内容的线程池，关闭传输层时一并关闭
+   * @throws UnsupportedOperationException 当前Java版本不支持java.net.http，此时不会关闭executor
+   */
+  public static FssTransport jdkHttp(MCFssClientConfig config, ExecutorService executor) {
+    checkJdkHttpSupported();
+    return JdkHttpSupport.create(config, executor);
+  }
+
+  private static void checkJdkHttpSupported() {
+    if (!JdkHttpSupport.isSupported()) {
+      throw new UnsupportedOperationException("当前Java版本不支持java.net.http，需要Java 11及以上版本");
+    }
+  }
+}
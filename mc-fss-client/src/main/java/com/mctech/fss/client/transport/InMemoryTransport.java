@@ -0,0 +1,418 @@
+package com.mctech.fss.client.transport;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在内存中模拟FSS服务端，不发出网络请求，用于测试及排除网络影响的性能测试。
+ * 支持上传、下载(含Range、If-Match及If-None-Match)、HEAD、删除、复制、列举及分片上传，不校验签名
+ */
+public class InMemoryTransport implements FssTransport {
+  private static final String META_PREFIX = "x-fss-meta-";
+  private static final String COPY_SOURCE = "x-fss-copy-source";
+  private static final int DEFAULT_MAX_KEYS = 1000;
+
+  /**
+   * 以"bucket/key"为键，按字典序保存
+   */
+  private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, MultipartUpload> uploads = new ConcurrentHashMap<>();
+  private final AtomicLong requestCount = new AtomicLong();
+
+  /**
+   * @return 收到的请求数量
+   */
+  public long getRequestCount() {
+    return this.requestCount.get();
+  }
+
+  /**
+   * @return 文件内容，不存在时为null
+   */
+  public byte[] getContent(String bucket, String key) {
+    StoredObject object = this.objects.get(bucket + "/" + key);
+    return object != null ? object.content.clone() : null;
+  }
+
+  /**
+   * 直接写入文件，用于准备测试数据
+   */
+  public void putContent(String bucket, String key, byte[] content, String contentType) {
+    this.objects.put(bucket + "/" + key, new StoredObject(content.clone(), contentType, new HashMap<>(), null));
+  }
+
+  /**
+   * 清空全部文件
+   */
+  public void clear() {
+    this.objects.clear();
+    this.uploads.clear();
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    this.requestCount.incrementAndGet();
+    String path = request.getUri().getPath();
+    int slash = path.indexOf('/', 1);
+    if (slash < 0) {
+      return error(400, "InvalidURI", "缺少bucket: " + path);
+    }
+    String bucket = path.substring(1, slash);
+    String key = path.substring(slash + 1);
+    Map<String, String> query = parseQuery(request.getUri().getRawQuery());
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(request.getHeaders());
+    byte[] body = readBody(request.getBody());
+    String contentMd5 = headers.get("Content-MD5");
+    if (contentMd5 != null && !contentMd5.isEmpty() && !contentMd5.equals(Base64.encodeBase64String(DigestUtils.md5(body)))) {
+      return error(400, "BadDigest", "Content-MD5与内容不一致");
+    }
+
+    if (query.containsKey("uploads") || query.containsKey("uploadId")) {
+      return this.multipart(request.getMethod(), bucket, key, query, headers, body);
+    }
+    switch (request.getMethod()) {
+      case "PUT":
+        return this.put(bucket, key, headers, body);
+      case "GET":
+        return key.isEmpty() ? this.list(bucket, query) : this.get(bucket, key, headers, false);
+      case "HEAD":
+        return this.get(bucket, key, headers, true);
+      case "DELETE":
+        this.objects.remove(bucket + "/" + key);
+        return response(204, new TreeMap<>(), null);
+      default:
+        return error(405, "MethodNotAllowed", request.getMethod());
+    }
+  }
+
+  private TransportResponse put(String bucket, String key, Map<String, String> headers, byte[] body) {
+    String source = headers.get(COPY_SOURCE);
+    StoredObject object;
+    if (source != null) {
+      StoredObject from = this.objects.get(bucket + "/" + source);
+      if (from == null) {
+        return error(404, "NoSuchKey", "文件不存在: " + source);
+      }
+      object = from;
+    } else {
+      object = new StoredObject(body, headers.get("Content-Type"), metadata(headers),
+          headers.get("content-disposition"));
+    }
+    this.objects.put(bucket + "/" + key, object);
+    Map<String, List<String>> responseHeaders = new TreeMap<>();
+    add(responseHeaders, "ETag", object.etag);
+    return response(200, responseHeaders, null);
+  }
+
+  private TransportResponse get(String bucket, String key, Map<String, String> headers, boolean head) {
+    StoredObject object = this.objects.get(bucket + "/" + key);
+    if (object == null) {
+      return head ? response(404, new TreeMap<>(), null) : error(404, "NoSuchKey", "文件不存在: " + key);
+    }
+    String ifMatch = headers.get("If-Match");
+    if (ifMatch != null && !ifMatch.equals(object.etag)) {
+      return head ? response(412, new TreeMap<>(), null) : error(412, "PreconditionFailed", "ETag不一致: " + key);
+    }
+    Map<String, List<String>> responseHeaders = object.headers();
+    if (object.etag.equals(headers.get("If-None-Match"))) {
+      return response(304, responseHeaders, null);
+    }
+    byte[] content = object.content;
+    int status = 200;
+    String range = headers.get("Range");
+    int[] bounds = range != null && content.length > 0 ? parseRange(range, content.length) : null;
+    if (bounds != null) {
+      int start = bounds[0];
+      int end = bounds[1];
+      if (start > end) {
+        return error(416, "InvalidRange", range);
+      }
+      byte[] part = new byte[end - start + 1];
+      System.arraycopy(content, start, part, 0, part.length);
+      add(responseHeaders, "Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+      content = part;
+      status = 206;
+    }
+    add(responseHeaders, "Content-Length", Integer.toString(content.length));
+    return response(status, responseHeaders, head ? null : content);
+  }
+
+  /**
+   * 解析单个范围，支持"bytes=start-end"、"bytes=start-"及"bytes=-suffixLength"。
+   * 多个范围或格式错误时与常见实现相同忽略Range返回完整内容
+   *
+   * @return 开始及结束位置(含)，忽略Range时为null；范围不可满足时开始位置大于结束位置
+   */
+  private static int[] parseRange(String range, int length) {
+    if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+      return null;
+    }
+    String spec = range.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    try {
+      if (dash == 0) {
+        long suffix = Long.parseLong(spec.substring(1));
+        return suffix <= 0 ? new int[]{length, length - 1} : new int[]{(int) Math.max(0, length - suffix), length - 1};
+      }
+      long start = Long.parseLong(spec.substring(0, dash));
+      long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+      if (start < 0 || end < start) {
+        return null;
+      }
+      return start >= length ? new int[]{length, length - 1} : new int[]{(int) start, (int) Math.min(end, length - 1)};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private TransportResponse list(String bucket, Map<String, String> query) {
+    String prefix = query.getOrDefault("prefix", "");
+    String delimiter = query.get("delimiter");
+    String marker = query.get("marker");
+    int maxKeys = query.containsKey("max-keys") ? Integer.parseInt(query.get("max-keys")) : DEFAULT_MAX_KEYS;
+
+    String from = bucket + "/" + (marker != null && marker.compareTo(prefix) > 0 ? marker : prefix);
+    NavigableMap<String, StoredObject> candidates = this.objects.tailMap(from, marker == null || marker.compareTo(prefix) <= 0);
+    StringBuilder contents = new StringBuilder();
+    TreeSet<String> commonPrefixes = new TreeSet<>();
+    String last = null;
+    int count = 0;
+    boolean truncated = false;
+    for (Map.Entry<String, StoredObject> entry : candidates.entrySet()) {
+      String key = entry.getKey().substring(bucket.length() + 1);
+      if (!entry.getKey().startsWith(bucket + "/") || !key.startsWith(prefix)) {
+        break;
+      }
+      String commonPrefix = null;
+      if (delimiter != null && !delimiter.isEmpty()) {
+        int index = key.indexOf(delimiter, prefix.length());
+        if (index >= 0) {
+          commonPrefix = key.substring(0, index + delimiter.length());
+        }
+      }
+      if (commonPrefix != null && commonPrefixes.contains(commonPrefix)) {
+        continue;
+      }
+      if (count == maxKeys) {
+        truncated = true;
+        break;
+      }
+      count++;
+      if (commonPrefix != null) {
+        commonPrefixes.add(commonPrefix);
+        last = commonPrefix;
+        continue;
+      }
+      StoredObject object = entry.getValue();
+      contents.append("<Contents><Key>").append(escapeXml(key)).append("</Key><LastModified>")
+          .append(object.lastModified).append("</LastModified><ETag>").append(escapeXml(object.etag))
+          .append("</ETag><Size>").append(object.content.length).append("</Size></Contents>");
+      last = key;
+    }
+
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListBucketResult><Name>")
+        .append(escapeXml(bucket)).append("</Name><Prefix>").append(escapeXml(prefix)).append("</Prefix><MaxKeys>")
+        .append(maxKeys).append("</MaxKeys><IsTruncated>").append(truncated).append("</IsTruncated>");
+    if (truncated && last != null) {
+      xml.append("<NextMarker>").append(escapeXml(last)).append("</NextMarker>");
+    }
+    xml.append(contents);
+    for (String commonPrefix : commonPrefixes) {
+      xml.append("<CommonPrefixes><Prefix>").append(escapeXml(commonPrefix)).append("</Prefix></CommonPrefixes>");
+    }
+    xml.append("</ListBucketResult>");
+    return xml(200, xml.toString());
+  }
+
+  private TransportResponse multipart(String method, String bucket, String key, Map<String, String> query,
+                                      Map<String, String> headers, byte[] body) {
+    if ("POST".equals(method) && query.containsKey("uploads")) {
+      String uploadId = UUID.randomUUID().toString();
+      this.uploads.put(uploadId, new MultipartUpload(bucket + "/" + key, headers));
+      return xml(200, "<InitiateMultipartUploadResult><Bucket>" + escapeXml(bucket) + "</Bucket><Key>"
+          + escapeXml(key) + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+    }
+    String uploadId = query.get("uploadId");
+    MultipartUpload upload = this.uploads.get(uploadId);
+    if (upload == null || !upload.path.equals(bucket + "/" + key)) {
+      return error(404, "NoSuchUpload", "分片上传不存在: " + uploadId);
+    }
+    switch (method) {
+      case "PUT": {
+        int partNumber = Integer.parseInt(query.get("partNumber"));
+        upload.parts.put(partNumber, body);
+        Map<String, List<String>> responseHeaders = new TreeMap<>();
+        add(responseHeaders, "ETag", etag(body));
+        return response(200, responseHeaders, null);
+      }
+      case "POST": {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        for (byte[] part : upload.parts.values()) {
+          content.write(part, 0, part.length);
+          byte[] md5 = DigestUtils.md5(part);
+          digests.write(md5, 0, md5.length);
+        }
+        this.uploads.remove(uploadId);
+        // 与常见实现相同，合并后的ETag为各分片MD5的MD5加分片数，不是内容的MD5
+        String etag = "\"" + Hex.encodeHexString(DigestUtils.md5(digests.toByteArray())) + "-" + upload.parts.size() + "\"";
+        StoredObject object = new StoredObject(content.toByteArray(), upload.headers.get("Content-Type"),
+            metadata(upload.headers), upload.headers.get("content-disposition"), etag);
+        this.objects.put(upload.path, object);
+        return xml(200, "<CompleteMultipartUploadResult><Key>" + escapeXml(key) + "</Key><ETag>"
+            + escapeXml(etag) + "</ETag></CompleteMultipartUploadResult>");
+      }
+      case "DELETE":
+        this.uploads.remove(uploadId);
+        return response(204, new TreeMap<>(), null);
+      default:
+        return error(405, "MethodNotAllowed", method);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+
+  private static byte[] readBody(TransportBody body) throws IOException {
+    if (body == null) {
+      return new byte[0];
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.getContentLength() > 0 ? (int) body.getContentLength() : 256);
+    body.writeTo(out);
+    return out.toByteArray();
+  }
+
+  private static Map<String, String> metadata(Map<String, String> headers) {
+    Map<String, String> metadata = new HashMap<>();
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      if (header.getKey().toLowerCase(Locale.ROOT).startsWith(META_PREFIX)) {
+        metadata.put(header.getKey().toLowerCase(Locale.ROOT), header.getValue());
+      }
+    }
+    return metadata;
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return query;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int index = pair.indexOf('=');
+      String name = index < 0 ? pair : pair.substring(0, index);
+      String value = index < 0 ? "" : pair.substring(index + 1);
+      query.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+    }
+    return query;
+  }
+
+  private static String etag(byte[] content) {
+    return "\"" + Hex.encodeHexString(DigestUtils.md5(content)) + "\"";
+  }
+
+  private static void add(Map<String, List<String>> headers, String name, String value) {
+    headers.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+  }
+
+  private static TransportResponse xml(int status, String xml) {
+    Map<String, List<String>> headers = new TreeMap<>();
+    byte[] content = xml.getBytes(StandardCharsets.UTF_8);
+    add(headers, "Content-Type", "application/xml");
+    add(headers, "Content-Length", Integer.toString(content.length));
+    return response(status, headers, content);
+  }
+
+  private static TransportResponse error(int status, String code, String message) {
+    return xml(status, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>"
+        + escapeXml(message) + "</Message></Error>");
+  }
+
+  private static TransportResponse response(int status, Map<String, List<String>> headers, byte[] content) {
+    if (content == null && !headers.containsKey("Content-Length")) {
+      add(headers, "Content-Length", "0");
+    }
+    return new TransportResponse(status, headers, content != null ? new ByteArrayInputStream(content) : null);
+  }
+
+  private static String escapeXml(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+  }
+
+  private static final class StoredObject {
+    private final byte[] content;
+    private final String contentType;
+    private final Map<String, String> metadata;
+    private final String contentDisposition;
+    private final String etag;
+    private final Instant lastModified = Instant.now();
+
+    private StoredObject(byte[] content, String contentType, Map<String, String> metadata, String contentDisposition) {
+      this(content, contentType, metadata, contentDisposition, etag(content));
+    }
+
+    private StoredObject(byte[] content, String contentType, Map<String, String> metadata,
+                         String contentDisposition, String etag) {
+      this.content = content;
+      this.contentType = contentType;
+      this.metadata = metadata;
+      this.contentDisposition = contentDisposition;
+      this.etag = etag;
+    }
+
+    private Map<String, List<String>> headers() {
+      Map<String, List<String>> headers = new TreeMap<>();
+      add(headers, "ETag", this.etag);
+      add(headers, "Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(this.lastModified.atZone(ZoneOffset.UTC)));
+      if (this.contentType != null) {
+        add(headers, "Content-Type", this.contentType);
+      }
+      if (this.contentDisposition != null) {
+        add(headers, "Content-Disposition", this.contentDisposition);
+      }
+      for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+        add(headers, entry.getKey(), entry.getValue());
+      }
+      return headers;
+    }
+  }
+
+  private static final class MultipartUpload {
+    private final String path;
+    private final Map<String, String> headers;
+    private final NavigableMap<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+
+    private MultipartUpload(String path, Map<String, String> headers) {
+      this.path = path;
+      this.headers = headers;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.mctech.fss.client.transport;
+
+import com.mctech.fss.client.MCFssClientConfig;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * java.net.http支持。在Java 11及以上版本中运行时使用META-INF/versions/11下的实现，此处为不支持时的实现
+ */
+final class JdkHttpSupport {
+  private JdkHttpSupport() {
+  }
+
+  static boolean isSupported() {
+    return false;
+  }
+
+  /**
+   * @return 不支持java.net.http时为null
+   */
+  static FssTransport create(MCFssClientConfig config, ExecutorService executor) {
+    return null;
+  }
+}
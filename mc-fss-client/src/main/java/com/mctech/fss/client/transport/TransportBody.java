@@ -0,0 +1,29 @@
+package com.mctech.fss.client.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 请求发送的内容
+ */
+public interface TransportBody {
+  /**
+   * @return 内容长度，未知时为-1
+   */
+  long getContentLength();
+
+  /**
+   * @return 内容类型，没有时为null
+   */
+  String getContentType();
+
+  /**
+   * @return 是否可以多次调用{@link #writeTo(OutputStream)}，为false时请求失败后不能重新发送
+   */
+  boolean isRepeatable();
+
+  /**
+   * 写出全部内容。限速、校验等处理在写出时进行，传输层需要使用该方法读取内容
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,58 @@
+package com.mctech.fss.client.transport;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 已签名的请求。请求头中已包含签名信息，传输层不能修改
+ */
+@Getter
+public class TransportRequest {
+  private final String method;
+  private final URI uri;
+  /**
+   * 请求头，不包含由传输层生成的Host、Content-Length等
+   */
+  private final Map<String, String> headers;
+  /**
+   * 请求内容，没有时为null
+   */
+  private final TransportBody body;
+
+  @Getter(AccessLevel.NONE)
+  private final AtomicReference<Runnable> cancelAction = new AtomicReference<>();
+  private volatile boolean cancelled;
+
+  public TransportRequest(String method, URI uri, Map<String, String> headers, TransportBody body) {
+    this.method = method;
+    this.uri = uri;
+    this.headers = Collections.unmodifiableMap(headers);
+    this.body = body;
+  }
+
+  /**
+   * 由传输层在发送前调用，注册中止发送的操作。请求已被取消时立即执行
+   */
+  public void onCancel(Runnable action) {
+    this.cancelAction.set(action);
+    if (this.cancelled && this.cancelAction.compareAndSet(action, null)) {
+      action.run();
+    }
+  }
+
+  /**
+   * 取消请求，对冲请求等需要放弃正在进行的请求时调用
+   */
+  public void cancel() {
+    this.cancelled = true;
+    Runnable action = this.cancelAction.getAndSet(null);
+    if (action != null) {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.mctech.fss.client.transport;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求的返回结果。关闭时关闭返回内容的流，未读完时传输层可以直接断开连接
+ */
+@Getter
+public class TransportResponse implements Closeable {
+  private final int statusCode;
+  /**
+   * 返回头，同一个名称可以有多个值
+   */
+  private final Map<String, List<String>> headers;
+  /**
+   * 返回内容，没有内容时为null
+   */
+  private final InputStream body;
+
+  public TransportResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+    this.statusCode = statusCode;
+    this.headers = Collections.unmodifiableMap(headers);
+    this.body = body;
+  }
+
+  /**
+   * @return 指定名称的第一个返回头，名称不区分大小写，没有时为null
+   */
+  public String getFirstHeader(String name) {
+    for (Map.Entry<String, List<String>> entry : this.headers.entrySet()) {
+      if (entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+        return entry.getValue().get(0);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return 返回头中的内容长度，未知时为-1
+   */
+  public long getContentLength() {
+    String value = this.getFirstHeader("Content-Length");
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.body != null) {
+      this.body.close();
+    }
+  }
+}
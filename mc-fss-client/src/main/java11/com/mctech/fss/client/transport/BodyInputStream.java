@@ -0,0 +1,115 @@
+package com.mctech.fss.client.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * 在单独的线程中调用{@link TransportBody#writeTo}，把写出的内容作为输入流读取。
+ * 限速、校验等包装只在writeTo中生效，不能直接使用getContent。
+ * 使用阻塞队列传递数据，不使用synchronized，在虚拟线程中等待时不会占住载体线程
+ */
+final class BodyInputStream extends InputStream {
+  private static final byte[] EOF = new byte[0];
+  private static final int QUEUE_SIZE = 16;
+
+  private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+  private volatile IOException error;
+  private volatile boolean closed;
+  private byte[] current;
+  private int position;
+
+  private BodyInputStream() {
+  }
+
+  static InputStream open(TransportBody body, Executor executor) {
+    BodyInputStream in = new BodyInputStream();
+    executor.execute(() -> in.write(body));
+    return in;
+  }
+
+  private void write(TransportBody body) {
+    try {
+      body.writeTo(new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          if (len > 0) {
+            put(Arrays.copyOfRange(b, off, off + len));
+          }
+        }
+      });
+    } catch (IOException e) {
+      this.error = e;
+    } catch (RuntimeException e) {
+      this.error = new IOException(e);
+    } finally {
+      try {
+        this.put(EOF);
+      } catch (IOException ignored) {
+        // 读取端已关闭
+      }
+    }
+  }
+
+  private void put(byte[] data) throws IOException {
+    if (this.closed) {
+      throw new IOException("请求内容已不再读取");
+    }
+    try {
+      this.queue.put(data);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int read = this.read(b, 0, 1);
+    return read < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (this.current == null || (this.current != EOF && this.position == this.current.length)) {
+      try {
+        this.current = this.queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      this.position = 0;
+    }
+    if (this.current == EOF) {
+      if (this.error != null) {
+        throw this.error;
+      }
+      return -1;
+    }
+    int count = Math.min(len, this.current.length - this.position);
+    System.arraycopy(this.current, this.position, b, off, count);
+    this.position += count;
+    return count;
+  }
+
+  @Override
+  public void close() {
+    this.closed = true;
+    // 让写入端从等待中返回
+    this.queue.clear();
+  }
+}
@@ -0,0 +1,21 @@
+package com.mctech.fss.client.transport;
+
+import com.mctech.fss.client.MCFssClientConfig;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * java.net.http支持，Java 11及以上版本中使用
+ */
+final class JdkHttpSupport {
+  private JdkHttpSupport() {
+  }
+
+  static boolean isSupported() {
+    return true;
+  }
+
+  static FssTransport create(MCFssClientConfig config, ExecutorService executor) {
+    return new JdkHttpTransport(config, executor);
+  }
+}
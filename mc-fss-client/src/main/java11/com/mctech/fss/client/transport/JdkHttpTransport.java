@@ -0,0 +1,128 @@
+package com.mctech.fss.client.transport;
+
+import com.mctech.fss.client.MCFssClientConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 使用java.net.http发送请求，可使用HTTP/2在一个连接上并发多个请求。
+ * 等待连接和返回结果时不会占住载体线程，适合在虚拟线程中调用
+ */
+final class JdkHttpTransport implements FssTransport {
+  /**
+   * java.net.http不允许设置的请求头，由其自行生成
+   */
+  private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  /**
+   * Java 21及以上版本中的HttpClient#shutdownNow，低版本中为null
+   */
+  private static final MethodHandle SHUTDOWN_NOW = shutdownNow();
+
+  static {
+    RESTRICTED_HEADERS.add("Connection");
+    RESTRICTED_HEADERS.add("Content-Length");
+    RESTRICTED_HEADERS.add("Expect");
+    RESTRICTED_HEADERS.add("Host");
+    RESTRICTED_HEADERS.add("Transfer-Encoding");
+    RESTRICTED_HEADERS.add("Upgrade");
+  }
+
+  private final HttpClient client;
+  private final ExecutorService executor;
+  private final Duration timeout;
+
+  JdkHttpTransport(MCFssClientConfig config, ExecutorService executor) {
+    this.executor = executor;
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(config.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        // 签名与请求的资源路径绑定，重定向后签名不再有效，由调用方处理3xx
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .executor(executor);
+    if (config.getConnectTimeoutMillis() > 0) {
+      builder.connectTimeout(Duration.ofMillis(config.getConnectTimeoutMillis()));
+    }
+    this.client = builder.build();
+    this.timeout = config.getSocketTimeoutMillis() > 0 ? Duration.ofMillis(config.getSocketTimeoutMillis()) : null;
+  }
+
+  @Override
+  public TransportResponse execute(TransportRequest request) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri());
+    if (this.timeout != null) {
+      builder.timeout(this.timeout);
+    }
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+        builder.header(header.getKey(), header.getValue());
+      }
+    }
+    builder.method(request.getMethod(), this.bodyPublisher(request.getBody()));
+
+    CompletableFuture<HttpResponse<InputStream>> future =
+        this.client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+    request.onCancel(() -> future.cancel(true));
+    try {
+      HttpResponse<InputStream> response = future.get();
+      return new TransportResponse(response.statusCode(), response.headers().map(), response.body());
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    } catch (CancellationException e) {
+      throw new InterruptedIOException("请求已取消");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+
+  private HttpRequest.BodyPublisher bodyPublisher(TransportBody body) {
+    if (body == null || body.getContentLength() == 0) {
+      return HttpRequest.BodyPublishers.noBody();
+    }
+    HttpRequest.BodyPublisher publisher = HttpRequest.BodyPublishers.ofInputStream(
+        () -> BodyInputStream.open(body, this.executor));
+    long length = body.getContentLength();
+    return length > 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher, length) : publisher;
+  }
+
+  @Override
+  public void close() {
+    if (SHUTDOWN_NOW != null) {
+      try {
+        SHUTDOWN_NOW.invoke(this.client);
+      } catch (Throwable ignored) {
+        // 只影响连接关闭的时机
+      }
+    }
+    this.executor.shutdownNow();
+  }
+
+  private static MethodHandle shutdownNow() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(HttpClient.class, "shutdownNow", MethodType.methodType(void.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
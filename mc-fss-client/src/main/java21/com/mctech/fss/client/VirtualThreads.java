@@ -0,0 +1,30 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.FssTransports;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程支持，Java 21及以上版本中使用
+ */
+final class VirtualThreads {
+  private VirtualThreads() {
+  }
+
+  /**
+   * @param prefix 线程名称前缀
+   * @return 每个任务使用一个新虚拟线程的线程池，不支持虚拟线程时为null
+   */
+  static ExecutorService newExecutor(String prefix) {
+    return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+  }
+
+  /**
+   * @return 使用虚拟线程和java.net.http发送请求的传输层，不支持虚拟线程时为null
+   */
+  static FssTransport newTransport(MCFssClientConfig config) {
+    return FssTransports.jdkHttp(config, newExecutor("mc-fss-http-"));
+  }
+}
@@ -0,0 +1,101 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.ChecksumMismatchException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChecksumInputStreamTest {
+  private final byte[] data = new byte[100_000];
+  private final List<ContentChecksum> completed = new ArrayList<>();
+
+  public ChecksumInputStreamTest() {
+    new Random(1).nextBytes(this.data);
+  }
+
+  @Test
+  public void matches() throws Exception {
+    try (InputStream in = this.open(DigestUtils.md5Hex(this.data), -1)) {
+      readAll(in);
+    }
+    assertEquals(1, this.completed.size());
+    assertEquals(DigestUtils.md5Hex(this.data), this.completed.get(0).getMd5());
+    Crc32c crc = new Crc32c();
+    crc.update(this.data, 0, this.data.length);
+    assertEquals(crc.getValue(), this.completed.get(0).getCrc32c());
+  }
+
+  @Test
+  public void mismatch() throws Exception {
+    byte[] other = this.data.clone();
+    other[other.length / 2] ^= 1;
+    String expected = DigestUtils.md5Hex(other);
+    try (InputStream in = this.open(expected, -1)) {
+      readAll(in);
+      fail("内容与MD5不一致时应当抛出异常");
+    } catch (ChecksumMismatchException e) {
+      assertEquals(expected, e.getExpected());
+      assertEquals(DigestUtils.md5Hex(this.data), e.getActual());
+    }
+    // 校验值在比较前已经交给调用方
+    assertEquals(1, this.completed.size());
+  }
+
+  @Test
+  public void mismatchAtKnownLength() throws Exception {
+    // 长度已知时读到该长度即校验，不需要再读到流末尾
+    try (InputStream in = this.open("00000000000000000000000000000000", this.data.length)) {
+      byte[] buffer = new byte[this.data.length];
+      int read = 0;
+      try {
+        while (read < buffer.length) {
+          read += in.read(buffer, read, buffer.length - read);
+        }
+        fail("读到指定长度时应当完成校验");
+      } catch (ChecksumMismatchException e) {
+        assertEquals("00000000000000000000000000000000", e.getExpected());
+      }
+    }
+  }
+
+  @Test
+  public void skippedContentIsChecked() throws Exception {
+    try (InputStream in = this.open(DigestUtils.md5Hex(this.data), -1)) {
+      assertEquals(1000, in.skip(1000));
+      assertTrue(in.read() >= 0);
+      readAll(in);
+    }
+    assertEquals(DigestUtils.md5Hex(this.data), this.completed.get(0).getMd5());
+  }
+
+  @Test
+  public void computeOnly() throws Exception {
+    try (InputStream in = this.open(null, -1)) {
+      readAll(in);
+    }
+    assertNotNull(this.completed.get(0));
+    assertEquals(DigestUtils.md5Hex(this.data), this.completed.get(0).getMd5());
+  }
+
+  private InputStream open(String expectedMd5, long length) {
+    return new ChecksumInputStream(new ByteArrayInputStream(this.data), expectedMd5, length, this.completed::add);
+  }
+
+  private static void readAll(InputStream in) throws IOException {
+    byte[] buffer = new byte[8192];
+    while (in.read(buffer) >= 0) {
+      // 只需要读完
+    }
+  }
+}
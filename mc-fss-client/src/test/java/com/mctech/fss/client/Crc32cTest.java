@@ -0,0 +1,65 @@
+package com.mctech.fss.client;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 运行在Java 9及以上版本时{@link Crc32c#create()}返回JDK自带的实现，查表实现需要直接创建实例测试
+ */
+public class Crc32cTest {
+  @Test
+  public void checkValue() {
+    byte[] data = "123456789".getBytes(StandardCharsets.US_ASCII);
+    Crc32c crc = new Crc32c();
+    crc.update(data, 0, data.length);
+    assertEquals(0xE3069283L, crc.getValue());
+
+    crc.reset();
+    for (byte b : data) {
+      crc.update(b);
+    }
+    assertEquals(0xE3069283L, crc.getValue());
+  }
+
+  @Test
+  public void empty() {
+    Crc32c crc = new Crc32c();
+    assertEquals(0L, crc.getValue());
+    crc.update(new byte[8], 8, 0);
+    assertEquals(0L, crc.getValue());
+  }
+
+  @Test
+  public void splitUpdates() {
+    byte[] data = new byte[1000];
+    new Random(1).nextBytes(data);
+    Crc32c whole = new Crc32c();
+    whole.update(data, 0, data.length);
+    for (int split = 0; split <= data.length; split++) {
+      Crc32c crc = new Crc32c();
+      crc.update(data, 0, split);
+      crc.update(data, split, data.length - split);
+      assertEquals("split " + split, whole.getValue(), crc.getValue());
+    }
+  }
+
+  @Test
+  public void matchesCreatedChecksum() {
+    // 覆盖按8字节处理及剩余不足8字节的部分，以及数组中间的偏移
+    Random random = new Random(2);
+    for (int length = 0; length <= 100; length++) {
+      byte[] data = new byte[length + 3];
+      random.nextBytes(data);
+      Crc32c crc = new Crc32c();
+      crc.update(data, 3, length);
+      Checksum expected = Crc32c.create();
+      expected.update(data, 3, length);
+      assertEquals("length " + length, expected.getValue(), crc.getValue());
+    }
+  }
+}
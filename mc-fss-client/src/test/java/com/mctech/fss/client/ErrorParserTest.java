@@ -0,0 +1,223 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.AccessDeniedException;
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import com.mctech.fss.client.exception.NoSuchBucketException;
+import com.mctech.fss.client.exception.NoSuchKeyException;
+import com.mctech.fss.client.exception.SignatureDoesNotMatchException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 服务端返回的错误信息解析，fixture位于errors目录下
+ */
+public class ErrorParserTest {
+  @Test
+  public void noSuchKey() throws Exception {
+    MCTechFssRequestException e = toException(404, "no-such-key.xml");
+    assertTrue(e instanceof NoSuchKeyException);
+    assertEquals(404, e.getStatusCode());
+    assertEquals("The specified key does not exist.", e.getMessage());
+    assertEquals("NoSuchKey", e.getError().getCode());
+    assertEquals("dir/a.txt", e.getError().getProperty("Key"));
+    assertEquals("5F1A2B3C4D5E", e.getError().getProperty("RequestId"));
+  }
+
+  @Test
+  public void accessDenied() throws Exception {
+    MCTechFssRequestException e = toException(403, "access-denied.xml");
+    assertTrue(e instanceof AccessDeniedException);
+    assertEquals(403, e.getStatusCode());
+    assertEquals("拒绝访问", e.getMessage());
+  }
+
+  @Test
+  public void signatureDoesNotMatch() throws Exception {
+    MCTechFssRequestException e = toException(403, "signature-does-not-match.xml");
+    assertTrue(e instanceof SignatureDoesNotMatchException);
+    assertEquals(403, e.getStatusCode());
+    FssClientError error = e.getError();
+    assertEquals("GET\n\n\nTue, 14 Nov 2023 22:13:20 GMT\n/bucket/a&b.txt", error.getStringToSign());
+    assertEquals("47 45 54 0a", error.getStringToSignBytes());
+    assertEquals("RG2Z/CafiJ+ACBT2wrmJpdZRJ0g=", error.getSignatureProvided());
+    assertEquals("test-id", error.getAccessKeyId());
+  }
+
+  @Test
+  public void json() throws Exception {
+    MCTechFssRequestException e = toException(404, "no-such-bucket.json");
+    assertTrue(e instanceof NoSuchBucketException);
+    assertEquals(404, e.getStatusCode());
+    assertEquals("bucket不存在", e.getMessage());
+    assertEquals("5F1A2B3C4D5E", e.getError().getProperty("requestId"));
+    // 值为null的属性不保留
+    assertNull(e.getError().getProperty("detail"));
+  }
+
+  @Test
+  public void byteOrderMarkAndWhitespace() throws Exception {
+    MCTechFssRequestException e = toException(403, "bom.xml");
+    assertTrue(e instanceof AccessDeniedException);
+    assertEquals("带BOM", e.getMessage());
+  }
+
+  @Test
+  public void otherContentUsesStatusLine() throws Exception {
+    MCTechFssRequestException e = toException(404, "not-found.html");
+    // 没有错误码时404视为文件不存在
+    assertTrue(e instanceof NoSuchKeyException);
+    assertEquals("HTTP/1.1 404 Not Found", e.getMessage());
+    assertNull(e.getError().getCode());
+
+    e = ErrorParser.toException(ErrorParser.parse(response(502, "Bad Gateway".getBytes(StandardCharsets.UTF_8))), 502);
+    assertEquals(MCTechFssRequestException.class, e.getClass());
+    assertEquals(502, e.getStatusCode());
+    assertEquals("HTTP/1.1 502 Bad Gateway", e.getMessage());
+  }
+
+  @Test
+  public void emptyBody() {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not Found");
+    MCTechFssRequestException e = ErrorParser.toException(ErrorParser.parse(response), 404);
+    assertTrue(e instanceof NoSuchKeyException);
+    assertEquals("HTTP/1.1 404 Not Found", e.getMessage());
+  }
+
+  @Test
+  public void unknownCode() throws Exception {
+    byte[] body = "<Error><Code>InternalError</Code><Message>服务端错误</Message></Error>".getBytes(StandardCharsets.UTF_8);
+    MCTechFssRequestException e = ErrorParser.toException(ErrorParser.parse(response(500, body)), 500);
+    assertEquals(MCTechFssRequestException.class, e.getClass());
+    assertEquals("InternalError", e.getError().getCode());
+    assertEquals(500, e.getStatusCode());
+  }
+
+  @Test
+  public void internalEntitiesNotExpanded() throws Exception {
+    FssClientError error = ErrorParser.parse(response(500, fixture("entity-expansion.xml")));
+    String message = error.getMessage();
+    assertTrue(message, message.length() < 1000);
+    assertFalse(message, message.contains("aaaaaaaaaa"));
+  }
+
+  @Test
+  public void externalEntitiesNotResolved() throws Exception {
+    Path secret = Files.createTempFile("mc-fss-secret", ".txt");
+    try {
+      Files.write(secret, "TOP-SECRET-CONTENT".getBytes(StandardCharsets.UTF_8));
+      String[] bodies = {
+          "<?xml version=\"1.0\"?><!DOCTYPE Error [<!ENTITY x SYSTEM \"" + secret.toUri() + "\">]>"
+              + "<Error><Code>AccessDenied</Code><Message>&x;</Message></Error>",
+          "<?xml version=\"1.0\"?><!DOCTYPE Error SYSTEM \"" + secret.toUri() + "\">"
+              + "<Error><Code>AccessDenied</Code><Message>m</Message></Error>",
+          "<?xml version=\"1.0\"?><!DOCTYPE Error [<!ENTITY % p SYSTEM \"" + secret.toUri() + "\"> %p;]>"
+              + "<Error><Code>AccessDenied</Code><Message>m</Message></Error>",
+      };
+      for (String body : bodies) {
+        FssClientError error = ErrorParser.parse(response(403, body.getBytes(StandardCharsets.UTF_8)));
+        for (String name : new String[]{"Code", "Message"}) {
+          String value = error.getProperty(name);
+          assertFalse(body, value != null && value.contains("TOP-SECRET"));
+        }
+      }
+    } finally {
+      Files.deleteIfExists(secret);
+    }
+  }
+
+  @Test
+  public void readsAtMostMaxBodySize() {
+    // 长度未知且不会结束的内容，只读取MAX_BODY_SIZE字节
+    AtomicLong read = new AtomicLong();
+    InputStream endless = new InputStream() {
+      @Override
+      public int read() {
+        read.incrementAndGet();
+        return 'a';
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        for (int i = 0; i < len; i++) {
+          b[off + i] = 'a';
+        }
+        read.addAndGet(len);
+        return len;
+      }
+    };
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 500, "Internal Server Error");
+    response.setEntity(new InputStreamEntity(new SequenceInputStream(
+        new ByteArrayInputStream("<Error><Message>".getBytes(StandardCharsets.UTF_8)), endless), -1));
+    FssClientError error = ErrorParser.parse(response);
+    assertTrue(read.get() <= ErrorParser.MAX_BODY_SIZE);
+    assertEquals("HTTP/1.1 500 Internal Server Error", error.getMessage());
+  }
+
+  @Test
+  public void largeContentLength() throws Exception {
+    // 声明的长度超过上限时也只读取MAX_BODY_SIZE字节，截断的xml无法解析
+    StringBuilder body = new StringBuilder("<Error><Code>InternalError</Code><Message>");
+    while (body.length() < ErrorParser.MAX_BODY_SIZE * 2) {
+      body.append("0123456789");
+    }
+    body.append("</Message></Error>");
+    FssClientError error = ErrorParser.parse(response(500, body.toString().getBytes(StandardCharsets.UTF_8)));
+    assertEquals("HTTP/1.1 500 Internal Server Error", error.getMessage());
+  }
+
+  @Test
+  public void readChildren() throws Exception {
+    Map<String, String> children = XmlParser.readChildren(new ByteArrayInputStream(fixture("no-such-key.xml")));
+    assertEquals(4, children.size());
+    assertEquals("dir/a.txt", children.get("Key"));
+    assertEquals("RG2Z/CafiJ+ACBT2wrmJpdZRJ0g=",
+        XmlParser.readFirst(new ByteArrayInputStream(fixture("signature-does-not-match.xml")), "SignatureProvided"));
+    assertNull(XmlParser.readFirst(new ByteArrayInputStream(fixture("access-denied.xml")), "Key"));
+  }
+
+  private static MCTechFssRequestException toException(int statusCode, String name) throws IOException {
+    FssClientError error = ErrorParser.parse(response(statusCode, fixture(name)));
+    return ErrorParser.toException(error, statusCode);
+  }
+
+  private static HttpResponse response(int statusCode, byte[] body) {
+    String reason = statusCode == 404 ? "Not Found"
+        : statusCode == 403 ? "Forbidden"
+        : statusCode == 502 ? "Bad Gateway" : "Internal Server Error";
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reason);
+    response.setEntity(new ByteArrayEntity(body));
+    return response;
+  }
+
+  private static byte[] fixture(String name) throws IOException {
+    try (InputStream in = ErrorParserTest.class.getResourceAsStream("errors/" + name)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.mctech.fss.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightLimiterTest {
+  @Test
+  public void synchronousReleaseDoesNotRecurse() {
+    InFlightLimiter limiter = new InFlightLimiter(1);
+    AtomicInteger depth = new AtomicInteger();
+    AtomicInteger maxDepth = new AtomicInteger();
+    AtomicInteger completed = new AtomicInteger();
+    // 第一个任务占住名额，其余任务排队
+    limiter.submit(() -> {
+    });
+    for (int i = 0; i < 100_000; i++) {
+      limiter.submit(() -> {
+        maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        completed.incrementAndGet();
+        // 相当于请求在发出时立即失败，在任务中同步归还名额
+        limiter.release();
+        depth.decrementAndGet();
+      });
+    }
+    assertEquals(100_000, limiter.getPendingCount());
+
+    limiter.release();
+    assertEquals(100_000, completed.get());
+    assertEquals(1, maxDepth.get());
+    assertEquals(0, limiter.getPendingCount());
+  }
+
+  @Test(timeout = 30_000)
+  public void concurrentRelease() throws InterruptedException {
+    int maxInFlight = 4;
+    int count = 20_000;
+    InFlightLimiter limiter = new InFlightLimiter(maxInFlight);
+    ExecutorService workers = Executors.newFixedThreadPool(8);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxObserved = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(count);
+    try {
+      for (int i = 0; i < count; i++) {
+        limiter.submit(() -> {
+          maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          // 在其他线程中完成，相当于I/O线程的回调
+          workers.execute(() -> {
+            inFlight.decrementAndGet();
+            done.countDown();
+            limiter.release();
+          });
+        });
+      }
+      assertTrue(done.await(20, TimeUnit.SECONDS));
+    } finally {
+      workers.shutdownNow();
+    }
+    assertTrue(maxObserved.get() <= maxInFlight);
+    assertEquals(0, limiter.getPendingCount());
+  }
+}
@@ -0,0 +1,153 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MultipartUploaderTest {
+  private static final int PART_SIZE = 100_000;
+
+  private final InMemoryTransport server = new InMemoryTransport();
+  private Path file;
+  private byte[] data;
+
+  @Before
+  public void setUp() throws IOException {
+    this.data = new byte[PART_SIZE * 3 + 123];
+    new Random(1).nextBytes(this.data);
+    this.file = Files.createTempFile("mc-fss-multipart", ".bin");
+    Files.write(this.file, this.data);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.file);
+  }
+
+  @Test
+  public void disabledByDefault() throws Exception {
+    MCFssClientConfig config = config(this.server);
+    assertEquals(Long.MAX_VALUE, config.getMultipartThreshold());
+    try (MCFssClient client = new MCFssClient(config)) {
+      client.upload("dir/a.bin", null, this.file, null, null).close();
+    }
+    assertEquals(1, this.server.getRequestCount());
+    assertArrayEquals(this.data, this.server.getContent("bucket", "dir/a.bin"));
+  }
+
+  @Test
+  public void uploadParts() throws Exception {
+    MCFssClientConfig config = multipartConfig(this.server);
+    try (MCFssClient client = new MCFssClient(config)) {
+      client.upload("dir/a.bin", "原始名称.bin", this.file, Collections.singletonMap("owner", "test"), "application/zip")
+          .close();
+      ObjectMeta meta = client.head("dir/a.bin");
+      assertEquals("application/zip", meta.getHeader("Content-Type"));
+      assertEquals("test", meta.getMeta().get("owner"));
+      assertTrue(meta.getHeader("ETag").endsWith("-4\""));
+    }
+    // 初始化 + 4个分片 + 合并 + HEAD
+    assertEquals(7, this.server.getRequestCount());
+    assertArrayEquals(this.data, this.server.getContent("bucket", "dir/a.bin"));
+  }
+
+  @Test
+  public void retryFailedPartOnly() throws Exception {
+    AtomicInteger failures = new AtomicInteger(1);
+    FssTransport flaky = new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        if (isPart(request, 2) && failures.getAndDecrement() > 0) {
+          return new TransportResponse(500, Collections.emptyMap(),
+              new ByteArrayInputStream("<Error><Code>InternalError</Code></Error>".getBytes(StandardCharsets.UTF_8)));
+        }
+        return server.execute(request);
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    MCFssClientConfig config = multipartConfig(flaky);
+    config.setPartRetries(2);
+    try (MCFssClient client = new MCFssClient(config)) {
+      client.upload("dir/a.bin", null, this.file, null, null).close();
+    }
+    // 初始化 + 4个分片 + 重试1次 + 合并，失败的请求未到达服务端
+    assertEquals(6, this.server.getRequestCount());
+    assertArrayEquals(this.data, this.server.getContent("bucket", "dir/a.bin"));
+  }
+
+  @Test
+  public void abortWhenRetriesExhausted() throws Exception {
+    AtomicInteger partTwo = new AtomicInteger();
+    FssTransport broken = new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        if (isPart(request, 2)) {
+          partTwo.incrementAndGet();
+          return new TransportResponse(500, Collections.emptyMap(),
+              new ByteArrayInputStream("<Error><Code>InternalError</Code></Error>".getBytes(StandardCharsets.UTF_8)));
+        }
+        return server.execute(request);
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    MCFssClientConfig config = multipartConfig(broken);
+    config.setPartRetries(1);
+    try (MCFssClient client = new MCFssClient(config)) {
+      client.upload("dir/a.bin", null, this.file, null, null).close();
+      fail("分片上传应当失败");
+    } catch (Exception expected) {
+      // 分片重试次数用完后中止上传
+    }
+    // 只按分片的重试次数重试，不与请求的重试策略叠加
+    assertEquals(2, partTwo.get());
+    assertNull(this.server.getContent("bucket", "dir/a.bin"));
+  }
+
+  private static boolean isPart(TransportRequest request, int number) {
+    String query = request.getUri().getRawQuery();
+    return "PUT".equals(request.getMethod()) && query != null && query.contains("partNumber=" + number);
+  }
+
+  private static MCFssClientConfig multipartConfig(FssTransport transport) {
+    MCFssClientConfig config = config(transport);
+    config.setMultipartThreshold(PART_SIZE);
+    config.setMultipartPartSize(PART_SIZE);
+    return config;
+  }
+
+  private static MCFssClientConfig config(FssTransport transport) {
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("id");
+    config.setAccessKeySecret("secret");
+    config.setPublicEndPoint("http://fss.test/");
+    config.setChecksumEnabled(true);
+    config.setTransport(transport);
+    return config;
+  }
+}
@@ -0,0 +1,286 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.AccessDeniedException;
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 列举结果的解析及逐页预取
+ */
+public class ObjectListingTest {
+  private static final int PAGE_SIZE = 20;
+
+  private final InMemoryTransport server = new InMemoryTransport();
+  /**
+   * 服务端收到的列举请求的marker，第一页为""
+   */
+  private final List<String> markers = Collections.synchronizedList(new ArrayList<>());
+  /**
+   * 按marker返回的固定结果，不转发给服务端
+   */
+  private final Map<String, TransportResponse> overrides = new HashMap<>();
+  private MCFssClientConfig config;
+
+  @Before
+  public void setUp() {
+    this.config = new MCFssClientConfig();
+    this.config.setBucketName("bucket");
+    this.config.setAccessKeyId("id");
+    this.config.setAccessKeySecret("secret");
+    this.config.setPublicEndPoint("http://fss.test/");
+    this.config.setTransport(new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        if ("GET".equals(request.getMethod()) && request.getUri().getPath().equals("/bucket/")) {
+          String marker = marker(request);
+          markers.add(marker);
+          TransportResponse response = overrides.remove(marker);
+          if (response != null) {
+            return response;
+          }
+        }
+        return server.execute(request);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  @Test
+  public void parse() throws Exception {
+    ObjectListing listing;
+    try (InputStream in = ObjectListingTest.class.getResourceAsStream("listing/truncated.xml")) {
+      listing = ObjectListingParser.parse(in);
+    }
+    assertEquals("bucket", listing.getBucketName());
+    assertEquals("dir/", listing.getPrefix());
+    assertEquals("dir/a.txt", listing.getMarker());
+    assertEquals("/", listing.getDelimiter());
+    assertEquals(3, listing.getMaxKeys());
+    assertTrue(listing.isTruncated());
+    assertEquals("dir/sub/", listing.getNextMarker());
+    assertEquals(Collections.singletonList("dir/sub/"), listing.getCommonPrefixes());
+
+    assertEquals(2, listing.getObjects().size());
+    ObjectSummary first = listing.getObjects().get(0);
+    assertEquals("dir/b&c.txt", first.getKey());
+    assertEquals("\"5d41402abc4b2a76b9719d911017c592\"", first.getETag());
+    assertEquals(5, first.getSize());
+    assertEquals(new Date(1700000000000L), first.getLastModified());
+    assertEquals("STANDARD", first.getStorageClass());
+
+    ObjectSummary second = listing.getObjects().get(1);
+    assertEquals("dir/设计图.dwg", second.getKey());
+    assertEquals(4294967296L, second.getSize());
+    // 无法解析的时间不影响其他字段
+    assertNull(second.getLastModified());
+    assertNull(second.getStorageClass());
+  }
+
+  @Test
+  public void listObjectsByPage() throws Exception {
+    putObjects(5);
+    this.server.putContent("bucket", "dir/a.txt", bytes("a"), null);
+    this.server.putContent("bucket", "dir/sub/b.txt", bytes("b"), null);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      ObjectListing first = client.listObjects("k", null, null, 3);
+      assertEquals(keys(0, 3), keysOf(first.getObjects()));
+      assertTrue(first.isTruncated());
+      assertEquals("k0002", first.getNextMarker());
+      assertEquals(1, first.getObjects().get(0).getSize());
+      assertTrue(first.getObjects().get(0).getETag().startsWith("\""));
+
+      ObjectListing second = client.listObjects("k", null, first.getNextMarker(), 3);
+      assertEquals(keys(3, 5), keysOf(second.getObjects()));
+      assertFalse(second.isTruncated());
+      assertNull(second.getNextMarker());
+
+      ObjectListing dir = client.listObjects("dir/", "/", null, null);
+      assertEquals(Collections.singletonList("dir/a.txt"), keysOf(dir.getObjects()));
+      assertEquals(Collections.singletonList("dir/sub/"), dir.getCommonPrefixes());
+    }
+  }
+
+  @Test
+  public void listAllPages() throws Exception {
+    putObjects(2500);
+    try (MCFssClient client = new MCFssClient(this.config);
+         Stream<ObjectSummary> objects = client.listAll("k")) {
+      assertEquals(keys(0, 2500), keysOf(objects.collect(Collectors.toList())));
+    }
+    assertEquals(Arrays.asList("", "k0999", "k1999"), this.markers);
+  }
+
+  @Test
+  public void listAllEmpty() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config);
+         Stream<ObjectSummary> objects = client.listAll(null)) {
+      assertEquals(0, objects.count());
+    }
+    assertEquals(1, this.markers.size());
+  }
+
+  @Test
+  public void skipsEmptyPages() throws Exception {
+    putObjects(50);
+    // 截断但没有内容的页，继续按NextMarker获取下一页
+    this.overrides.put("k0019", listing("<IsTruncated>true</IsTruncated><NextMarker>k0019!</NextMarker>"));
+    this.overrides.put("k0019!", listing("<IsTruncated>true</IsTruncated><NextMarker>k0019!!</NextMarker>"));
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      List<ObjectSummary> objects = new ArrayList<>();
+      iterator(client).forEachRemaining(objects::add);
+      assertEquals(keys(0, 50), keysOf(objects));
+    }
+    assertEquals(Arrays.asList("", "k0019", "k0019!", "k0019!!", "k0039"), this.markers);
+  }
+
+  @Test
+  public void emptyFirstPage() throws Exception {
+    putObjects(30);
+    this.overrides.put("", listing("<IsTruncated>true</IsTruncated><NextMarker>j</NextMarker>"));
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      Iterator<ObjectSummary> iterator = iterator(client);
+      assertTrue(iterator.hasNext());
+      assertEquals("k0000", iterator.next().getKey());
+      int count = 1;
+      while (iterator.hasNext()) {
+        iterator.next();
+        count++;
+      }
+      assertEquals(30, count);
+    }
+    // 第一页为空时由hasNext等待预取的下一页
+    assertEquals(Arrays.asList("", "j", "k0019"), this.markers);
+  }
+
+  @Test
+  public void prefetchFailureFromHasNext() throws Exception {
+    putObjects(50);
+    this.overrides.put("k0019", accessDenied());
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      Iterator<ObjectSummary> iterator = iterator(client);
+      for (int i = 0; i < PAGE_SIZE; i++) {
+        assertEquals(String.format("k%04d", i), iterator.next().getKey());
+      }
+      assertAccessDenied(iterator::hasNext);
+      assertAccessDenied(iterator::next);
+    }
+  }
+
+  @Test
+  public void prefetchFailureFromNext() throws Exception {
+    putObjects(50);
+    this.overrides.put("k0019", accessDenied());
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      Iterator<ObjectSummary> iterator = iterator(client);
+      for (int i = 0; i < PAGE_SIZE; i++) {
+        iterator.next();
+      }
+      assertAccessDenied(iterator::next);
+    }
+  }
+
+  @Test
+  public void prefetchFailureFromStream() throws Exception {
+    putObjects(1500);
+    this.overrides.put("k0999", accessDenied());
+    try (MCFssClient client = new MCFssClient(this.config);
+         Stream<ObjectSummary> objects = client.listAll(null)) {
+      List<String> keys = new ArrayList<>();
+      assertAccessDenied(() -> objects.forEach(summary -> keys.add(summary.getKey())));
+      // 出错前已返回第一页的全部结果
+      assertEquals(keys(0, 1000), keys);
+    }
+  }
+
+  private ObjectListingIterator iterator(MCFssClient client) {
+    return new ObjectListingIterator(client.getTransferExecutor(), null,
+        marker -> client.listObjects(null, null, marker, PAGE_SIZE));
+  }
+
+  private void putObjects(int count) {
+    for (int i = 0; i < count; i++) {
+      this.server.putContent("bucket", String.format("k%04d", i), bytes("x"), null);
+    }
+  }
+
+  private static void assertAccessDenied(Runnable action) {
+    try {
+      action.run();
+      fail("预取的页失败时应当抛出异常");
+    } catch (Exception expected) {
+      assertTrue(expected.toString(), expected instanceof AccessDeniedException);
+      assertEquals(403, ((AccessDeniedException) expected).getStatusCode());
+    }
+  }
+
+  private static String marker(TransportRequest request) {
+    String query = request.getUri().getQuery();
+    if (query != null) {
+      for (String parameter : query.split("&")) {
+        if (parameter.startsWith("marker=")) {
+          return parameter.substring("marker=".length());
+        }
+      }
+    }
+    return "";
+  }
+
+  private static TransportResponse listing(String content) {
+    return response(200, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ListBucketResult><Name>bucket</Name>"
+        + "<MaxKeys>" + PAGE_SIZE + "</MaxKeys>" + content + "</ListBucketResult>");
+  }
+
+  private static TransportResponse accessDenied() {
+    return response(403, "<Error><Code>AccessDenied</Code><Message>拒绝访问</Message></Error>");
+  }
+
+  private static TransportResponse response(int statusCode, String xml) {
+    Map<String, List<String>> headers = new HashMap<>();
+    headers.put("Content-Type", Collections.singletonList("application/xml"));
+    return new TransportResponse(statusCode, headers, new ByteArrayInputStream(bytes(xml)));
+  }
+
+  private static List<String> keys(int from, int to) {
+    List<String> keys = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      keys.add(String.format("k%04d", i));
+    }
+    return keys;
+  }
+
+  private static List<String> keysOf(List<ObjectSummary> objects) {
+    return objects.stream().map(ObjectSummary::getKey).collect(Collectors.toList());
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
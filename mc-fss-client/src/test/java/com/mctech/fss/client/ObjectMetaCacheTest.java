@@ -0,0 +1,216 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ObjectMetaCacheTest {
+  private final InMemoryTransport server = new InMemoryTransport();
+  /**
+   * 服务端收到的HEAD请求的If-None-Match头，没有该头时为""
+   */
+  private final List<String> heads = Collections.synchronizedList(new ArrayList<>());
+  private MCFssClientConfig config;
+
+  @Before
+  public void setUp() {
+    this.server.putContent("bucket", "a.txt", bytes("a"), "text/plain");
+    this.config = new MCFssClientConfig();
+    this.config.setBucketName("bucket");
+    this.config.setAccessKeyId("id");
+    this.config.setAccessKeySecret("secret");
+    this.config.setPublicEndPoint("http://fss.test/");
+    this.config.setObjectMetaCacheSize(100);
+    this.config.setObjectMetaCacheTtlMillis(60_000);
+    this.config.setTransport(new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        if ("HEAD".equals(request.getMethod())) {
+          String etag = request.getHeaders().get("If-None-Match");
+          heads.add(etag != null ? etag : "");
+        }
+        return server.execute(request);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  @Test
+  public void hitWithinTtl() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      ObjectMeta first = client.head("a.txt");
+      ObjectMeta second = client.head("a.txt");
+      assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+      assertEquals("text/plain", client.getObjectMeta("a.txt").get("Content-Type"));
+
+      ObjectMetaCache cache = client.getObjectMetaCache();
+      assertEquals(1, this.heads.size());
+      assertEquals(2, cache.getHitCount());
+      assertEquals(1, cache.getMissCount());
+    }
+  }
+
+  @Test
+  public void expiresAfterTtl() throws Exception {
+    this.config.setObjectMetaCacheTtlMillis(50);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.head("a.txt");
+      client.head("a.txt");
+      assertEquals(1, this.heads.size());
+      Thread.sleep(100);
+      client.head("a.txt");
+      assertEquals(2, this.heads.size());
+    }
+  }
+
+  @Test
+  public void revalidateWithIfNoneMatch() throws Exception {
+    this.config.setObjectMetaCacheTtlMillis(0);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      String etag = client.head("a.txt").getHeader("ETag");
+      ObjectMeta revalidated = client.head("a.txt");
+      // 服务端返回304，使用缓存的结果
+      assertEquals(200, revalidated.getStatusCode());
+      assertEquals(etag, revalidated.getHeader("ETag"));
+      assertEquals("text/plain", revalidated.getHeader("Content-Type"));
+      assertEquals(1, client.getObjectMetaCache().getRevalidatedCount());
+
+      // 文件被其他客户端修改，验证失败后使用新的结果
+      this.server.putContent("bucket", "a.txt", bytes("changed"), "text/html");
+      ObjectMeta changed = client.head("a.txt");
+      assertNotEquals(etag, changed.getHeader("ETag"));
+      assertEquals("text/html", changed.getHeader("Content-Type"));
+      assertEquals(1, client.getObjectMetaCache().getRevalidatedCount());
+    }
+    assertEquals("", this.heads.get(0));
+    assertEquals(this.heads.get(1), this.heads.get(2));
+    assertTrue(this.heads.get(1).startsWith("\""));
+  }
+
+  @Test
+  public void invalidateOnPut() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      String etag = client.head("a.txt").getHeader("ETag");
+      client.put("a.txt", null, bytes("changed"), null, "text/html").close();
+      ObjectMeta meta = client.head("a.txt");
+      assertNotEquals(etag, meta.getHeader("ETag"));
+      assertEquals("text/html", meta.getHeader("Content-Type"));
+    }
+    assertEquals(Collections.nCopies(2, ""), this.heads);
+  }
+
+  @Test
+  public void invalidateOnDelete() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.head("a.txt");
+      client.delete("a.txt");
+      try {
+        client.head("a.txt");
+        fail("文件已删除");
+      } catch (Exception expected) {
+        assertTrue(expected.toString(), expected.toString().contains("NoSuchKey"));
+      }
+    }
+    assertEquals(2, this.heads.size());
+  }
+
+  @Test
+  public void invalidateOnCopy() throws Exception {
+    this.server.putContent("bucket", "b.txt", bytes("b"), "text/html");
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      String etag = client.head("b.txt").getHeader("ETag");
+      client.copy("b.txt", "a.txt");
+      ObjectMeta meta = client.head("b.txt");
+      assertNotEquals(etag, meta.getHeader("ETag"));
+      assertEquals(client.head("a.txt").getHeader("ETag"), meta.getHeader("ETag"));
+    }
+    assertEquals(3, this.heads.size());
+  }
+
+  @Test
+  public void invalidationOnlyAffectsSameKey() {
+    ObjectMetaCache cache = new ObjectMetaCache(100, 60_000);
+    long version = cache.currentVersion();
+    // 请求a期间其他文件被修改，a的结果仍然保存
+    cache.invalidate("b");
+    cache.put("a", meta("1"), version);
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void discardFillStartedBeforeInvalidation() {
+    ObjectMetaCache cache = new ObjectMetaCache(100, 60_000);
+    long before = cache.currentVersion();
+    cache.invalidate("a");
+    cache.put("a", meta("old"), before);
+    assertNull(cache.get("a"));
+
+    long after = cache.currentVersion();
+    cache.put("a", meta("new"), after);
+    assertEquals("new", cache.get("a").getHeader("ETag"));
+
+    // 失效前发出的请求比失效后的请求晚返回，不能覆盖新的结果
+    cache.put("a", meta("old"), before);
+    assertEquals("new", cache.get("a").getHeader("ETag"));
+  }
+
+  @Test
+  public void discardFillWhenMarkerEvicted() {
+    ObjectMetaCache cache = new ObjectMetaCache(2, 60_000);
+    long before = cache.currentVersion();
+    cache.invalidate("a");
+    // 失效标记被淘汰后无法再判断a是否失效过
+    cache.put("b", meta("b"), cache.currentVersion());
+    cache.put("c", meta("c"), cache.currentVersion());
+    cache.put("a", meta("old"), before);
+    assertNull(cache.get("a"));
+    assertEquals(2, cache.size());
+    assertEquals(0, cache.getEvictionCount());
+
+    cache.put("a", meta("new"), cache.currentVersion());
+    assertEquals("new", cache.get("a").getHeader("ETag"));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void clearDiscardsPendingFills() {
+    ObjectMetaCache cache = new ObjectMetaCache(100, 60_000);
+    long before = cache.currentVersion();
+    cache.clear();
+    cache.put("a", meta("old"), before);
+    assertNull(cache.get("a"));
+  }
+
+  private static ObjectMeta meta(String etag) {
+    ObjectMeta meta = new ObjectMeta();
+    Map<String, String> headers = Collections.singletonMap("ETag", etag);
+    meta.setHeaders(headers);
+    return meta;
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,215 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.exception.MCTechFssRequestException;
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangeDownloaderTest {
+  private static final int PART_SIZE = 64 * 1024;
+
+  private final InMemoryTransport server = new InMemoryTransport();
+  /**
+   * 收到的分段请求的Range头
+   */
+  private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+  /**
+   * 返回true时请求失败
+   */
+  private volatile Predicate<TransportRequest> failWhen = request -> false;
+  /**
+   * 每个分段请求到达服务端前执行
+   */
+  private volatile Runnable beforeRange = () -> {
+  };
+
+  private MCFssClientConfig config;
+  private byte[] data;
+  private Path dir;
+  private Path target;
+
+  @Before
+  public void setUp() throws IOException {
+    this.data = randomBytes(300_000, 1);
+    this.server.putContent("bucket", "a.bin", this.data, null);
+    this.dir = Files.createTempDirectory("mc-fss-download");
+    this.target = this.dir.resolve("a.bin");
+
+    this.config = new MCFssClientConfig();
+    this.config.setBucketName("bucket");
+    this.config.setAccessKeyId("id");
+    this.config.setAccessKeySecret("secret");
+    this.config.setPublicEndPoint("http://fss.test/");
+    this.config.setDownloadPartSize(PART_SIZE);
+    this.config.setTransferParallelism(1);
+    this.config.setPartRetries(0);
+    this.config.setTransport(new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        String range = request.getHeaders().get("Range");
+        if (range != null) {
+          if (failWhen.test(request)) {
+            throw new IOException("连接被重置");
+          }
+          beforeRange.run();
+          ranges.add(range);
+        }
+        return server.execute(request);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(this.dir);
+  }
+
+  @Test
+  public void download() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.download("a.bin", this.target);
+    }
+    assertArrayEquals(this.data, Files.readAllBytes(this.target));
+    assertEquals(5, this.ranges.size());
+    assertOnlyTarget();
+  }
+
+  @Test
+  public void resumeAfterFailure() throws Exception {
+    this.failWhen = request -> request.getHeaders().get("Range").startsWith("bytes=" + 2 * PART_SIZE + "-");
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      downloadFails(client);
+      assertEquals(2, this.ranges.size());
+
+      this.ranges.clear();
+      this.failWhen = request -> false;
+      client.download("a.bin", this.target);
+    }
+    // 只下载未完成的3段
+    assertEquals(3, this.ranges.size());
+    assertTrue(this.ranges.get(0).startsWith("bytes=" + 2 * PART_SIZE + "-"));
+    assertArrayEquals(this.data, Files.readAllBytes(this.target));
+    assertOnlyTarget();
+  }
+
+  @Test
+  public void partSizeChangedBeforeResume() throws Exception {
+    this.failWhen = request -> request.getHeaders().get("Range").startsWith("bytes=" + 2 * PART_SIZE + "-");
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      downloadFails(client);
+    }
+
+    this.ranges.clear();
+    this.failWhen = request -> false;
+    this.config.setDownloadPartSize(50_000);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.download("a.bin", this.target);
+    }
+    // 分段序号不再对应之前的位置，全部重新下载
+    assertEquals(6, this.ranges.size());
+    assertArrayEquals(this.data, Files.readAllBytes(this.target));
+  }
+
+  @Test
+  public void replacedBeforeResume() throws Exception {
+    this.failWhen = request -> request.getHeaders().get("Range").startsWith("bytes=" + 2 * PART_SIZE + "-");
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      downloadFails(client);
+
+      byte[] replaced = randomBytes(this.data.length, 2);
+      this.server.putContent("bucket", "a.bin", replaced, null);
+      this.ranges.clear();
+      this.failWhen = request -> false;
+      client.download("a.bin", this.target);
+      assertEquals(5, this.ranges.size());
+      assertArrayEquals(replaced, Files.readAllBytes(this.target));
+    }
+  }
+
+  @Test
+  public void replacedDuringDownload() throws Exception {
+    byte[] replaced = randomBytes(200_000, 2);
+    this.beforeRange = () -> {
+      if (this.ranges.size() == 2) {
+        this.server.putContent("bucket", "a.bin", replaced, null);
+      }
+    };
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.download("a.bin", this.target);
+    }
+    // 第3段返回412后按新的内容从头下载
+    assertEquals(3 + 4, this.ranges.size());
+    assertArrayEquals(replaced, Files.readAllBytes(this.target));
+    assertOnlyTarget();
+  }
+
+  @Test
+  public void keepsReplacing() throws Exception {
+    Random random = new Random(3);
+    this.beforeRange = () -> {
+      byte[] content = new byte[this.data.length];
+      random.nextBytes(content);
+      this.server.putContent("bucket", "a.bin", content, null);
+    };
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.download("a.bin", this.target);
+      fail("文件一直在变化时应当失败");
+    } catch (Exception expected) {
+      assertTrue(expected.toString(), expected instanceof MCTechFssRequestException);
+      assertEquals(412, ((MCTechFssRequestException) expected).getStatusCode());
+    }
+    assertFalse(Files.exists(this.target));
+  }
+
+  private void downloadFails(MCFssClient client) {
+    try {
+      client.download("a.bin", this.target);
+      fail("分段下载应当失败");
+    } catch (Exception expected) {
+      // 中断的下载保留临时文件和日志
+    }
+    assertFalse(Files.exists(this.target));
+  }
+
+  private void assertOnlyTarget() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  private static byte[] randomBytes(int size, long seed) {
+    byte[] bytes = new byte[size];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,92 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import com.mctech.fss.client.metrics.RequestEvent;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestLimiterTest {
+  private final InMemoryTransport server = new InMemoryTransport();
+
+  private MCFssClientConfig config() {
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("id");
+    config.setAccessKeySecret("secret");
+    config.setPublicEndPoint("http://fss.test/");
+    config.setTransport(this.server);
+    return config;
+  }
+
+  @Test(timeout = 10_000)
+  public void releaseWhenListenerFails() throws Exception {
+    AtomicInteger events = new AtomicInteger();
+    MCFssClientConfig config = this.config();
+    config.setAdaptiveConcurrency(true);
+    config.setMinConcurrency(1);
+    config.setMaxConcurrency(1);
+    config.setMetricsListener(new FssMetricsListener() {
+      @Override
+      public void requestCompleted(RequestEvent event) {
+        events.incrementAndGet();
+        throw new IllegalStateException("listener");
+      }
+    });
+    this.server.putContent("bucket", "a", new byte[10], null);
+    try (MCFssClient client = new MCFssClient(config)) {
+      for (int i = 0; i < 3; i++) {
+        try {
+          client.head("a");
+          fail("监听抛出的异常应当传给调用方");
+        } catch (IllegalStateException expected) {
+          // 并发数为1，名额未归还时下一次请求会一直等待
+        }
+        assertEquals(0, client.getRequestLimiter().getInFlight());
+      }
+    }
+    assertEquals(3, events.get());
+  }
+
+  @Test(timeout = 30_000)
+  public void paceResponseBody() throws Exception {
+    MCFssClientConfig config = this.config();
+    config.setMaxBytesPerSecond(100_000);
+    this.server.putContent("bucket", "a", new byte[300_000], null);
+    try (MCFssClient client = new MCFssClient(config)) {
+      long start = System.nanoTime();
+      try (RequestResult result = client.get("a")) {
+        // 收到返回头时不按返回头中的长度等待
+        assertTrue(elapsedMillis(start) < 1000);
+        assertEquals(300_000, result.readAllBytes().length);
+      }
+      // 令牌桶初始有100_000个令牌，其余200_000字节按每秒100_000读取
+      assertTrue(elapsedMillis(start) >= 1500);
+      assertTrue(client.getRequestLimiter().getThrottledCount() > 0);
+    }
+  }
+
+  @Test(timeout = 30_000)
+  public void paceUnknownLengthRequestBody() throws Exception {
+    MCFssClientConfig config = this.config();
+    config.setMaxBytesPerSecond(100_000);
+    try (MCFssClient client = new MCFssClient(config)) {
+      long start = System.nanoTime();
+      client.put("a", "a", new ByteArrayInputStream(new byte[300_000]), null, null, null).close();
+      assertTrue(elapsedMillis(start) >= 1500);
+      assertTrue(client.getRequestLimiter().getThrottledCount() > 0);
+    }
+    assertEquals(300_000, this.server.getContent("bucket", "a").length);
+  }
+
+  private static long elapsedMillis(long start) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+}
@@ -0,0 +1,206 @@
+package com.mctech.fss.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 在本地HTTP服务上反复丢弃未关闭的RequestResult，验证泄漏被发现并且连接回到连接池；
+ * 并在只有2个连接的连接池上长时间执行各种操作，验证连接不会泄漏
+ */
+public class ResultLeakDetectorTest {
+  private static final int MAX_CONNECTIONS = 2;
+
+  /**
+   * 长时间测试执行的操作数，默认10万次以控制构建时间，按要求验证100万次时使用-Dmc.fss.soak.operations=1000000
+   */
+  private static final int SOAK_OPERATIONS = Integer.getInteger("mc.fss.soak.operations", 100_000);
+  private static final int SOAK_BATCH = 10_000;
+  private static final int SOAK_THREADS = 4;
+
+  static {
+    // 本地服务分开发送返回头和内容，不关闭Nagle算法时每个GET都要等待延迟确认
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final byte[] content = new byte[16 * 1024];
+  private HttpServer server;
+  private MCFssClient client;
+
+  @Before
+  public void setUp() throws IOException {
+    new Random(1).nextBytes(this.content);
+    String etag = "\"" + DigestUtils.md5Hex(this.content) + "\"";
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.createContext("/", exchange -> {
+      try {
+        try (InputStream in = exchange.getRequestBody()) {
+          while (in.read() >= 0) {
+            // 读完请求内容，连接才能继续使用
+          }
+        }
+        exchange.getResponseHeaders().add("ETag", etag);
+        switch (exchange.getRequestMethod()) {
+          case "DELETE":
+            exchange.sendResponseHeaders(204, -1);
+            break;
+          case "HEAD":
+            exchange.getResponseHeaders().add("Content-Length", Integer.toString(this.content.length));
+            exchange.sendResponseHeaders(200, -1);
+            break;
+          case "GET":
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, this.content.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+              out.write(this.content);
+            }
+            break;
+          default:
+            exchange.sendResponseHeaders(200, -1);
+            break;
+        }
+      } catch (IOException e) {
+        // 客户端关闭了泄漏的连接
+      } finally {
+        exchange.close();
+      }
+    });
+    this.server.setExecutor(Executors.newFixedThreadPool(MAX_CONNECTIONS * 2));
+    this.server.start();
+
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("id");
+    config.setAccessKeySecret("secret");
+    config.setPublicEndPoint("http://127.0.0.1:" + this.server.getAddress().getPort() + "/");
+    config.setMaxConnections(MAX_CONNECTIONS);
+    config.setMaxConnectionsPerRoute(MAX_CONNECTIONS);
+    config.setConnectionRequestTimeoutMillis(5000);
+    config.setChecksumEnabled(true);
+    config.setLeakDetectionEnabled(true);
+    this.client = new MCFssClient(config);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    this.client.close();
+    this.server.stop(0);
+  }
+
+  @Test(timeout = 120_000)
+  public void leakedResultReleasesConnection() throws Exception {
+    this.leak();
+    assertEquals(1, this.client.getConnectionManager().getLeasedCount());
+    assertEquals(1, this.client.getUnreleasedResults().size());
+
+    this.awaitLeaks(1);
+    assertEquals(0, this.client.getConnectionManager().getLeasedCount());
+    assertTrue(this.client.getUnreleasedResults().isEmpty());
+  }
+
+  @Test
+  public void leakedResultsInRounds() throws Exception {
+    int rounds = 20;
+    for (int i = 0; i < rounds; i++) {
+      // 每轮泄漏的结果占满连接池，连接未归还时后面的请求获取不到连接
+      for (int j = 0; j < MAX_CONNECTIONS; j++) {
+        this.leak();
+      }
+      this.awaitLeaks((long) (i + 1) * MAX_CONNECTIONS);
+      try (RequestResult result = this.client.get("a.bin")) {
+        assertArrayEquals(this.content, result.readAllBytes());
+      }
+      assertEquals(0, this.client.getConnectionManager().getLeasedCount());
+    }
+    assertEquals((long) rounds * MAX_CONNECTIONS, this.client.getLeakedResultCount());
+  }
+
+  /**
+   * 多个线程在只有{@link #MAX_CONNECTIONS}个连接的连接池上反复执行delete、copy、head、getObjectMeta及get。
+   * 任何一个操作没有归还连接，连接池很快耗尽，后续请求等待连接超时
+   */
+  @Test
+  public void soak() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(SOAK_THREADS);
+    try {
+      for (int done = 0; done < SOAK_OPERATIONS; done += SOAK_BATCH) {
+        int batch = Math.min(SOAK_BATCH, SOAK_OPERATIONS - done);
+        List<Future<?>> futures = new ArrayList<>(SOAK_THREADS);
+        for (int t = 0; t < SOAK_THREADS; t++) {
+          int first = t;
+          futures.add(executor.submit(() -> {
+            for (int i = first; i < batch; i += SOAK_THREADS) {
+              this.operate(i);
+            }
+            return null;
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        assertEquals("第" + done + "次操作后", 0, this.client.getConnectionManager().getLeasedCount());
+        assertTrue(this.client.getUnreleasedResults().isEmpty());
+        assertEquals(0, this.client.getLeakedResultCount());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void operate(int i) throws IOException {
+    switch (i % 5) {
+      case 0:
+        this.client.delete("b.bin");
+        break;
+      case 1:
+        this.client.copy("b.bin", "a.bin");
+        break;
+      case 2:
+        assertEquals(200, this.client.head("a.bin").getStatusCode());
+        break;
+      case 3:
+        assertEquals(Integer.toString(this.content.length), this.client.getObjectMeta("a.bin").get("Content-Length"));
+        break;
+      default:
+        try (RequestResult result = this.client.get("a.bin")) {
+          assertEquals(this.content.length, result.readAllBytes().length);
+        }
+        break;
+    }
+  }
+
+  /**
+   * 发出请求后不读取、不关闭返回结果
+   */
+  private void leak() {
+    this.client.get("a.bin");
+  }
+
+  private void awaitLeaks(long expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (this.client.getLeakedResultCount() < expected && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertEquals(expected, this.client.getLeakedResultCount());
+  }
+}
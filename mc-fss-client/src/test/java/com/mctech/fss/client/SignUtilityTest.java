@@ -0,0 +1,156 @@
+package com.mctech.fss.client;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 直接写入缓冲区的签名与原来经过{@link SignUtility#buildCanonicalString}生成字符串后签名的结果必须完全一致，
+ * 固定的签名值由改动前的实现计算得到
+ */
+public class SignUtilityTest {
+  private static final Date DATE = new Date(1700000000000L);
+
+  private final Signer signer = new Signer("test-id", "test-secret");
+
+  @Test
+  public void plainResource() {
+    assertGolden("RG2Z/CafiJ+ACBT2wrmJpdZRJ0g=", "/bucket/dir/file.txt", option(FssOperation.GET, null, null));
+  }
+
+  @Test
+  public void contentTypeAndMd5() {
+    SignatureOption option = option(FssOperation.PUT, "application/octet-stream", "1B2M2Y8AsgTpgAmY7PhCfw==");
+    assertEquals("PUT\n1B2M2Y8AsgTpgAmY7PhCfw==\napplication/octet-stream\nTue, 14 Nov 2023 22:13:20 GMT\n/bucket/a.bin",
+        SignUtility.buildCanonicalString("/bucket/a.bin", option, SignUtility.buildSubResource(option)));
+    assertSame("/bucket/a.bin", option);
+  }
+
+  @Test
+  public void blankContentTypeAndMd5() {
+    SignatureOption blank = option(FssOperation.PUT, "  ", " ");
+    assertGolden("DUIEdm5o04/bguoNyKdEhTER6xs=", "/bucket/a.bin", blank);
+    assertEquals(sign("/bucket/a.bin", blank), sign("/bucket/a.bin", option(FssOperation.PUT, null, null)));
+  }
+
+  @Test
+  public void nonAsciiKey() {
+    assertGolden("konAUMEyBoo2UpiZjRU6c8UmjiM=", "/bucket/图纸/设计-ü.dwg", option(FssOperation.GET, null, null));
+  }
+
+  @Test
+  public void surrogateKeys() {
+    // 成对的代理字符按4字节编码
+    assertGolden("nWrAN6RlG3Nb2prj9qaoJiTOuNE=", "/bucket/emoji-😀.png", option(FssOperation.GET, null, null));
+    // 不成对的代理字符按String#getBytes替换为'?'
+    assertSame("/bucket/bad-\uD83D.png", option(FssOperation.GET, null, null));
+    assertSame("/bucket/bad-\uDE00x.png", option(FssOperation.GET, null, null));
+  }
+
+  @Test
+  public void resourceWithQuery() {
+    assertGolden("5YwsusSDpRaqL186Pf/LfA0aoaA=", "/bucket/a.txt?uploadId=1&partNumber=2",
+        option(FssOperation.PUT, null, null));
+    assertSame("/bucket/a.txt?b=2&a=1&c", option(FssOperation.GET, null, null));
+    assertSame("/bucket/?prefix=%E5%9B%BE&max-keys=10", option(FssOperation.GET, null, null));
+  }
+
+  @Test
+  public void processAndResponseParameters() {
+    SignatureOption option = option(FssOperation.GET, null, null);
+    option.setProcess("image/resize,w_100");
+    Map<String, String> response = new HashMap<>();
+    response.put("Content-Disposition", "attachment;filename=a.png");
+    response.put("Cache-Control", "no-cache");
+    option.setResponse(response);
+    assertGolden("RG2Z/CafiJ+ACBT2wrmJpdZRJ0g=", "/bucket/dir/file.txt", option);
+  }
+
+  @Test
+  public void metadataOrdering() {
+    Map<String, String> metadata = new LinkedHashMap<>();
+    metadata.put("x-fss-meta-b", "2");
+    metadata.put("Content-Disposition", "inline");
+    metadata.put("X-FSS-Meta-Upper", "u");
+    metadata.put("x-fss-meta-a", "值");
+    metadata.put("x-fss-copy-source", "src/key");
+    metadata.put("x-fss-meta-null", null);
+    SignatureOption option = option(FssOperation.PUT, "text/plain", null);
+    option.setMetadata(metadata);
+    assertGolden("9Fw8VQyptCJqvbzi+2JpaRZb3/I=", "/bucket/a.txt", option);
+
+    // 与元数据的插入顺序无关
+    SignatureOption reordered = option(FssOperation.PUT, "text/plain", null);
+    reordered.setMetadata(new TreeMap<>(metadata));
+    assertGolden("9Fw8VQyptCJqvbzi+2JpaRZb3/I=", "/bucket/a.txt", reordered);
+  }
+
+  @Test
+  public void absoluteExpires() {
+    SignatureOption option = option(FssOperation.GET, null, null);
+    option.setExpires(3600L);
+    assertSame("/bucket/dir/file.txt", option);
+    option.setExpiresWindow(600L);
+    assertSame("/bucket/dir/file.txt", option);
+  }
+
+  @Test
+  public void invalidResourceFailsOnBothPaths() {
+    SignatureOption option = option(FssOperation.GET, null, null);
+    Class<?> expected = failure(() -> SignUtility.buildCanonicalString("/bucket/a b", option, null));
+    Class<?> actual = failure(() -> this.signer.signCanonical("/bucket/a b", option));
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void canonicalBytesMatch() {
+    String[] resources = {"/bucket/dir/file.txt", "/bucket/图纸.dwg", "/bucket/a.txt?b=2&a=1", "/bucket/e😀"};
+    for (String resource : resources) {
+      SignatureOption option = option(FssOperation.PUT, "text/plain", "abc==");
+      CanonicalStringWriter writer = new CanonicalStringWriter();
+      SignUtility.writeCanonicalString(writer, resource, option);
+      byte[] expected = SignUtility.buildCanonicalString(resource, option, SignUtility.buildSubResource(option))
+          .getBytes(StandardCharsets.UTF_8);
+      assertArrayEquals(resource, expected, writer.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private void assertGolden(String signature, String resource, SignatureOption option) {
+    assertEquals(signature, this.signer.sign(
+        SignUtility.buildCanonicalString(resource, option, SignUtility.buildSubResource(option))));
+    assertSame(resource, option);
+  }
+
+  private void assertSame(String resource, SignatureOption option) {
+    assertEquals(resource, sign(resource, option), this.signer.signCanonical(resource, option));
+  }
+
+  private String sign(String resource, SignatureOption option) {
+    return this.signer.sign(SignUtility.buildCanonicalString(resource, option, SignUtility.buildSubResource(option)));
+  }
+
+  private static SignatureOption option(FssOperation method, String contentType, String contentMd5) {
+    SignatureOption option = new SignatureOption(method, contentType, contentMd5);
+    option.setDate(DATE);
+    return option;
+  }
+
+  private static Class<?> failure(Runnable action) {
+    try {
+      action.run();
+    } catch (Throwable e) {
+      return e.getClass();
+    }
+    fail("应当抛出异常");
+    return null;
+  }
+}
@@ -0,0 +1,103 @@
+package com.mctech.fss.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 批量生成签名地址时使用{@link UriEncoder}直接拼接地址，结果必须与逐个经URIBuilder生成的
+ * {@link RequestSigner#getSignatureUrl}完全一致
+ */
+public class SignatureUrlsTest {
+  private static final String[] END_POINTS = {
+      "https://fss.example.com",
+      "https://fss.example.com/",
+      "http://127.0.0.1:8080/fss",
+      "http://fss.example.com/base/path/",
+      "http://fss.example.com/%E6%96%87%20%E4%BB%B6/",
+  };
+
+  private static final int KEYS_PER_END_POINT = 3000;
+
+  /**
+   * 包含URI中的保留字符、已编码的字符、多字节字符及代理对。签名时资源路径按java.net.URI解析，
+   * 不能包含空格等URI不允许的字符
+   */
+  private static final String[] KEY_CHARS = {
+      "a", "Z", "0", "9", "-", "_", ".", "~", "/", "//", "?", "&", "=", "+", "%20", "%2F", ";", ":", "@",
+      "!", "$", "'", "(", ")", "*", ",", "中", "文", "ü", "é", "😀", "𠀀",
+  };
+
+  @Test
+  public void matchesSingleUrls() {
+    Random random = new Random(1);
+    for (int i = 0; i < END_POINTS.length; i++) {
+      RequestSigner signer = new RequestSigner(config(END_POINTS[i]));
+      Set<String> keys = new LinkedHashSet<>();
+      while (keys.size() < KEYS_PER_END_POINT) {
+        keys.add(randomKey(random));
+      }
+      SignatureOption option = option(i);
+      Map<String, String> urls = signer.getSignatureUrls(keys, option);
+      assertEquals(keys.size(), urls.size());
+      for (String key : keys) {
+        assertEquals(END_POINTS[i] + " " + key, signer.getSignatureUrl(key, option), urls.get(key));
+      }
+    }
+  }
+
+  @Test
+  public void matchesBelowParallelThreshold() {
+    RequestSigner signer = new RequestSigner(config(END_POINTS[1]));
+    List<String> keys = new ArrayList<>();
+    keys.add("dir/a%20b.txt");
+    keys.add("图纸/设计-ü.dwg");
+    keys.add("a?b#c&d=e+f");
+    SignatureOption option = option(2);
+    Map<String, String> urls = signer.getSignatureUrls(keys, option);
+    for (String key : keys) {
+      assertEquals(signer.getSignatureUrl(key, option), urls.get(key));
+    }
+  }
+
+  private static SignatureOption option(int variant) {
+    SignatureOption option = new SignatureOption(FssOperation.GET);
+    option.setExpires(3600L);
+    if (variant % 2 == 1) {
+      option.setProcess("image/resize,w_200/quality,q_80");
+    }
+    if (variant >= 2) {
+      Map<String, String> response = new HashMap<>();
+      response.put("content-disposition", "attachment; filename=\"设计 图.dwg\"");
+      response.put("content-type", "application/octet-stream");
+      option.setResponse(response);
+    }
+    return option;
+  }
+
+  private static String randomKey(Random random) {
+    int length = 1 + random.nextInt(24);
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      key.append(KEY_CHARS[random.nextInt(KEY_CHARS.length)]);
+    }
+    return key.toString();
+  }
+
+  private static MCFssClientConfig config(String endPoint) {
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("id");
+    config.setAccessKeySecret("secret");
+    config.setPublicEndPoint(endPoint);
+    return config;
+  }
+}
@@ -0,0 +1,221 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransport;
+import com.mctech.fss.client.transport.InMemoryTransport;
+import com.mctech.fss.client.transport.TransportRequest;
+import com.mctech.fss.client.transport.TransportResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 通过{@link MCFssClientConfig#setTransport}使用{@link InMemoryTransport}，验证客户端各操作经传输层往返的结果
+ */
+public class TransportRoundTripTest {
+  private final InMemoryTransport server = new InMemoryTransport();
+  /**
+   * 服务端依次返回的状态码
+   */
+  private final List<Integer> statusCodes = Collections.synchronizedList(new ArrayList<>());
+  private final List<Path> temporaryFiles = new ArrayList<>();
+  private MCFssClientConfig config;
+  private byte[] data;
+
+  @Before
+  public void setUp() {
+    this.data = new byte[300_000];
+    new Random(1).nextBytes(this.data);
+    this.config = new MCFssClientConfig();
+    this.config.setBucketName("bucket");
+    this.config.setAccessKeyId("id");
+    this.config.setAccessKeySecret("secret");
+    this.config.setPublicEndPoint("http://fss.test/");
+    this.config.setChecksumEnabled(true);
+    this.config.setTransport(new FssTransport() {
+      @Override
+      public TransportResponse execute(TransportRequest request) throws IOException {
+        TransportResponse response = server.execute(request);
+        statusCodes.add(response.getStatusCode());
+        return response;
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (Path path : this.temporaryFiles) {
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> files = Files.walk(path)) {
+          for (Path file : files.sorted(Collections.reverseOrder()).collect(Collectors.toList())) {
+            Files.deleteIfExists(file);
+          }
+        }
+      } else {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void putGetHead() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      assertNull(client.getHttpClient());
+      client.put("dir/a.bin", "a.bin", this.data, Collections.singletonMap("owner", "test"), "application/zip")
+          .close();
+      assertArrayEquals(this.data, this.server.getContent("bucket", "dir/a.bin"));
+
+      try (RequestResult result = client.get("dir/a.bin")) {
+        assertEquals(200, result.getStatusCode());
+        assertEquals("application/zip", result.getContentType());
+        assertArrayEquals(this.data, result.readAllBytes());
+      }
+
+      ObjectMeta meta = client.head("dir/a.bin");
+      assertEquals(200, meta.getStatusCode());
+      assertEquals("test", meta.getMeta().get("owner"));
+      assertEquals(Integer.toString(this.data.length), meta.getHeader("Content-Length"));
+    }
+  }
+
+  @Test
+  public void putStreamAndBuffer() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.put("a", "a", new ByteArrayInputStream(this.data), null, null, null).close();
+      client.put("b", "b", new ByteArrayInputStream(this.data), null, null, (long) this.data.length).close();
+      client.put("c", "c", ByteBuffer.wrap(this.data), null, null).close();
+    }
+    assertArrayEquals(this.data, this.server.getContent("bucket", "c"));
+    assertArrayEquals(this.data, this.server.getContent("bucket", "a"));
+    assertArrayEquals(this.data, this.server.getContent("bucket", "b"));
+  }
+
+  @Test
+  public void missingObject() throws Exception {
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      try {
+        client.get("nope").close();
+        fail("文件不存在时应当抛出异常");
+      } catch (Exception expected) {
+        assertTrue(expected.toString(), expected.toString().contains("NoSuchKey"));
+      }
+    }
+    assertEquals(Collections.singletonList(404), this.statusCodes);
+  }
+
+  @Test
+  public void range() throws Exception {
+    this.server.putContent("bucket", "a.bin", this.data, null);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      try (RequestResult result = client.get("a.bin", 1000, 500)) {
+        assertEquals(206, result.getStatusCode());
+        assertEquals("bytes 1000-1499/" + this.data.length, result.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(this.data, 1000, 1500), result.readAllBytes());
+      }
+
+      // 分段下载
+      this.config.setDownloadPartSize(64 * 1024);
+      Path target = this.temporaryFile();
+      client.download("a.bin", target);
+      assertArrayEquals(this.data, Files.readAllBytes(target));
+    }
+  }
+
+  @Test
+  public void notModified() throws Exception {
+    Path cache = Files.createTempDirectory("mc-fss-cache");
+    this.temporaryFiles.add(cache);
+    this.config.setContentCacheDirectory(cache.toString());
+    this.server.putContent("bucket", "a.bin", this.data, "application/octet-stream");
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      for (int i = 0; i < 2; i++) {
+        try (RequestResult result = client.get("a.bin")) {
+          assertArrayEquals(this.data, result.readAllBytes());
+        }
+      }
+    }
+    assertEquals(Arrays.asList(200, 304), this.statusCodes);
+  }
+
+  @Test
+  public void list() throws Exception {
+    for (String key : new String[]{"dir/a", "dir/b", "dir/sub/c", "dir/sub/d", "other/e"}) {
+      this.server.putContent("bucket", key, key.getBytes(StandardCharsets.UTF_8), null);
+    }
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      ObjectListing listing = client.listObjects("dir/", "/", null, null);
+      assertEquals(Arrays.asList("dir/a", "dir/b"), keys(listing.getObjects()));
+      assertEquals(Collections.singletonList("dir/sub/"), listing.getCommonPrefixes());
+      assertFalse(listing.isTruncated());
+
+      ObjectListing page = client.listObjects("dir/", null, null, 3);
+      assertEquals(Arrays.asList("dir/a", "dir/b", "dir/sub/c"), keys(page.getObjects()));
+      assertTrue(page.isTruncated());
+      assertEquals((long) "dir/a".length(), page.getObjects().get(0).getSize());
+
+      assertEquals(Arrays.asList("dir/a", "dir/b", "dir/sub/c", "dir/sub/d"),
+          client.listAll("dir/").map(ObjectSummary::getKey).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void multipart() throws Exception {
+    this.config.setMultipartThreshold(100_000);
+    this.config.setMultipartPartSize(100_000);
+    Path file = this.temporaryFile();
+    Files.write(file, this.data);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.upload("dir/a.bin", null, file, null, null).close();
+      try (RequestResult result = client.get("dir/a.bin")) {
+        assertArrayEquals(this.data, result.readAllBytes());
+      }
+    }
+    // 初始化 + 3个分片 + 合并 + GET
+    assertEquals(6, this.statusCodes.size());
+  }
+
+  @Test
+  public void copyAndDelete() throws Exception {
+    this.server.putContent("bucket", "a.bin", this.data, null);
+    try (MCFssClient client = new MCFssClient(this.config)) {
+      client.copy("b.bin", "a.bin");
+      client.delete("a.bin");
+    }
+    assertNull(this.server.getContent("bucket", "a.bin"));
+    assertArrayEquals(this.data, this.server.getContent("bucket", "b.bin"));
+  }
+
+  private Path temporaryFile() throws IOException {
+    Path file = Files.createTempFile("mc-fss-transport", ".bin");
+    this.temporaryFiles.add(file);
+    return file;
+  }
+
+  private static List<String> keys(List<ObjectSummary> objects) {
+    return objects.stream().map(ObjectSummary::getKey).collect(Collectors.toList());
+  }
+}
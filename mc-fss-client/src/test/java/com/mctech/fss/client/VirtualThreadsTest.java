@@ -0,0 +1,47 @@
+package com.mctech.fss.client;
+
+import com.mctech.fss.client.transport.FssTransports;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 测试从classes目录加载类，不使用META-INF/versions下的实现，验证不支持虚拟线程及java.net.http时的处理
+ */
+public class VirtualThreadsTest {
+  @Test
+  public void fallBackWhenUnsupported() throws Exception {
+    assumeTrue(VirtualThreads.newExecutor("probe-") == null);
+    assertNull(VirtualThreads.newTransport(new MCFssClientConfig()));
+
+    MCFssClientConfig config = new MCFssClientConfig();
+    config.setBucketName("bucket");
+    config.setAccessKeyId("id");
+    config.setAccessKeySecret("secret");
+    config.setPublicEndPoint("http://fss.test/");
+    config.setVirtualThreads(true);
+    try (MCFssClient client = new MCFssClient(config)) {
+      assertNotNull(client.getHttpClient());
+      ExecutorService executor = client.getTransferExecutor();
+      assertEquals("mc-fss-transfer-1", executor.submit(() -> Thread.currentThread().getName()).get());
+    }
+  }
+
+  @Test
+  public void jdkHttpUnsupported() {
+    assumeFalse(FssTransports.isJdkHttpSupported());
+    try {
+      FssTransports.jdkHttp(new MCFssClientConfig());
+      fail("不支持java.net.http时应当抛出异常");
+    } catch (UnsupportedOperationException expected) {
+      // 明确的异常，而不是返回null
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.mctech.fss.client.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogHistogramTest {
+  /**
+   * 每个2的幂区间均分为32个桶，桶宽不超过下界的1/32
+   */
+  private static final double MAX_RELATIVE_ERROR = 1.0 / 32;
+
+  @Test
+  public void exactBelow32() {
+    for (int i = 0; i < 32; i++) {
+      assertEquals(i, LogHistogram.bucketOf(i));
+      assertEquals(i, LogHistogram.upperBound(i));
+    }
+  }
+
+  @Test
+  public void boundaries() {
+    assertEquals(0, LogHistogram.bucketOf(0));
+    assertEquals(31, LogHistogram.bucketOf(31));
+    assertEquals(32, LogHistogram.bucketOf(32));
+    assertEquals(32, LogHistogram.upperBound(32));
+    assertEquals(63, LogHistogram.bucketOf(63));
+    // 从64开始每个桶包含多个值
+    assertEquals(64, LogHistogram.bucketOf(64));
+    assertEquals(64, LogHistogram.bucketOf(65));
+    assertEquals(65, LogHistogram.upperBound(64));
+    assertEquals(65, LogHistogram.bucketOf(66));
+
+    int last = LogHistogram.bucketOf(Long.MAX_VALUE);
+    assertEquals((64 - 5) * 32 - 1, last);
+    assertEquals(Long.MAX_VALUE, LogHistogram.upperBound(last));
+    assertEquals(last, LogHistogram.bucketOf(Long.MAX_VALUE - (1L << 56)));
+  }
+
+  @Test
+  public void powersOfTwo() {
+    for (int exponent = 5; exponent < 63; exponent++) {
+      long value = 1L << exponent;
+      int bucket = LogHistogram.bucketOf(value);
+      // 2的幂是所在区间的第一个桶，前一个值属于上一个区间的最后一个桶
+      assertEquals((exponent - 4) * 32, bucket);
+      assertEquals(bucket - 1, LogHistogram.bucketOf(value - 1));
+      assertEquals(value - 1, LogHistogram.upperBound(bucket - 1));
+      assertEquals(value + (1L << (exponent - 5)) - 1, LogHistogram.upperBound(bucket));
+    }
+  }
+
+  @Test
+  public void bucketsAreContiguous() {
+    int last = LogHistogram.bucketOf(Long.MAX_VALUE);
+    for (int bucket = 0; bucket < last; bucket++) {
+      long upper = LogHistogram.upperBound(bucket);
+      assertEquals(bucket, LogHistogram.bucketOf(upper));
+      assertEquals(bucket + 1, LogHistogram.bucketOf(upper + 1));
+    }
+  }
+
+  @Test
+  public void relativeError() {
+    Random random = new Random(1);
+    for (int i = 0; i < 100_000; i++) {
+      long value = (random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(63);
+      long upper = LogHistogram.upperBound(LogHistogram.bucketOf(value));
+      assertTrue(value + " -> " + upper, upper >= value);
+      assertTrue(value + " -> " + upper, upper - value <= value * MAX_RELATIVE_ERROR);
+    }
+  }
+
+  @Test
+  public void uniformPercentiles() {
+    LogHistogram histogram = new LogHistogram();
+    for (int i = 1; i <= 100_000; i++) {
+      histogram.record(i);
+    }
+    assertEquals(100_000, histogram.getCount());
+    assertEquals(100_000, histogram.getMax());
+    assertEquals(50_000.5, histogram.getMean(), 1e-9);
+    assertPercentile(50_000, histogram.getValueAtPercentile(50));
+    assertPercentile(95_000, histogram.getValueAtPercentile(95));
+    assertPercentile(99_000, histogram.getValueAtPercentile(99));
+    assertEquals(100_000, histogram.getValueAtPercentile(100));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  @Test
+  public void skewedPercentiles() {
+    LogHistogram histogram = new LogHistogram();
+    for (int i = 0; i < 9000; i++) {
+      histogram.record(10);
+    }
+    for (int i = 0; i < 1000; i++) {
+      histogram.record(1_000_000);
+    }
+    assertEquals(10, histogram.getValueAtPercentile(50));
+    assertEquals(10, histogram.getValueAtPercentile(90));
+    // 不超过记录的最大值
+    assertEquals(1_000_000, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void emptyNegativeAndReset() {
+    LogHistogram histogram = new LogHistogram();
+    assertEquals(0, histogram.getValueAtPercentile(99));
+    assertEquals(0, histogram.getMean(), 0);
+
+    histogram.record(-5);
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+
+  private static void assertPercentile(long expected, long actual) {
+    assertTrue(expected + " -> " + actual, actual >= expected);
+    assertTrue(expected + " -> " + actual, actual - expected <= expected * MAX_RELATIVE_ERROR);
+  }
+}
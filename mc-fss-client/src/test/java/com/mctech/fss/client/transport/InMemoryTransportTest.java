@@ -0,0 +1,88 @@
+package com.mctech.fss.client.transport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class InMemoryTransportTest {
+  private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+  private final InMemoryTransport transport = new InMemoryTransport();
+
+  {
+    this.transport.putContent("bucket", "a.txt", CONTENT, "text/plain");
+  }
+
+  @Test
+  public void range() throws IOException {
+    assertRange("bytes=2-4", 206, "234", "bytes 2-4/10");
+    assertRange("bytes=7-", 206, "789", "bytes 7-9/10");
+    assertRange("bytes=8-100", 206, "89", "bytes 8-9/10");
+  }
+
+  @Test
+  public void suffixRange() throws IOException {
+    assertRange("bytes=-3", 206, "789", "bytes 7-9/10");
+    assertRange("bytes=-500", 206, "0123456789", "bytes 0-9/10");
+    assertRange("bytes=-0", 416, null, null);
+  }
+
+  @Test
+  public void unsatisfiableRange() throws IOException {
+    assertRange("bytes=10-", 416, null, null);
+    assertRange("bytes=20-30", 416, null, null);
+  }
+
+  @Test
+  public void ignoredRange() throws IOException {
+    assertRange("bytes=5-2", 200, "0123456789", null);
+    assertRange("bytes=a-b", 200, "0123456789", null);
+    assertRange("bytes=0-1,4-5", 200, "0123456789", null);
+    assertRange("items=0-1", 200, "0123456789", null);
+  }
+
+  @Test
+  public void notModified() throws IOException {
+    String etag;
+    try (TransportResponse response = this.get(Collections.emptyMap())) {
+      etag = response.getFirstHeader("etag");
+    }
+    try (TransportResponse response = this.get(Collections.singletonMap("If-None-Match", etag))) {
+      assertEquals(304, response.getStatusCode());
+      assertEquals(etag, response.getFirstHeader("ETag"));
+    }
+  }
+
+  private void assertRange(String range, int status, String body, String contentRange) throws IOException {
+    try (TransportResponse response = this.get(Collections.singletonMap("Range", range))) {
+      assertEquals(range, status, response.getStatusCode());
+      assertEquals(range, contentRange, response.getFirstHeader("Content-Range"));
+      if (body != null) {
+        assertEquals(range, body, new String(readAll(response.getBody()), StandardCharsets.US_ASCII));
+        assertEquals(range, body.length(), response.getContentLength());
+      }
+    }
+  }
+
+  private TransportResponse get(Map<String, String> headers) throws IOException {
+    return this.transport.execute(new TransportRequest("GET", URI.create("http://fss.test/bucket/a.txt"), headers, null));
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int n;
+    while ((n = in.read(buffer)) > 0) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
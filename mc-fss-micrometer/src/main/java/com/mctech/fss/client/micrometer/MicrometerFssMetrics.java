@@ -0,0 +1,109 @@
+package com.mctech.fss.client.micrometer;
+
+import com.mctech.fss.client.FssOperation;
+import com.mctech.fss.client.metrics.FssMetricsListener;
+import com.mctech.fss.client.metrics.RequestEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把客户端运行指标输出到Micrometer。指标名称：
+ * <ul>
+ *   <li>fss.client.requests：请求耗时，按operation、status、error区分</li>
+ *   <li>fss.client.sign：签名耗时，按operation区分</li>
+ *   <li>fss.client.bytes：发送及接收的字节数，按operation、direction区分</li>
+ *   <li>fss.client.connection.lease：从连接池获取连接的等待时间</li>
+ *   <li>fss.client.throttle：因客户端限流等待的时间，按operation区分</li>
+ *   <li>fss.client.concurrency.limit：自适应并发数，未启用时为-1</li>
+ * </ul>
+ */
+public class MicrometerFssMetrics implements FssMetricsListener {
+  private static final String NONE = "none";
+
+  private final MeterRegistry registry;
+  private final Map<FssOperation, Timer> signTimers = new EnumMap<>(FssOperation.class);
+  private final Map<FssOperation, Counter> sentCounters = new EnumMap<>(FssOperation.class);
+  private final Map<FssOperation, Counter> receivedCounters = new EnumMap<>(FssOperation.class);
+  private final Map<FssOperation, Timer> throttleTimers = new EnumMap<>(FssOperation.class);
+  private final AtomicInteger concurrencyLimit = new AtomicInteger(-1);
+  private final ConcurrentMap<String, Timer> requestTimers = new ConcurrentHashMap<>();
+  private final Timer leaseTimer;
+
+  public MicrometerFssMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    for (FssOperation operation : FssOperation.values()) {
+      String name = operation.name();
+      this.signTimers.put(operation, Timer.builder("fss.client.sign")
+          .tag("operation", name)
+          .register(registry));
+      this.sentCounters.put(operation, Counter.builder("fss.client.bytes")
+          .baseUnit("bytes")
+          .tag("operation", name)
+          .tag("direction", "sent")
+          .register(registry));
+      this.receivedCounters.put(operation, Counter.builder("fss.client.bytes")
+          .baseUnit("bytes")
+          .tag("operation", name)
+          .tag("direction", "received")
+          .register(registry));
+      this.throttleTimers.put(operation, Timer.builder("fss.client.throttle")
+          .tag("operation", name)
+          .register(registry));
+    }
+    Gauge.builder("fss.client.concurrency.limit", this.concurrencyLimit, AtomicInteger::get)
+        .register(registry);
+    this.leaseTimer = Timer.builder("fss.client.connection.lease")
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  @Override
+  public void signed(FssOperation operation, long durationNanos) {
+    this.signTimers.get(operation).record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void requestCompleted(RequestEvent event) {
+    String status = Integer.toString(event.getStatusCode());
+    String error = event.getErrorCode() != null ? event.getErrorCode() : NONE;
+    String id = event.getOperation() + "|" + status + "|" + error;
+    // 缓存已注册的Timer，避免每次请求都重新构造
+    Timer timer = this.requestTimers.computeIfAbsent(id, k -> Timer.builder("fss.client.requests")
+        .tag("operation", event.getOperation().name())
+        .tag("status", status)
+        .tag("error", error)
+        .publishPercentileHistogram()
+        .register(this.registry));
+    timer.record(event.getDurationNanos(), TimeUnit.NANOSECONDS);
+    if (event.getBytesSent() > 0) {
+      this.sentCounters.get(event.getOperation()).increment(event.getBytesSent());
+    }
+    if (event.getBytesReceived() > 0) {
+      this.receivedCounters.get(event.getOperation()).increment(event.getBytesReceived());
+    }
+  }
+
+  @Override
+  public void connectionLeased(long waitNanos) {
+    this.leaseTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void throttled(FssOperation operation, long waitNanos) {
+    this.throttleTimers.get(operation).record(waitNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void concurrencyLimitChanged(int limit) {
+    this.concurrencyLimit.set(limit);
+  }
+}
@@ -4,7 +4,7 @@ import com.alibaba.fastjson.JSON;
 import com.mctech.fss.client.*;
 import lombok.SneakyThrows;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.HashMap;
@@ -30,11 +30,10 @@ public class FssSample {
     {
       Map<String, String> meta = new HashMap<>();
       meta.put("x-fss-meta-module", "mod");
-      FileInputStream is = new FileInputStream("d:\\de.html");
       client.put(key, null,
-          is,
+          new File("d:\\de.html"),
           meta,
-          "text/html", null
+          "text/html"
       );
     }
 
@@ -82,5 +81,7 @@ public class FssSample {
 
       client.delete(key);
     }
+
+    client.close();
   }
 }